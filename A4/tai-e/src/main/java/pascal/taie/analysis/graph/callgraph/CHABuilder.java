@@ -48,7 +48,7 @@ class CHABuilder implements CGBuilder<Invoke, JMethod> {
         return buildCallGraph(World.get().getMainMethod());
     }
 
-    private CallGraph<Invoke, JMethod> buildCallGraph(JMethod entry) {
+    CallGraph<Invoke, JMethod> buildCallGraph(JMethod entry) {
         DefaultCallGraph callGraph = new DefaultCallGraph();
         callGraph.addEntryMethod(entry);
         // TODO - finish me
@@ -75,7 +75,7 @@ class CHABuilder implements CGBuilder<Invoke, JMethod> {
     /**
      * Resolves call targets (callees) of a call site via CHA.
      */
-    private Set<JMethod> resolve(Invoke callSite) {
+    Set<JMethod> resolve(Invoke callSite) {
         // TODO - finish me
         Set<JMethod> T = new HashSet<>();
         MethodRef methodRef = callSite.getMethodRef();
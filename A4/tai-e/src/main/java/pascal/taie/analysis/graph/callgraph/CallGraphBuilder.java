@@ -55,16 +55,40 @@ public class CallGraphBuilder extends ProgramAnalysis {
 
     @Override
     public CallGraph<Invoke, JMethod> analyze() {
+        String cacheDir = getOptions().getString("cache-dir");
+        CallGraphCache cache = cacheDir != null ?
+                new CallGraphCache(cacheDir, algorithm) : null;
+        CallGraph<Invoke, JMethod> callGraph = cache != null ? cache.load() : null;
+        if (callGraph == null) {
+            callGraph = build();
+            if (cache != null) {
+                cache.store(callGraph);
+            }
+        }
+        if (getOptions().getBooleanOrDefault("compact", false)) {
+            // freeze the call graph so that its clients, e.g., ICFG and
+            // inter-procedural solver, query the compact representation
+            callGraph = CompactCallGraph.freeze(callGraph);
+        }
+        takeAction(callGraph);
+        return callGraph;
+    }
+
+    private CallGraph<Invoke, JMethod> build() {
         CGBuilder<Invoke, JMethod> builder;
         if (algorithm.equals("cha")) {
             builder = new CHABuilder();
+        } else if (algorithm.equals("cha-parallel")) {
+            builder = new ParallelCHABuilder(
+                    Runtime.getRuntime().availableProcessors());
+        } else if (algorithm.equals("rta")) {
+            builder = new RTABuilder();
         } else {
             throw new ConfigException("Unknown call graph building algorithm: " + algorithm);
         }
         ClassHierarchyImpl.setCheckCHA(true);
         CallGraph<Invoke, JMethod> callGraph = builder.build();
         ClassHierarchyImpl.setCheckCHA(false);
-        takeAction(callGraph);
         return callGraph;
     }
 
@@ -0,0 +1,278 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.callgraph;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.World;
+import pascal.taie.config.Options;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.classes.Subsignature;
+import pascal.taie.util.collection.Maps;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Persistent cache of call graphs.
+ * <p>
+ * A call graph is stored in a binary file whose name is derived from
+ * the hash of the inputs that determine it, i.e., the content of the
+ * class path, the main class, the options of the world, and the
+ * call graph building algorithm. The file consists of:
+ * <pre>
+ * magic, version
+ * #methods, (class name, subsignature)*
+ * #entry methods, (method id)*
+ * #edges, (caller id, call site index, call kind, callee id)*
+ * </pre>
+ * where methods are referred by their positions in the method table,
+ * and call sites by their indexes in the IR of their container methods.
+ * Cache files are loaded via memory mapping. Whether the call graph of
+ * current run is loaded from the cache is stored in {@link World}
+ * under {@link #HIT}.
+ */
+final class CallGraphCache {
+
+    private static final Logger logger = LogManager.getLogger(CallGraphCache.class);
+
+    private static final int MAGIC = 0x54434743; // "TCGC"
+
+    private static final int VERSION = 1;
+
+    private static final CallKind[] KINDS = CallKind.values();
+
+    /**
+     * Key of the result in {@link World} that tells whether the cache
+     * is hit, i.e., the call graph is loaded from the cache file.
+     */
+    static final String HIT = CallGraphCache.class.getName() + ".hit";
+
+    private final Path file;
+
+    /**
+     * @param cacheDir  directory where cache files are stored
+     * @param algorithm the call graph building algorithm
+     */
+    CallGraphCache(String cacheDir, String algorithm) {
+        this.file = Path.of(cacheDir, "cg-" + computeKey(algorithm) + ".bin");
+    }
+
+    /**
+     * @return the cached call graph, or null if no valid cache entry exists.
+     */
+    CallGraph<Invoke, JMethod> load() {
+        World.get().storeResult(HIT, false);
+        if (!Files.isRegularFile(file)) {
+            logger.info("Call graph cache miss: {}", file);
+            return null;
+        }
+        logger.info("Loading call graph from {} ...", file);
+        CallGraph<Invoke, JMethod> callGraph;
+        try (FileChannel channel = FileChannel.open(file)) {
+            MappedByteBuffer buffer = channel.map(
+                    FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            callGraph = read(buffer);
+        } catch (IOException | RuntimeException e) {
+            // besides I/O errors, a corrupt or stale entry may refer to
+            // absent methods, ids or statements, which surface as various
+            // runtime exceptions, e.g., BufferUnderflowException,
+            // IndexOutOfBoundsException and ClassCastException
+            logger.warn("Failed to load call graph cache {}: {}", file, e.toString());
+            return null;
+        }
+        World.get().storeResult(HIT, true);
+        return callGraph;
+    }
+
+    /**
+     * Stores the given call graph to the cache. Failures are logged
+     * but not propagated, as the cache is only an optimization.
+     */
+    void store(CallGraph<Invoke, JMethod> callGraph) {
+        logger.info("Storing call graph to {} ...", file);
+        try {
+            Files.createDirectories(file.getParent());
+            // write to a temporary file first, so that concurrent or
+            // interrupted runs never observe a partially written entry
+            Path tmp = Files.createTempFile(file.getParent(), "cg-", ".tmp");
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                write(callGraph, new DataOutputStream(new BufferedOutputStream(out)));
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Failed to store call graph cache {}: {}", file, e.toString());
+        }
+    }
+
+    private static void write(CallGraph<Invoke, JMethod> callGraph,
+                              DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        List<JMethod> methods = callGraph.reachableMethods().toList();
+        Map<JMethod, Integer> ids = Maps.newMap(methods.size());
+        out.writeInt(methods.size());
+        for (JMethod method : methods) {
+            ids.put(method, ids.size());
+            writeString(out, method.getDeclaringClass().getName());
+            writeString(out, method.getSubsignature().toString());
+        }
+        List<JMethod> entries = callGraph.entryMethods().toList();
+        out.writeInt(entries.size());
+        for (JMethod entry : entries) {
+            out.writeInt(ids.get(entry));
+        }
+        out.writeInt(callGraph.getNumberOfEdges());
+        for (JMethod method : methods) {
+            for (Invoke callSite : callGraph.getCallSitesIn(method)) {
+                for (Edge<Invoke, JMethod> edge :
+                        (Iterable<Edge<Invoke, JMethod>>) callGraph.edgesOutOf(callSite)::iterator) {
+                    out.writeInt(ids.get(method));
+                    out.writeInt(callSite.getIndex());
+                    out.writeByte(edge.getKind().ordinal());
+                    out.writeInt(ids.get(edge.getCallee()));
+                }
+            }
+        }
+        out.flush();
+    }
+
+    private static void writeString(DataOutputStream out, String s)
+            throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static CallGraph<Invoke, JMethod> read(ByteBuffer buffer) {
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            throw new IllegalStateException("incompatible cache format");
+        }
+        ClassHierarchy hierarchy = World.get().getClassHierarchy();
+        JMethod[] methods = new JMethod[buffer.getInt()];
+        for (int i = 0; i < methods.length; ++i) {
+            String className = readString(buffer);
+            String subsig = readString(buffer);
+            JClass jclass = hierarchy.getClass(className);
+            JMethod method = jclass == null ? null :
+                    jclass.getDeclaredMethod(Subsignature.get(subsig));
+            if (method == null) {
+                throw new IllegalStateException("cannot find method "
+                        + subsig + " in " + className);
+            }
+            methods[i] = method;
+        }
+        DefaultCallGraph callGraph = new DefaultCallGraph();
+        int nEntries = buffer.getInt();
+        for (int i = 0; i < nEntries; ++i) {
+            callGraph.addEntryMethod(methods[buffer.getInt()]);
+        }
+        for (JMethod method : methods) {
+            callGraph.addReachableMethod(method);
+        }
+        int nEdges = buffer.getInt();
+        for (int i = 0; i < nEdges; ++i) {
+            JMethod caller = methods[buffer.getInt()];
+            Invoke callSite = (Invoke) caller.getIR().getStmt(buffer.getInt());
+            CallKind kind = KINDS[buffer.get()];
+            JMethod callee = methods[buffer.getInt()];
+            callGraph.addEdge(new Edge<>(kind, callSite, callee));
+        }
+        return callGraph;
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return hash of the inputs that determine the call graph.
+     */
+    private static String computeKey(String algorithm) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+        Options options = World.get().getOptions();
+        update(digest, "version:" + VERSION);
+        update(digest, "algorithm:" + algorithm);
+        update(digest, "main:" + options.getMainClass());
+        update(digest, "java:" + options.getJavaVersion());
+        update(digest, "prepend-jvm:" + options.isPrependJVM());
+        update(digest, "scope:" + options.getScope());
+        update(digest, "native-model:" + options.enableNativeModel());
+        update(digest, "world-builder:" + options.getWorldBuilderClass().getName());
+        String classPath = options.getClassPath();
+        if (classPath != null) {
+            for (String entry : classPath.split(File.pathSeparator)) {
+                hashClassPathEntry(digest, Path.of(entry));
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static void hashClassPathEntry(MessageDigest digest, Path entry) {
+        update(digest, "cp:" + entry);
+        if (!Files.exists(entry)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(entry)) {
+            for (Path path : paths.filter(Files::isRegularFile).sorted().toList()) {
+                update(digest, entry.relativize(path).toString());
+                digest.update(Files.readAllBytes(path));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void update(MessageDigest digest, String s) {
+        digest.update(s.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+}
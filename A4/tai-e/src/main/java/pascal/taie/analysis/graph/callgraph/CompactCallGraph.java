@@ -0,0 +1,467 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.callgraph;
+
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Frozen, compact representation of call graph.
+ * <p>
+ * Methods and call sites are indexed by dense integers, and the call
+ * relations are stored in CSR (compressed sparse row) arrays instead of
+ * multimaps of {@link Edge}s: the call sites in method {@code m} are
+ * {@code callSites[callSiteOffsets[m], callSiteOffsets[m + 1])}, the callees
+ * of call site {@code c} are {@code callees[calleeOffsets[c], calleeOffsets[c + 1])},
+ * and similarly for callers. {@link Edge} objects are created on demand
+ * when they are queried.
+ * <p>
+ * The index of a method is found in an open-addressing table of ints.
+ * The call sites in each method are sorted by their indexes in the IR
+ * (see {@link Stmt#getIndex()}), thus the index of a call site is found
+ * by binary search in the call sites of its container method.
+ * <p>
+ * A compact call graph cannot be modified; use {@link #freeze(CallGraph)}
+ * to build it from another call graph once the construction finishes.
+ */
+public class CompactCallGraph implements CallGraph<Invoke, JMethod> {
+
+    private static final CallKind[] KINDS = CallKind.values();
+
+    private final JMethod[] methods;
+
+    /**
+     * Open-addressing hash table of method indexes, where each slot
+     * holds the index of a method plus one, and 0 denotes an empty slot.
+     */
+    private final int[] methodSlots;
+
+    private final int[] entryMethods;
+
+    private final Invoke[] callSites;
+
+    /**
+     * Index of each call site in the IR of its container method.
+     */
+    private final int[] callSiteStmtIndexes;
+
+    /**
+     * CSR offsets of call sites in each method, indexed by method.
+     */
+    private final int[] callSiteOffsets;
+
+    /**
+     * CSR offsets of out edges of each call site, indexed by call site.
+     */
+    private final int[] calleeOffsets;
+
+    /**
+     * Callee method of each out edge.
+     */
+    private final int[] callees;
+
+    /**
+     * Ordinal of {@link CallKind} of each out edge.
+     */
+    private final byte[] calleeKinds;
+
+    /**
+     * CSR offsets of in edges of each method, indexed by method.
+     */
+    private final int[] callerOffsets;
+
+    /**
+     * Caller call site of each in edge.
+     */
+    private final int[] callers;
+
+    /**
+     * Ordinal of {@link CallKind} of each in edge.
+     */
+    private final byte[] callerKinds;
+
+    private CompactCallGraph(CallGraph<Invoke, JMethod> callGraph) {
+        // index methods and call sites, where the call sites
+        // in the same method are indexed consecutively
+        methods = callGraph.reachableMethods().toArray(JMethod[]::new);
+        int nSlots = 2;
+        while (nSlots < methods.length * 2) {
+            nSlots <<= 1;
+        }
+        methodSlots = new int[nSlots];
+        for (int i = 0; i < methods.length; ++i) {
+            methodSlots[slotOf(methods[i])] = i + 1;
+        }
+        entryMethods = callGraph.entryMethods()
+                .mapToInt(this::getIndex)
+                .toArray();
+        callSiteOffsets = new int[methods.length + 1];
+        for (int i = 0; i < methods.length; ++i) {
+            callSiteOffsets[i + 1] = callSiteOffsets[i] +
+                    callGraph.getCallSitesIn(methods[i]).size();
+        }
+        callSites = new Invoke[callSiteOffsets[methods.length]];
+        callSiteStmtIndexes = new int[callSites.length];
+        for (int i = 0; i < methods.length; ++i) {
+            int c = callSiteOffsets[i];
+            Invoke[] callSitesIn = callGraph.getCallSitesIn(methods[i])
+                    .toArray(Invoke[]::new);
+            Arrays.sort(callSitesIn, Comparator.comparingInt(Invoke::getIndex));
+            for (Invoke callSite : callSitesIn) {
+                callSites[c] = callSite;
+                callSiteStmtIndexes[c] = callSite.getIndex();
+                ++c;
+            }
+        }
+        // build out edges
+        calleeOffsets = new int[callSites.length + 1];
+        for (int c = 0; c < callSites.length; ++c) {
+            calleeOffsets[c + 1] = calleeOffsets[c] +
+                    (int) callGraph.edgesOutOf(callSites[c]).count();
+        }
+        int nEdges = calleeOffsets[callSites.length];
+        callees = new int[nEdges];
+        calleeKinds = new byte[nEdges];
+        int[] inDegrees = new int[methods.length];
+        for (int c = 0; c < callSites.length; ++c) {
+            int e = calleeOffsets[c];
+            for (Edge<Invoke, JMethod> edge :
+                    (Iterable<Edge<Invoke, JMethod>>) callGraph.edgesOutOf(callSites[c])::iterator) {
+                int callee = getIndex(edge.getCallee());
+                callees[e] = callee;
+                calleeKinds[e] = (byte) edge.getKind().ordinal();
+                ++inDegrees[callee];
+                ++e;
+            }
+        }
+        // build in edges by transposing out edges
+        callerOffsets = new int[methods.length + 1];
+        for (int m = 0; m < methods.length; ++m) {
+            callerOffsets[m + 1] = callerOffsets[m] + inDegrees[m];
+        }
+        callers = new int[nEdges];
+        callerKinds = new byte[nEdges];
+        int[] next = Arrays.copyOf(callerOffsets, methods.length);
+        for (int c = 0; c < callSites.length; ++c) {
+            for (int e = calleeOffsets[c]; e < calleeOffsets[c + 1]; ++e) {
+                int pos = next[callees[e]]++;
+                callers[pos] = c;
+                callerKinds[pos] = calleeKinds[e];
+            }
+        }
+    }
+
+    /**
+     * @return a compact call graph that has the same methods and
+     * call edges as the given call graph.
+     */
+    public static CompactCallGraph freeze(CallGraph<Invoke, JMethod> callGraph) {
+        return callGraph instanceof CompactCallGraph compact ?
+                compact : new CompactCallGraph(callGraph);
+    }
+
+    /**
+     * @return the index of given method, or -1 if it is not reachable.
+     */
+    public int getIndex(JMethod method) {
+        return methodSlots[slotOf(method)] - 1;
+    }
+
+    /**
+     * @return the slot of given method in {@link #methodSlots},
+     * or the empty slot for it if the method is absent.
+     */
+    private int slotOf(JMethod method) {
+        int mask = methodSlots.length - 1;
+        int h = method.hashCode();
+        int slot = (h ^ (h >>> 16)) & mask;
+        while (methodSlots[slot] != 0 &&
+                !methods[methodSlots[slot] - 1].equals(method)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * @return the index of given call site, or -1 if it is not in
+     * any reachable method.
+     */
+    public int getIndex(Invoke callSite) {
+        int m = getIndex(callSite.getContainer());
+        if (m == -1) {
+            return -1;
+        }
+        int c = Arrays.binarySearch(callSiteStmtIndexes,
+                callSiteOffsets[m], callSiteOffsets[m + 1], callSite.getIndex());
+        return c >= 0 && callSites[c].equals(callSite) ? c : -1;
+    }
+
+    /**
+     * @return the method of given index.
+     */
+    public JMethod getMethod(int index) {
+        return methods[index];
+    }
+
+    /**
+     * @return the call site of given index.
+     */
+    public Invoke getCallSite(int index) {
+        return callSites[index];
+    }
+
+    /**
+     * @return the indexes of the callees of the call site of given index.
+     */
+    public IntStream calleesOf(int callSite) {
+        return Arrays.stream(callees,
+                calleeOffsets[callSite], calleeOffsets[callSite + 1]);
+    }
+
+    /**
+     * @return the indexes of the call sites that invoke the method
+     * of given index.
+     */
+    public IntStream callersOf(int method) {
+        return Arrays.stream(callers,
+                callerOffsets[method], callerOffsets[method + 1]);
+    }
+
+    @Override
+    public Set<Invoke> getCallersOf(JMethod callee) {
+        int m = getIndex(callee);
+        return m == -1 ? Set.of() : new ArrayRangeSet<>(
+                callSites, callers, callerOffsets[m], callerOffsets[m + 1]);
+    }
+
+    @Override
+    public Set<JMethod> getCalleesOf(Invoke callSite) {
+        int c = getIndex(callSite);
+        return c == -1 ? Set.of() : new ArrayRangeSet<>(
+                methods, callees, calleeOffsets[c], calleeOffsets[c + 1]);
+    }
+
+    @Override
+    public Set<JMethod> getCalleesOfM(JMethod caller) {
+        int m = getIndex(caller);
+        if (m == -1) {
+            return Set.of();
+        }
+        return IntStream.range(callSiteOffsets[m], callSiteOffsets[m + 1])
+                .flatMap(this::calleesOf)
+                .mapToObj(this::getMethod)
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    @Override
+    public JMethod getContainerOf(Invoke callSite) {
+        return callSite.getContainer();
+    }
+
+    @Override
+    public Set<Invoke> getCallSitesIn(JMethod method) {
+        int m = getIndex(method);
+        return m == -1 ? Set.of() : new ArrayRangeSet<>(
+                callSites, null, callSiteOffsets[m], callSiteOffsets[m + 1]);
+    }
+
+    @Override
+    public Stream<Edge<Invoke, JMethod>> edgesOutOf(Invoke callSite) {
+        int c = getIndex(callSite);
+        return c == -1 ? Stream.of() : outEdges(c);
+    }
+
+    @Override
+    public Stream<Edge<Invoke, JMethod>> edgesInTo(JMethod method) {
+        int m = getIndex(method);
+        if (m == -1) {
+            return Stream.of();
+        }
+        return IntStream.range(callerOffsets[m], callerOffsets[m + 1])
+                .mapToObj(e -> new Edge<>(KINDS[callerKinds[e]],
+                        callSites[callers[e]], method));
+    }
+
+    @Override
+    public Stream<Edge<Invoke, JMethod>> edges() {
+        return IntStream.range(0, callSites.length).boxed()
+                .flatMap(this::outEdges);
+    }
+
+    private Stream<Edge<Invoke, JMethod>> outEdges(int callSite) {
+        return IntStream.range(calleeOffsets[callSite], calleeOffsets[callSite + 1])
+                .mapToObj(e -> new Edge<>(KINDS[calleeKinds[e]],
+                        callSites[callSite], methods[callees[e]]));
+    }
+
+    @Override
+    public int getNumberOfEdges() {
+        return callees.length;
+    }
+
+    @Override
+    public Stream<JMethod> entryMethods() {
+        return Arrays.stream(entryMethods).mapToObj(this::getMethod);
+    }
+
+    @Override
+    public Stream<JMethod> reachableMethods() {
+        return Arrays.stream(methods);
+    }
+
+    @Override
+    public int getNumberOfMethods() {
+        return methods.length;
+    }
+
+    @Override
+    public boolean contains(JMethod method) {
+        return getIndex(method) != -1;
+    }
+
+    // Implementation for Graph interface.
+
+    @Override
+    public boolean hasNode(JMethod node) {
+        return contains(node);
+    }
+
+    @Override
+    public boolean hasEdge(JMethod source, JMethod target) {
+        int m = getIndex(source);
+        int t = getIndex(target);
+        if (m == -1 || t == -1) {
+            return false;
+        }
+        return IntStream.range(callSiteOffsets[m], callSiteOffsets[m + 1])
+                .flatMap(this::calleesOf)
+                .anyMatch(callee -> callee == t);
+    }
+
+    @Override
+    public Set<MethodEdge<Invoke, JMethod>> getInEdgesOf(JMethod method) {
+        return getCallersOf(method)
+                .stream()
+                .map(cs -> new MethodEdge<>(getContainerOf(cs), method, cs))
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    @Override
+    public Set<MethodEdge<Invoke, JMethod>> getOutEdgesOf(JMethod method) {
+        return callSitesIn(method)
+                .flatMap(cs -> getCalleesOf(cs)
+                        .stream()
+                        .map(callee -> new MethodEdge<>(method, callee, cs)))
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    @Override
+    public Set<JMethod> getPredsOf(JMethod node) {
+        return getCallersOf(node)
+                .stream()
+                .map(this::getContainerOf)
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    @Override
+    public Set<JMethod> getSuccsOf(JMethod node) {
+        return getCalleesOfM(node);
+    }
+
+    @Override
+    public Set<JMethod> getNodes() {
+        return new ArrayRangeSet<>(methods, null, 0, methods.length);
+    }
+
+    @Override
+    public boolean isRelevant(Stmt stmt) {
+        return stmt instanceof Invoke;
+    }
+
+    @Override
+    public Set<JMethod> getResult(Stmt stmt) {
+        return getCalleesOf((Invoke) stmt);
+    }
+
+    /**
+     * Unmodifiable set view of the elements {@code elements[indexes[i]]}
+     * for {@code i} in [from, to). If {@code indexes} is null, the view
+     * consists of {@code elements[i]} instead.
+     */
+    private static class ArrayRangeSet<E> extends AbstractSet<E> {
+
+        private final E[] elements;
+
+        private final int[] indexes;
+
+        private final int from;
+
+        private final int to;
+
+        private ArrayRangeSet(E[] elements, int[] indexes, int from, int to) {
+            this.elements = elements;
+            this.indexes = indexes;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            return new Iterator<>() {
+
+                private int i = from;
+
+                @Override
+                public boolean hasNext() {
+                    return i < to;
+                }
+
+                @Override
+                public E next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    int index = indexes != null ? indexes[i] : i;
+                    ++i;
+                    return elements[index];
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+    }
+}
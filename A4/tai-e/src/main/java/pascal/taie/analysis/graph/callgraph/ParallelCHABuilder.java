@@ -0,0 +1,125 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.callgraph;
+
+import pascal.taie.ir.proginfo.MethodRef;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Pair;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Parallel implementation of the CHA algorithm.
+ * <p>
+ * Reachable methods are processed in waves. The call sites of all methods
+ * in the current wave are resolved concurrently on a {@link ForkJoinPool},
+ * then the resulting edges are merged into the call graph, and the newly
+ * reachable callees form the next wave. Merging is done between waves
+ * on the calling thread, as adding a reachable method builds its IR,
+ * which is not thread-safe. The resulting call graph is the same as
+ * the one built by {@link CHABuilder}.
+ */
+class ParallelCHABuilder extends CHABuilder {
+
+    /**
+     * Caches the resolved callees of each (call kind, method reference) pair,
+     * as the CHA targets of a call site depend only on them.
+     */
+    private final ConcurrentMap<Pair<CallKind, MethodRef>, List<JMethod>> resolved
+            = Maps.newConcurrentMap();
+
+    private final int parallelism;
+
+    ParallelCHABuilder(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    @Override
+    CallGraph<Invoke, JMethod> buildCallGraph(JMethod entry) {
+        DefaultCallGraph callGraph = new DefaultCallGraph();
+        callGraph.addEntryMethod(entry);
+        callGraph.addReachableMethod(entry);
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            List<JMethod> wave = List.of(entry);
+            while (!wave.isEmpty()) {
+                List<JMethod> nextWave = new ArrayList<>();
+                for (Edge<Invoke, JMethod> edge : resolveWave(pool, callGraph, wave)) {
+                    callGraph.addEdge(edge);
+                    if (callGraph.addReachableMethod(edge.getCallee())) {
+                        nextWave.add(edge.getCallee());
+                    }
+                }
+                wave = nextWave;
+            }
+        } finally {
+            pool.shutdown();
+        }
+        return callGraph;
+    }
+
+    /**
+     * Resolves the call sites in given methods concurrently.
+     * The call graph is only read during resolution.
+     *
+     * @return the call edges out of the call sites in given methods.
+     */
+    private List<Edge<Invoke, JMethod>> resolveWave(
+            ForkJoinPool pool, CallGraph<Invoke, JMethod> callGraph,
+            List<JMethod> wave) {
+        try {
+            return pool.submit(() -> wave.parallelStream()
+                    .flatMap(callGraph::callSitesIn)
+                    .flatMap(callSite -> {
+                        CallKind kind = CallGraphs.getCallKind(callSite);
+                        return resolveCached(kind, callSite)
+                                .stream()
+                                .map(callee -> new Edge<>(kind, callSite, callee));
+                    })
+                    .toList()
+            ).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AnalysisException("Interrupted while building call graph", e);
+        } catch (ExecutionException e) {
+            throw new AnalysisException("Failed to resolve call sites", e.getCause());
+        }
+    }
+
+    private List<JMethod> resolveCached(CallKind kind, Invoke callSite) {
+        return resolved.computeIfAbsent(
+                new Pair<>(kind, callSite.getMethodRef()),
+                k -> resolve(callSite)
+                        .stream()
+                        .filter(Objects::nonNull)
+                        .toList());
+    }
+}
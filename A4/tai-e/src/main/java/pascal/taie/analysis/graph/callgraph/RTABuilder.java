@@ -0,0 +1,195 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.callgraph;
+
+import pascal.taie.World;
+import pascal.taie.ir.exp.ReferenceLiteral;
+import pascal.taie.ir.proginfo.MethodRef;
+import pascal.taie.ir.stmt.AssignLiteral;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.ClassNames;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.classes.Subsignature;
+import pascal.taie.language.type.ClassType;
+import pascal.taie.language.type.Type;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * Implementation of the RTA (Rapid Type Analysis) algorithm.
+ * <p>
+ * Compared to CHA, RTA additionally tracks the classes instantiated in
+ * reachable methods, and resolves virtual calls only to the targets
+ * dispatched on those classes. Each virtual call site is indexed by the
+ * declaring class of its method reference, so that when a class becomes
+ * instantiated, only the call sites declared on its supertypes
+ * are re-resolved.
+ */
+class RTABuilder implements CGBuilder<Invoke, JMethod> {
+
+    private ClassHierarchy hierarchy;
+
+    private DefaultCallGraph callGraph;
+
+    private Queue<JMethod> workList;
+
+    /**
+     * Classes instantiated in reachable methods.
+     */
+    private Set<JClass> instantiatedClasses;
+
+    /**
+     * Map from each type to its instantiated subtypes (including itself).
+     */
+    private MultiMap<JClass, JClass> instantiatedSubtypes;
+
+    /**
+     * Map from each type to the reachable virtual call sites
+     * whose method references are declared in the type.
+     */
+    private MultiMap<JClass, Invoke> virtualCallSites;
+
+    @Override
+    public CallGraph<Invoke, JMethod> build() {
+        hierarchy = World.get().getClassHierarchy();
+        return buildCallGraph(World.get().getMainMethod());
+    }
+
+    private CallGraph<Invoke, JMethod> buildCallGraph(JMethod entry) {
+        callGraph = new DefaultCallGraph();
+        workList = new ArrayDeque<>();
+        instantiatedClasses = Sets.newSet();
+        instantiatedSubtypes = Maps.newMultiMap();
+        virtualCallSites = Maps.newMultiMap();
+        callGraph.addEntryMethod(entry);
+        workList.add(entry);
+        while (!workList.isEmpty()) {
+            JMethod method = workList.poll();
+            if (callGraph.addReachableMethod(method) && !method.isAbstract()) {
+                processStmts(method);
+            }
+        }
+        return callGraph;
+    }
+
+    /**
+     * Processes allocations and call sites in a new reachable method.
+     */
+    private void processStmts(JMethod method) {
+        for (Stmt stmt : method.getIR()) {
+            if (stmt instanceof New newStmt) {
+                addInstantiatedType(newStmt.getRValue().getType());
+            } else if (stmt instanceof AssignLiteral assign &&
+                    assign.getRValue() instanceof ReferenceLiteral literal) {
+                // constants such as strings and class literals are also
+                // objects created without any New statement
+                addInstantiatedType(literal.getType());
+            }
+        }
+        for (Invoke callSite : callGraph.getCallSitesIn(method)) {
+            processCallSite(callSite);
+        }
+    }
+
+    private void addInstantiatedType(Type type) {
+        JClass jclass = type instanceof ClassType classType ?
+                classType.getJClass() :
+                // arrays dispatch their methods to java.lang.Object
+                hierarchy.getJREClass(ClassNames.OBJECT);
+        if (jclass != null && instantiatedClasses.add(jclass)) {
+            for (JClass supertype : getSupertypesOf(jclass)) {
+                instantiatedSubtypes.put(supertype, jclass);
+                for (Invoke callSite : virtualCallSites.get(supertype)) {
+                    addEdge(callSite, dispatch(jclass,
+                            callSite.getMethodRef().getSubsignature()));
+                }
+            }
+        }
+    }
+
+    private void processCallSite(Invoke callSite) {
+        MethodRef methodRef = callSite.getMethodRef();
+        JClass declaringClass = methodRef.getDeclaringClass();
+        Subsignature subsignature = methodRef.getSubsignature();
+        switch (CallGraphs.getCallKind(callSite)) {
+            case STATIC, SPECIAL ->
+                    addEdge(callSite, dispatch(declaringClass, subsignature));
+            case VIRTUAL, INTERFACE -> {
+                virtualCallSites.put(declaringClass, callSite);
+                for (JClass jclass : instantiatedSubtypes.get(declaringClass)) {
+                    addEdge(callSite, dispatch(jclass, subsignature));
+                }
+            }
+        }
+    }
+
+    private void addEdge(Invoke callSite, JMethod callee) {
+        if (callee != null && callGraph.addEdge(new Edge<>(
+                CallGraphs.getCallKind(callSite), callSite, callee))) {
+            workList.add(callee);
+        }
+    }
+
+    /**
+     * @return the given class and all its superclasses and superinterfaces.
+     */
+    private static Set<JClass> getSupertypesOf(JClass jclass) {
+        Set<JClass> supertypes = Sets.newSet();
+        Queue<JClass> queue = new ArrayDeque<>();
+        queue.add(jclass);
+        while (!queue.isEmpty()) {
+            JClass type = queue.poll();
+            if (supertypes.add(type)) {
+                if (type.getSuperClass() != null) {
+                    queue.add(type.getSuperClass());
+                }
+                queue.addAll(type.getInterfaces());
+            }
+        }
+        return supertypes;
+    }
+
+    /**
+     * Looks up the target method based on given class and method subsignature.
+     *
+     * @return the dispatched target method, or null if no satisfying method
+     * can be found.
+     */
+    private static JMethod dispatch(JClass jclass, Subsignature subsignature) {
+        if (jclass == null) {
+            return null;
+        }
+        JMethod method = jclass.getDeclaredMethod(subsignature);
+        return method != null && !method.isAbstract() ?
+                method : dispatch(jclass.getSuperClass(), subsignature);
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.callgraph;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.World;
+import pascal.taie.analysis.Tests;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+/**
+ * Runs each test case twice with a fresh cache directory: the first run
+ * builds and stores the call graph, and the second one loads it from
+ * the cache, so both must match the expected results of CHATest.
+ */
+public class CachedCHATest {
+
+    protected static void test(String main) {
+        Path cacheDir;
+        try {
+            cacheDir = Files.createTempDirectory("cg-cache");
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        String opts = "algorithm:cha;cache-dir:" + cacheDir;
+        Tests.test(main, "src/test/resources/cha/", "cg", opts);
+        Assert.assertFalse("first run should build the call graph",
+                World.get().getResult(CallGraphCache.HIT));
+        Assert.assertEquals(1, countFiles(cacheDir));
+        Tests.test(main, "src/test/resources/cha/", "cg", opts);
+        Assert.assertTrue("second run should load the call graph",
+                World.get().getResult(CallGraphCache.HIT));
+    }
+
+    private static long countFiles(Path dir) {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.count();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Test
+    public void testStaticCall() {
+        test("StaticCall");
+    }
+
+    @Test
+    public void testVirtualCall() {
+        test("VirtualCall");
+    }
+
+    @Test
+    public void testInterface() {
+        test("Interface");
+    }
+
+    @Test
+    public void testAbstractMethod() {
+        test("AbstractMethod");
+    }
+}
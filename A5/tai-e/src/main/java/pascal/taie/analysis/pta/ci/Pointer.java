@@ -22,16 +22,33 @@
 
 package pascal.taie.analysis.pta.ci;
 
+import pascal.taie.util.Indexable;
+
 /**
  * Represents pointers in pointer analysis and nodes in pointer flow graph.
  *
  * @see PointerFlowGraph
  */
-abstract class Pointer {
+abstract class Pointer implements Indexable {
 
     private final PointsToSet pointsToSet = new PointsToSet();
 
+    /**
+     * Dense id of this pointer, assigned by {@link PointerFlowGraph}
+     * when the pointer is created.
+     */
+    private int index = -1;
+
     PointsToSet getPointsToSet() {
         return pointsToSet;
     }
+
+    @Override
+    public int getIndex() {
+        return index;
+    }
+
+    void setIndex(int index) {
+        this.index = index;
+    }
 }
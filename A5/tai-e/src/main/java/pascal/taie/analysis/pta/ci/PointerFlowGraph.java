@@ -26,23 +26,35 @@ import pascal.taie.analysis.pta.core.heap.Obj;
 import pascal.taie.ir.exp.Var;
 import pascal.taie.language.classes.JField;
 import pascal.taie.util.collection.Maps;
-import pascal.taie.util.collection.MultiMap;
-import pascal.taie.util.collection.Sets;
-import pascal.taie.util.collection.TwoKeyMap;
 
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 /**
  * Represents pointer flow graph in pointer analysis.
+ * <p>
+ * Each pointer is given a dense id when it is created, and the successors
+ * of a pointer are stored as a growable {@code int[]} of such ids, so that
+ * propagation iterates over a primitive array instead of hash buckets.
+ * A single open-addressing hash table of {@code long} keys is used
+ * only to detect duplicate edges.
  */
 class PointerFlowGraph {
 
+    private static final int[] EMPTY = new int[0];
+
     /**
-     * Set of all pointer in this PFG.
+     * All pointers in this PFG, indexed by their ids.
      */
-    private final Set<Pointer> pointers = Sets.newSet();
+    private final List<Pointer> pointers = new ArrayList<>();
 
     /**
      * Map from Variable to Var node.
@@ -55,9 +67,11 @@ class PointerFlowGraph {
     private final Map<JField, StaticField> staticFields = Maps.newMap();
 
     /**
-     * Map from (Obj, Field) to InstanceField node.
+     * Map from (Field, Obj) to InstanceField node. The field is the outer
+     * key so that the nodes of a field for a batch of objects can be
+     * obtained with one lookup of the field.
      */
-    private final TwoKeyMap<Obj, JField, InstanceField> instanceFields = Maps.newTwoKeyMap();
+    private final Map<JField, Map<Obj, InstanceField>> instanceFields = Maps.newMap();
 
     /**
      * Map from Obj (array) to ArrayIndex node.
@@ -65,37 +79,35 @@ class PointerFlowGraph {
     private final Map<Obj, ArrayIndex> arrayIndexes = Maps.newMap();
 
     /**
-     * Map from a pointer (node) to its successors in PFG.
+     * Successor ids of each pointer; only the first
+     * {@code succCounts[id]} elements of {@code succs[id]} are valid.
      */
-    private final MultiMap<Pointer, Pointer> successors = Maps.newMultiMap();
+    private int[][] succs = new int[64][];
+
+    private int[] succCounts = new int[64];
+
+    private final EdgeSet edges = new EdgeSet();
 
     /**
      * Returns all pointers in this PFG.
      */
-    Set<Pointer> getPointers() {
-        return Collections.unmodifiableSet(pointers);
+    Collection<Pointer> getPointers() {
+        return Collections.unmodifiableList(pointers);
     }
 
     /**
      * @return the corresponding Var node for the given variable.
      */
     VarPtr getVarPtr(Var var) {
-        return varPtrs.computeIfAbsent(var, v -> {
-            VarPtr varPtr = new VarPtr(v);
-            pointers.add(varPtr);
-            return varPtr;
-        });
+        return varPtrs.computeIfAbsent(var, v -> addPointer(new VarPtr(v)));
     }
 
     /**
      * @return the corresponding StaticField node for the given static field.
      */
     StaticField getStaticField(JField field) {
-        return staticFields.computeIfAbsent(field, f -> {
-            StaticField staticField = new StaticField(f);
-            pointers.add(staticField);
-            return staticField;
-        });
+        return staticFields.computeIfAbsent(field,
+                f -> addPointer(new StaticField(f)));
     }
 
     /**
@@ -103,22 +115,62 @@ class PointerFlowGraph {
      * and instance field.
      */
     InstanceField getInstanceField(Obj base, JField field) {
-        return instanceFields.computeIfAbsent(base, field, (b, f) -> {
-                InstanceField instanceField = new InstanceField(b, f);
-                pointers.add(instanceField);
-                return instanceField;
-            });
+        return getInstanceField(getInstanceFieldsOf(field), base, field);
+    }
+
+    /**
+     * @return the corresponding InstanceField nodes for the given objects
+     * and instance field, in iteration order of the objects.
+     */
+    List<InstanceField> getInstanceFields(PointsToSet bases, JField field) {
+        Map<Obj, InstanceField> fieldPtrs = getInstanceFieldsOf(field);
+        List<InstanceField> result = new ArrayList<>(bases.size());
+        for (Obj base : bases) {
+            result.add(getInstanceField(fieldPtrs, base, field));
+        }
+        return result;
+    }
+
+    private Map<Obj, InstanceField> getInstanceFieldsOf(JField field) {
+        return instanceFields.computeIfAbsent(field, f -> Maps.newMap());
+    }
+
+    private InstanceField getInstanceField(
+            Map<Obj, InstanceField> fieldPtrs, Obj base, JField field) {
+        return fieldPtrs.computeIfAbsent(base,
+                b -> addPointer(new InstanceField(b, field)));
     }
 
     /**
      * @return the corresponding ArrayIndex node for the given array object.
      */
     ArrayIndex getArrayIndex(Obj array) {
-        return arrayIndexes.computeIfAbsent(array, a -> {
-            ArrayIndex arrayIndex = new ArrayIndex(a);
-            pointers.add(arrayIndex);
-            return arrayIndex;
-        });
+        return arrayIndexes.computeIfAbsent(array,
+                a -> addPointer(new ArrayIndex(a)));
+    }
+
+    /**
+     * @return the corresponding ArrayIndex nodes for the given array
+     * objects, in iteration order of the objects.
+     */
+    List<ArrayIndex> getArrayIndexes(PointsToSet arrays) {
+        List<ArrayIndex> result = new ArrayList<>(arrays.size());
+        for (Obj array : arrays) {
+            result.add(getArrayIndex(array));
+        }
+        return result;
+    }
+
+    private <P extends Pointer> P addPointer(P pointer) {
+        int id = pointers.size();
+        pointer.setIndex(id);
+        pointers.add(pointer);
+        if (id == succs.length) {
+            succs = Arrays.copyOf(succs, id << 1);
+            succCounts = Arrays.copyOf(succCounts, id << 1);
+        }
+        succs[id] = EMPTY;
+        return pointer;
     }
 
     /**
@@ -128,13 +180,169 @@ class PointerFlowGraph {
      * otherwise false.
      */
     boolean addEdge(Pointer source, Pointer target) {
-        return successors.put(source, target);
+        int s = source.getIndex(), t = target.getIndex();
+        if (!edges.add(s, t)) {
+            return false;
+        }
+        int[] targets = succs[s];
+        int count = succCounts[s];
+        if (count == targets.length) {
+            targets = succs[s] = Arrays.copyOf(targets,
+                    Math.max(4, count + (count >> 1)));
+        }
+        targets[count] = t;
+        succCounts[s] = count + 1;
+        return true;
     }
 
     /**
      * @return successors of given pointer in the PFG.
      */
     Set<Pointer> getSuccsOf(Pointer pointer) {
-        return successors.get(pointer);
+        return new SuccessorSet(pointer.getIndex());
+    }
+
+    /**
+     * @return number of edges in this PFG.
+     */
+    int getNumberOfEdges() {
+        return edges.size;
+    }
+
+    /**
+     * @return estimated number of bytes occupied by the adjacency
+     * structures of this PFG, excluding the pointers themselves.
+     */
+    long getMemoryFootprint() {
+        // 16 bytes for each array header, 4 bytes for each reference
+        // (with compressed oops) and int, and 8 bytes for each long
+        long bytes = 16 + 4L * succs.length + 16 + 4L * succCounts.length;
+        for (int i = 0; i < pointers.size(); ++i) {
+            if (succs[i] != EMPTY) {
+                bytes += 16 + 4L * succs[i].length;
+            }
+        }
+        return bytes + 16 + 8L * edges.table.length;
+    }
+
+    /**
+     * Read-only view of the successors of a pointer.
+     */
+    private class SuccessorSet extends AbstractSet<Pointer> {
+
+        private final int source;
+
+        private SuccessorSet(int source) {
+            this.source = source;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof Pointer p && p.getIndex() >= 0
+                    && edges.contains(source, p.getIndex());
+        }
+
+        @Override
+        public Iterator<Pointer> iterator() {
+            int[] targets = succs[source];
+            int count = succCounts[source];
+            return new Iterator<>() {
+
+                private int i = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return i < count;
+                }
+
+                @Override
+                public Pointer next() {
+                    if (i >= count) {
+                        throw new NoSuchElementException();
+                    }
+                    return pointers.get(targets[i++]);
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return succCounts[source];
+        }
+    }
+
+    /**
+     * Open-addressing hash set of edges, each of which is encoded
+     * as a {@code long} consisting of the ids of its source and target.
+     * Assignment 8 has the same table as {@code LongHashSet}, which
+     * cannot be shared as the assignments are built separately.
+     */
+    private static class EdgeSet {
+
+        private static final long FREE = -1L;
+
+        private long[] table = newTable(256);
+
+        private int size;
+
+        private static long[] newTable(int capacity) {
+            long[] table = new long[capacity];
+            Arrays.fill(table, FREE);
+            return table;
+        }
+
+        private static long key(int source, int target) {
+            return ((long) source << 32) | (target & 0xffffffffL);
+        }
+
+        private static int hash(long key, int mask) {
+            long h = key * 0x9e3779b97f4a7c15L;
+            return (int) (h ^ (h >>> 32)) & mask;
+        }
+
+        boolean contains(int source, int target) {
+            long key = key(source, target);
+            int mask = table.length - 1;
+            for (int i = hash(key, mask); table[i] != FREE; i = (i + 1) & mask) {
+                if (table[i] == key) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * @return true if the edge was absent before this call.
+         */
+        boolean add(int source, int target) {
+            long key = key(source, target);
+            int mask = table.length - 1;
+            int i = hash(key, mask);
+            for (; table[i] != FREE; i = (i + 1) & mask) {
+                if (table[i] == key) {
+                    return false;
+                }
+            }
+            table[i] = key;
+            if (++size > (table.length >> 1) + (table.length >> 2)) {
+                rehash();
+            }
+            return true;
+        }
+
+        private void rehash() {
+            long[] old = table;
+            table = newTable(old.length << 1);
+            int mask = table.length - 1;
+            for (long key : old) {
+                if (key != FREE) {
+                    int i = hash(key, mask);
+                    while (table[i] != FREE) {
+                        i = (i + 1) & mask;
+                    }
+                    table[i] = key;
+                }
+            }
+        }
     }
 }
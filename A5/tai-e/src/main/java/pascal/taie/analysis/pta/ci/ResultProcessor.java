@@ -89,6 +89,7 @@ class ResultProcessor {
         int aptSize = sum(getPointers(result, ArrayIndex.class), getSize);
         int reachable = result.getCallGraph().getNumberOfMethods();
         int callEdges = result.getCallGraph().getNumberOfEdges();
+        PointerFlowGraph pfg = result.getPointerFlowGraph();
         logger.info("-------------- Pointer analysis statistics: --------------");
         logger.info(String.format("%-30s%s", "#var pointers:", format(vars)));
         logger.info(String.format("%-30s%s", "#var points-to:", format(vptSize)));
@@ -97,6 +98,9 @@ class ResultProcessor {
         logger.info(String.format("%-30s%s", "#array indexes points-to:", format(aptSize)));
         logger.info(String.format("%-30s%s", "#reachable methods:", format(reachable)));
         logger.info(String.format("%-30s%s", "#call graph edges:", format(callEdges)));
+        logger.info(String.format("%-30s%s", "#PFG edges:", format(pfg.getNumberOfEdges())));
+        logger.info(String.format("%-30s%s", "PFG memory (bytes):",
+                formatter.format(pfg.getMemoryFootprint())));
         logger.info("----------------------------------------");
     }
 
@@ -45,8 +45,10 @@ import pascal.taie.language.classes.ClassHierarchy;
 import pascal.taie.language.classes.JField;
 import pascal.taie.language.classes.JMethod;
 import pascal.taie.language.type.Type;
+import pascal.taie.util.collection.Maps;
 
-import java.awt.*;
+import java.util.List;
+import java.util.Map;
 
 class Solver {
 
@@ -64,6 +66,11 @@ class Solver {
 
     private ClassHierarchy hierarchy;
 
+    /**
+     * Pointer-relevant statements of variables in reachable methods.
+     */
+    private Map<Var, VarStmts> varStmts;
+
     Solver(HeapModel heapModel) {
         this.heapModel = heapModel;
     }
@@ -85,6 +92,7 @@ class Solver {
         callGraph = new DefaultCallGraph();
         stmtProcessor = new StmtProcessor();
         hierarchy = World.get().getClassHierarchy();
+        varStmts = Maps.newMap();
         // initialize main method
         JMethod main = World.get().getMainMethod();
         callGraph.addEntryMethod(main);
@@ -99,6 +107,12 @@ class Solver {
         if (!callGraph.contains(method)) {
             callGraph.addReachableMethod(method);
             method.getIR().getStmts().forEach(stmt -> stmt.accept(stmtProcessor));
+            for (Var var : method.getIR().getVars()) {
+                VarStmts stmts = VarStmts.of(var);
+                if (stmts != null) {
+                    varStmts.put(var, stmts);
+                }
+            }
         }
     }
 
@@ -182,6 +196,27 @@ class Solver {
         }
     }
 
+    /**
+     * Adds edges "source -> t" for each t in targets to the PFG.
+     */
+    private void addPFGEdges(Pointer source, List<? extends Pointer> targets) {
+        PointsToSet pts = source.getPointsToSet();
+        for (Pointer target : targets) {
+            if (pointerFlowGraph.addEdge(source, target) && !pts.isEmpty()) {
+                workList.addEntry(target, pts);
+            }
+        }
+    }
+
+    /**
+     * Adds edges "s -> target" for each s in sources to the PFG.
+     */
+    private void addPFGEdges(List<? extends Pointer> sources, Pointer target) {
+        for (Pointer source : sources) {
+            addPFGEdge(source, target);
+        }
+    }
+
     /**
      * Processes work-list entries until the work-list is empty.
      */
@@ -191,37 +226,57 @@ class Solver {
             WorkList.Entry entry = workList.pollEntry();
             Pointer n = entry.pointer();
             PointsToSet delta = propagate(entry.pointer(), entry.pointsToSet());
-            if (n instanceof VarPtr){
-                Var v = ((VarPtr) n).getVar();
-                for (Obj o : delta){
-                    for (StoreField stmt : v.getStoreFields()){
-                        VarPtr rp = pointerFlowGraph.getVarPtr(stmt.getRValue());
-                        JField f = stmt.getFieldRef().resolve();
-                        InstanceField instanceField = pointerFlowGraph.getInstanceField(o, f);
-                        addPFGEdge(rp, instanceField);
-                    }
-                    for (LoadField stmt : v.getLoadFields()){
-                        VarPtr lp = pointerFlowGraph.getVarPtr(stmt.getLValue());
-                        JField f = stmt.getFieldRef().resolve();
-                        InstanceField instanceField = pointerFlowGraph.getInstanceField(o, f);
-                        addPFGEdge(instanceField, lp);
-                    }
-                    for (StoreArray stmt : v.getStoreArrays()){
-                        VarPtr rp = pointerFlowGraph.getVarPtr(stmt.getRValue());
-                        ArrayIndex ai = pointerFlowGraph.getArrayIndex(o);
-                        addPFGEdge(rp, ai);
-                    }
-                    for (LoadArray stmt : v.getLoadArrays()){
-                        VarPtr lp = pointerFlowGraph.getVarPtr(stmt.getLValue());
-                        ArrayIndex ai = pointerFlowGraph.getArrayIndex(o);
-                        addPFGEdge(ai, lp);
+            if (n instanceof VarPtr varPtr && !delta.isEmpty()) {
+                Var v = varPtr.getVar();
+                VarStmts stmts = varStmts.get(v);
+                if (stmts == null) {
+                    continue;
+                }
+                if (stmts.hasAccesses()) {
+                    processAccesses(stmts, delta);
+                }
+                if (!stmts.getInvokes().isEmpty()) {
+                    for (Obj o : delta) {
+                        processCall(v, stmts.getInvokes(), o);
                     }
-                    processCall(v, o);
                 }
             }
         }
     }
 
+    /**
+     * Processes the field and array accesses of a variable when its
+     * points-to set changes. The new objects are handled in batch,
+     * i.e., the PFG nodes of each accessed field (or array index) are
+     * obtained for all objects at once, and the edges between these
+     * nodes and the other operand of the access are added in bulk.
+     *
+     * @param stmts the pointer-relevant statements of the variable
+     * @param delta the new discovered objects pointed by the variable
+     */
+    private void processAccesses(VarStmts stmts, PointsToSet delta) {
+        Map<JField, List<InstanceField>> fieldPtrs = Maps.newHybridMap();
+        for (VarStmts.Access store : stmts.getStoreFields()) {
+            List<InstanceField> targets = fieldPtrs.computeIfAbsent(store.getField(),
+                    f -> pointerFlowGraph.getInstanceFields(delta, f));
+            addPFGEdges(store.getOtherPtr(pointerFlowGraph), targets);
+        }
+        for (VarStmts.Access load : stmts.getLoadFields()) {
+            List<InstanceField> sources = fieldPtrs.computeIfAbsent(load.getField(),
+                    f -> pointerFlowGraph.getInstanceFields(delta, f));
+            addPFGEdges(sources, load.getOtherPtr(pointerFlowGraph));
+        }
+        if (!stmts.getStoreArrays().isEmpty() || !stmts.getLoadArrays().isEmpty()) {
+            List<ArrayIndex> arrayPtrs = pointerFlowGraph.getArrayIndexes(delta);
+            for (VarStmts.Access store : stmts.getStoreArrays()) {
+                addPFGEdges(store.getOtherPtr(pointerFlowGraph), arrayPtrs);
+            }
+            for (VarStmts.Access load : stmts.getLoadArrays()) {
+                addPFGEdges(arrayPtrs, load.getOtherPtr(pointerFlowGraph));
+            }
+        }
+    }
+
     /**
      * Propagates pointsToSet to pt(pointer) and its PFG successors,
      * returns the difference set of pointsToSet and pt(pointer).
@@ -245,11 +300,12 @@ class Solver {
      * Processes instance calls when points-to set of the receiver variable changes.
      *
      * @param var the variable that holds receiver objects
+     * @param invokes the invocations whose receiver is the variable
      * @param recv a new discovered object pointed by the variable.
      */
-    private void processCall(Var var, Obj recv) {
+    private void processCall(Var var, List<Invoke> invokes, Obj recv) {
         // TODO - finish me
-        for (Invoke stmt : var.getInvokes()){
+        for (Invoke stmt : invokes){
             JMethod m = resolveCallee(recv, stmt);
             VarPtr thisp = pointerFlowGraph.getVarPtr(m.getIR().getThis());
             workList.addEntry(thisp, new PointsToSet(recv));
@@ -0,0 +1,160 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.ci;
+
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JField;
+
+import java.util.List;
+
+/**
+ * Index of the statements of a variable that are relevant to pointer
+ * analysis, i.e., the instance field and array accesses whose base is
+ * the variable, and the invocations whose receiver is the variable.
+ * <p>
+ * The index is built once when the containing method becomes reachable,
+ * so that the solver does not resolve field references every time the
+ * points-to set of the variable changes. The PFG nodes of the other
+ * operands are created on first use, so that the index does not
+ * introduce pointers which the analysis would never reach.
+ */
+class VarStmts {
+
+    /**
+     * Pre-resolved field access "var.field = other" or "other = var.field",
+     * or array access "var[*] = other" or "other = var[*]"
+     * (in which case field is null).
+     */
+    static class Access {
+
+        private final JField field;
+
+        private final Var other;
+
+        private VarPtr otherPtr;
+
+        private Access(JField field, Var other) {
+            this.field = field;
+            this.other = other;
+        }
+
+        JField getField() {
+            return field;
+        }
+
+        VarPtr getOtherPtr(PointerFlowGraph pointerFlowGraph) {
+            if (otherPtr == null) {
+                otherPtr = pointerFlowGraph.getVarPtr(other);
+            }
+            return otherPtr;
+        }
+    }
+
+    private final List<Access> storeFields;
+
+    private final List<Access> loadFields;
+
+    private final List<Access> storeArrays;
+
+    private final List<Access> loadArrays;
+
+    private final List<Invoke> invokes;
+
+    private VarStmts(Var var) {
+        storeFields = var.getStoreFields()
+                .stream()
+                .map(s -> new Access(s.getFieldRef().resolve(), s.getRValue()))
+                .toList();
+        loadFields = var.getLoadFields()
+                .stream()
+                .map(s -> new Access(s.getFieldRef().resolve(), s.getLValue()))
+                .toList();
+        storeArrays = var.getStoreArrays()
+                .stream()
+                .map(s -> new Access(null, s.getRValue()))
+                .toList();
+        loadArrays = var.getLoadArrays()
+                .stream()
+                .map(s -> new Access(null, s.getLValue()))
+                .toList();
+        invokes = var.getInvokes();
+    }
+
+    /**
+     * @return the index of given variable, or null if the variable
+     * has no pointer-relevant statements.
+     */
+    static VarStmts of(Var var) {
+        if (var.getStoreFields().isEmpty() && var.getLoadFields().isEmpty()
+                && var.getStoreArrays().isEmpty() && var.getLoadArrays().isEmpty()
+                && var.getInvokes().isEmpty()) {
+            return null;
+        }
+        return new VarStmts(var);
+    }
+
+    /**
+     * @return accesses of statements like "var.f = other".
+     */
+    List<Access> getStoreFields() {
+        return storeFields;
+    }
+
+    /**
+     * @return accesses of statements like "other = var.f".
+     */
+    List<Access> getLoadFields() {
+        return loadFields;
+    }
+
+    /**
+     * @return accesses of statements like "var[*] = other".
+     */
+    List<Access> getStoreArrays() {
+        return storeArrays;
+    }
+
+    /**
+     * @return accesses of statements like "other = var[*]".
+     */
+    List<Access> getLoadArrays() {
+        return loadArrays;
+    }
+
+    /**
+     * @return invocations whose receiver is the variable.
+     */
+    List<Invoke> getInvokes() {
+        return invokes;
+    }
+
+    /**
+     * @return true if the variable has field or array accesses.
+     */
+    boolean hasAccesses() {
+        return !storeFields.isEmpty() || !loadFields.isEmpty()
+                || !storeArrays.isEmpty() || !loadArrays.isEmpty();
+    }
+}
@@ -0,0 +1,428 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta;
+
+import pascal.taie.World;
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.graph.callgraph.CallKind;
+import pascal.taie.analysis.graph.callgraph.DefaultCallGraph;
+import pascal.taie.analysis.graph.callgraph.Edge;
+import pascal.taie.analysis.pta.core.cs.CSCallGraph;
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.context.ListContext;
+import pascal.taie.analysis.pta.core.cs.element.ArrayIndex;
+import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
+import pascal.taie.analysis.pta.core.cs.element.CSManager;
+import pascal.taie.analysis.pta.core.cs.element.CSMethod;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.CSVar;
+import pascal.taie.analysis.pta.core.cs.element.InstanceField;
+import pascal.taie.analysis.pta.core.cs.element.MapBasedCSManager;
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.core.cs.element.StaticField;
+import pascal.taie.analysis.pta.core.heap.NewObj;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.classes.Subsignature;
+import pascal.taie.language.type.Type;
+import pascal.taie.language.type.TypeSystem;
+import pascal.taie.util.AbstractResultHolder;
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static pascal.taie.analysis.pta.PointerAnalysisSnapshot.CALL_ELEM;
+import static pascal.taie.analysis.pta.PointerAnalysisSnapshot.NEW_OBJ;
+import static pascal.taie.analysis.pta.PointerAnalysisSnapshot.NULL;
+import static pascal.taie.analysis.pta.PointerAnalysisSnapshot.OBJ_ELEM;
+import static pascal.taie.analysis.pta.PointerAnalysisSnapshot.readString;
+
+/**
+ * Pointer analysis result decoded from a memory-mapped snapshot.
+ * <p>
+ * The snapshot is decoded on demand: the tables of elements, the pointers
+ * and the offsets of their points-to sets are decoded on the first query,
+ * the call graph on the first query of it, and each points-to set on
+ * the first query of its pointer. As the snapshot is keyed by the content
+ * of the class path, it is consistent with current program, otherwise
+ * the queries fail with {@link AnalysisException}.
+ *
+ * @see PointerAnalysisSnapshot
+ */
+class MappedPointerAnalysisResult extends AbstractResultHolder
+        implements PointerAnalysisResult {
+
+    private static final CallKind[] KINDS = CallKind.values();
+
+    private final CSManager csManager = new MapBasedCSManager();
+
+    private final ByteBuffer buffer;
+
+    /**
+     * Position of the method table in the buffer.
+     */
+    private final int tablesPosition;
+
+    private JMethod[] methods;
+
+    private Type[] types;
+
+    private JField[] fields;
+
+    private Obj[] objs;
+
+    private Context[] contexts;
+
+    private CSObj[] csObjs;
+
+    /**
+     * Offsets of the points-to sets of the pointers in the pool,
+     * or null if the pointers have not been decoded.
+     */
+    private Map<Pointer, Integer> ptsOffsets;
+
+    private int poolPosition;
+
+    private int callGraphPosition;
+
+    /**
+     * Decoded points-to sets.
+     */
+    private final Map<Pointer, Set<CSObj>> pointsToSets = Maps.newMap();
+
+    private CallGraph<CSCallSite, CSMethod> csCallGraph;
+
+    private CallGraph<Invoke, JMethod> callGraph;
+
+    /**
+     * @param buffer the mapped snapshot, positioned at the method table
+     */
+    MappedPointerAnalysisResult(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.tablesPosition = buffer.position();
+    }
+
+    /**
+     * Decodes the tables of elements and the pointers if they
+     * have not been decoded.
+     */
+    private void decodePointers() {
+        if (ptsOffsets != null) {
+            return;
+        }
+        try {
+            ByteBuffer buf = buffer.duplicate().position(tablesPosition);
+            decodeTables(buf);
+            Map<Pointer, Integer> offsets = Maps.newMap();
+            int nVars = buf.getInt();
+            for (int i = 0; i < nVars; ++i) {
+                Context context = contexts[buf.getInt()];
+                JMethod method = methods[buf.getInt()];
+                Var var = method.getIR().getVar(buf.getInt());
+                offsets.put(csManager.getCSVar(context, var), buf.getInt());
+            }
+            int nStaticFields = buf.getInt();
+            for (int i = 0; i < nStaticFields; ++i) {
+                StaticField sfield = csManager.getStaticField(fields[buf.getInt()]);
+                offsets.put(sfield, buf.getInt());
+            }
+            int nInstanceFields = buf.getInt();
+            for (int i = 0; i < nInstanceFields; ++i) {
+                CSObj base = csObjs[buf.getInt()];
+                InstanceField ifield = csManager.getInstanceField(
+                        base, fields[buf.getInt()]);
+                offsets.put(ifield, buf.getInt());
+            }
+            int nArrayIndexes = buf.getInt();
+            for (int i = 0; i < nArrayIndexes; ++i) {
+                ArrayIndex arrayIndex = csManager.getArrayIndex(csObjs[buf.getInt()]);
+                offsets.put(arrayIndex, buf.getInt());
+            }
+            int poolSize = buf.getInt();
+            poolPosition = buf.position();
+            callGraphPosition = poolPosition + poolSize * Integer.BYTES;
+            ptsOffsets = offsets;
+        } catch (AnalysisException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            // a corrupt snapshot may refer to absent ids or statements,
+            // which surface as various runtime exceptions, e.g.,
+            // BufferUnderflowException and ClassCastException
+            throw new AnalysisException("Failed to decode pointer analysis snapshot", e);
+        }
+    }
+
+    private void decodeTables(ByteBuffer buf) {
+        ClassHierarchy hierarchy = World.get().getClassHierarchy();
+        TypeSystem typeSystem = World.get().getTypeSystem();
+        methods = new JMethod[buf.getInt()];
+        for (int i = 0; i < methods.length; ++i) {
+            JClass jclass = getClass(hierarchy, readString(buf));
+            String subsig = readString(buf);
+            methods[i] = jclass.getDeclaredMethod(Subsignature.get(subsig));
+            if (methods[i] == null) {
+                throw new AnalysisException("Cannot find method " + subsig +
+                        " in " + jclass + ", the snapshot may be stale");
+            }
+        }
+        types = new Type[buf.getInt()];
+        for (int i = 0; i < types.length; ++i) {
+            types[i] = typeSystem.getType(readString(buf));
+        }
+        fields = new JField[buf.getInt()];
+        for (int i = 0; i < fields.length; ++i) {
+            JClass jclass = getClass(hierarchy, readString(buf));
+            String name = readString(buf);
+            fields[i] = jclass.getDeclaredField(name);
+            if (fields[i] == null) {
+                throw new AnalysisException("Cannot find field " + name +
+                        " in " + jclass + ", the snapshot may be stale");
+            }
+        }
+        objs = new Obj[buf.getInt()];
+        for (int i = 0; i < objs.length; ++i) {
+            if (buf.get() == NEW_OBJ) {
+                JMethod container = methods[buf.getInt()];
+                objs[i] = new NewObj((New) container.getIR()
+                        .getStmt(buf.getInt()));
+            } else {
+                String desc = readString(buf);
+                Type type = types[buf.getInt()];
+                int container = buf.getInt();
+                int containerType = buf.getInt();
+                objs[i] = new SnapshotObj(desc, type,
+                        container != NULL ? methods[container] : null,
+                        containerType != NULL ? types[containerType] : null);
+            }
+        }
+        contexts = new Context[buf.getInt()];
+        for (int i = 0; i < contexts.length; ++i) {
+            Object[] elems = new Object[buf.getInt()];
+            for (int j = 0; j < elems.length; ++j) {
+                byte kind = buf.get();
+                if (kind == OBJ_ELEM) {
+                    elems[j] = objs[buf.getInt()];
+                } else if (kind == CALL_ELEM) {
+                    JMethod container = methods[buf.getInt()];
+                    elems[j] = container.getIR().getStmt(buf.getInt());
+                } else {
+                    elems[j] = types[buf.getInt()];
+                }
+            }
+            contexts[i] = ListContext.make(elems);
+        }
+        csObjs = new CSObj[buf.getInt()];
+        for (int i = 0; i < csObjs.length; ++i) {
+            Context context = contexts[buf.getInt()];
+            csObjs[i] = csManager.getCSObj(context, objs[buf.getInt()]);
+        }
+    }
+
+    private static JClass getClass(ClassHierarchy hierarchy, String name) {
+        JClass jclass = hierarchy.getClass(name);
+        if (jclass == null) {
+            throw new AnalysisException("Cannot find class " + name +
+                    ", the snapshot may be stale");
+        }
+        return jclass;
+    }
+
+    /**
+     * Decodes the points-to set at given offset of the pool.
+     */
+    private Set<CSObj> decodePointsToSet(int offset) {
+        int pos = poolPosition + offset * Integer.BYTES;
+        int size = buffer.getInt(pos);
+        Set<CSObj> pts = Sets.newHybridSet();
+        for (int i = 1; i <= size; ++i) {
+            pts.add(csObjs[buffer.getInt(pos + i * Integer.BYTES)]);
+        }
+        return Collections.unmodifiableSet(pts);
+    }
+
+    private Set<CSObj> getPointsToSetOf(Pointer pointer) {
+        Set<CSObj> pts = pointsToSets.get(pointer);
+        if (pts == null) {
+            decodePointers();
+            Integer offset = ptsOffsets.get(pointer);
+            if (offset == null) {
+                return Set.of();
+            }
+            pts = decodePointsToSet(offset);
+            pointsToSets.put(pointer, pts);
+        }
+        return pts;
+    }
+
+    @Override
+    public Collection<CSVar> getCSVars() {
+        decodePointers();
+        return csManager.getCSVars();
+    }
+
+    @Override
+    public Collection<Var> getVars() {
+        decodePointers();
+        return csManager.getVars();
+    }
+
+    @Override
+    public Collection<InstanceField> getInstanceFields() {
+        decodePointers();
+        return csManager.getInstanceFields();
+    }
+
+    @Override
+    public Collection<ArrayIndex> getArrayIndexes() {
+        decodePointers();
+        return csManager.getArrayIndexes();
+    }
+
+    @Override
+    public Collection<StaticField> getStaticFields() {
+        decodePointers();
+        return csManager.getStaticFields();
+    }
+
+    @Override
+    public Collection<CSObj> getCSObjects() {
+        decodePointers();
+        return csManager.getObjects();
+    }
+
+    @Override
+    public Collection<Obj> getObjects() {
+        decodePointers();
+        return List.of(objs);
+    }
+
+    @Override
+    public Set<CSObj> getPointsToSet(CSVar var) {
+        return getPointsToSetOf(var);
+    }
+
+    @Override
+    public Set<Obj> getPointsToSet(Var var) {
+        decodePointers();
+        Set<Obj> pts = Sets.newHybridSet();
+        csManager.getCSVarsOf(var).forEach(csVar ->
+                getPointsToSetOf(csVar).forEach(o -> pts.add(o.getObject())));
+        return pts;
+    }
+
+    @Override
+    public Set<Obj> getPointsToSet(Var base, JField field) {
+        decodePointers();
+        Set<Obj> pts = Sets.newHybridSet();
+        csManager.getCSVarsOf(base).forEach(csVar ->
+                getPointsToSetOf(csVar).forEach(o ->
+                        getPointsToSetOf(csManager.getInstanceField(o, field))
+                                .forEach(f -> pts.add(f.getObject()))));
+        return pts;
+    }
+
+    @Override
+    public Set<Obj> getPointsToSet(JField field) {
+        decodePointers();
+        Set<Obj> pts = Sets.newHybridSet();
+        getPointsToSetOf(csManager.getStaticField(field))
+                .forEach(o -> pts.add(o.getObject()));
+        return pts;
+    }
+
+    @Override
+    public CallGraph<CSCallSite, CSMethod> getCSCallGraph() {
+        if (csCallGraph == null) {
+            decodePointers();
+            try {
+                csCallGraph = decodeCallGraph(
+                        buffer.duplicate().position(callGraphPosition));
+            } catch (AnalysisException e) {
+                throw e;
+            } catch (RuntimeException e) {
+                throw new AnalysisException(
+                        "Failed to decode call graph of pointer analysis snapshot", e);
+            }
+        }
+        return csCallGraph;
+    }
+
+    private CallGraph<CSCallSite, CSMethod> decodeCallGraph(ByteBuffer buf) {
+        CSCallGraph csCallGraph = new CSCallGraph(csManager);
+        CSMethod[] csMethods = new CSMethod[buf.getInt()];
+        for (int i = 0; i < csMethods.length; ++i) {
+            Context context = contexts[buf.getInt()];
+            csMethods[i] = csManager.getCSMethod(context, methods[buf.getInt()]);
+        }
+        int nEntries = buf.getInt();
+        for (int i = 0; i < nEntries; ++i) {
+            csCallGraph.addEntryMethod(csMethods[buf.getInt()]);
+        }
+        for (CSMethod csMethod : csMethods) {
+            csCallGraph.addReachableMethod(csMethod);
+        }
+        int nEdges = buf.getInt();
+        for (int i = 0; i < nEdges; ++i) {
+            CSMethod caller = csMethods[buf.getInt()];
+            Invoke callSite = (Invoke) caller.getMethod().getIR()
+                    .getStmt(buf.getInt());
+            CallKind kind = KINDS[buf.get()];
+            CSMethod callee = csMethods[buf.getInt()];
+            csCallGraph.addEdge(new Edge<>(kind,
+                    csManager.getCSCallSite(caller.getContext(), callSite), callee));
+        }
+        return csCallGraph;
+    }
+
+    @Override
+    public CallGraph<Invoke, JMethod> getCallGraph() {
+        if (callGraph == null) {
+            DefaultCallGraph callGraph = new DefaultCallGraph();
+            CallGraph<CSCallSite, CSMethod> csCallGraph = getCSCallGraph();
+            csCallGraph.entryMethods()
+                    .map(CSMethod::getMethod)
+                    .forEach(callGraph::addEntryMethod);
+            csCallGraph.reachableMethods()
+                    .map(CSMethod::getMethod)
+                    .forEach(callGraph::addReachableMethod);
+            csCallGraph.edges().forEach(edge -> callGraph.addEdge(
+                    new Edge<>(edge.getKind(), edge.getCallSite().getCallSite(),
+                            edge.getCallee().getMethod())));
+            this.callGraph = callGraph;
+        }
+        return callGraph;
+    }
+}
@@ -0,0 +1,549 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.World;
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.graph.callgraph.Edge;
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.element.ArrayIndex;
+import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
+import pascal.taie.analysis.pta.core.cs.element.CSMethod;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.CSVar;
+import pascal.taie.analysis.pta.core.cs.element.InstanceField;
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.core.cs.element.StaticField;
+import pascal.taie.analysis.pta.core.heap.NewObj;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.pts.PointsToSet;
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.config.Options;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.Type;
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.collection.Maps;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Binary snapshot of pointer analysis results.
+ * <p>
+ * A snapshot consists of a header (magic, version and key) followed
+ * by these sections:
+ * <pre>
+ * methods:          (class name, subsignature)*
+ * types:            (type name)*
+ * fields:           (class name, field name)*
+ * objects:          (NEW, method, stmt index) | (OTHER, desc, type, method, container type)
+ * contexts:         (length, (OBJ obj | CALL method stmt | TYPE type)*)*
+ * cs objects:       (context, object)*
+ * cs variables:     (context, method, var index, pts)*
+ * static fields:    (field, pts)*
+ * instance fields:  (cs object, field, pts)*
+ * array indexes:    (cs object, pts)*
+ * points-to sets:   (size, (cs object)*)*
+ * cs call graph:    cs methods, entry methods, edges
+ * </pre>
+ * Every section starts with its number of entries. Elements are referred
+ * by their positions in the corresponding tables, and pts denotes the
+ * offset of a points-to set in the points-to set pool. Variables and
+ * statements are referred by their indexes in IR of the container methods.
+ * <p>
+ * The key is the hash of the inputs that determine the result, i.e.,
+ * the content of the class path, the options of the world, and the
+ * options of pointer analysis except the ones that do not affect
+ * the result (e.g., snapshot), so that a snapshot is reused only if
+ * none of them changes. Snapshots are loaded via memory mapping and
+ * decoded on demand, see {@link MappedPointerAnalysisResult}.
+ */
+public final class PointerAnalysisSnapshot {
+
+    private static final Logger logger = LogManager.getLogger(PointerAnalysisSnapshot.class);
+
+    static final int MAGIC = 0x54505441; // "TPTA"
+
+    static final int VERSION = 2;
+
+    static final int NULL = -1;
+
+    /**
+     * Options of pointer analysis that do not affect its result.
+     */
+    private static final Set<String> IRRELEVANT_KEYS = Set.of(
+            "snapshot", "action", "file");
+
+    // kinds of objects
+    static final byte NEW_OBJ = 0;
+
+    static final byte OTHER_OBJ = 1;
+
+    // kinds of context elements
+    static final byte OBJ_ELEM = 0;
+
+    static final byte CALL_ELEM = 1;
+
+    static final byte TYPE_ELEM = 2;
+
+    private PointerAnalysisSnapshot() {
+    }
+
+    /**
+     * Writes pointer analysis result to given snapshot file.
+     *
+     * @param result  the result to be written
+     * @param options options of the pointer analysis that computes the result
+     * @param file    the snapshot file
+     */
+    public static void write(PointerAnalysisResult result,
+                             AnalysisOptions options, Path file) {
+        logger.info("Writing pointer analysis snapshot to {} ...", file);
+        try {
+            Path dir = file.toAbsolutePath().getParent();
+            Files.createDirectories(dir);
+            Path tmp = Files.createTempFile(dir, "pta-", ".tmp");
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                DataOutputStream data = new DataOutputStream(
+                        new BufferedOutputStream(out));
+                new Writer(result).write(computeKey(options), data);
+                data.flush();
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new AnalysisException("Failed to write pointer analysis snapshot", e);
+        }
+    }
+
+    /**
+     * Loads pointer analysis result from given snapshot file.
+     *
+     * @param options options of the pointer analysis
+     * @param file    the snapshot file
+     * @return the loaded result, or null if the file does not exist,
+     * or is not a valid snapshot of current program with given options.
+     */
+    public static PointerAnalysisResult load(AnalysisOptions options, Path file) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        logger.info("Loading pointer analysis snapshot from {} ...", file);
+        try (FileChannel channel = FileChannel.open(file)) {
+            MappedByteBuffer buffer = channel.map(
+                    FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                logger.warn("{} is not a compatible snapshot", file);
+                return null;
+            }
+            if (!readString(buffer).equals(computeKey(options))) {
+                logger.warn("Snapshot {} is for other program or options, ignored",
+                        file);
+                return null;
+            }
+            return new MappedPointerAnalysisResult(buffer);
+        } catch (IOException | RuntimeException e) {
+            // besides I/O errors, a truncated snapshot fails
+            // when reading its header
+            logger.warn("Failed to load pointer analysis snapshot {}: {}",
+                    file, e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * @return true if given result is loaded from a snapshot, otherwise false.
+     */
+    public static boolean isLoaded(PointerAnalysisResult result) {
+        return result instanceof MappedPointerAnalysisResult;
+    }
+
+    /**
+     * @return hash of the inputs that determine the result of
+     * pointer analysis with given options.
+     */
+    private static String computeKey(AnalysisOptions options) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+        Options worldOptions = World.get().getOptions();
+        update(digest, "version:" + VERSION);
+        update(digest, "main:" + worldOptions.getMainClass());
+        update(digest, "java:" + worldOptions.getJavaVersion());
+        update(digest, "prepend-jvm:" + worldOptions.isPrependJVM());
+        update(digest, "scope:" + worldOptions.getScope());
+        update(digest, "native-model:" + worldOptions.enableNativeModel());
+        update(digest, "world-builder:" + worldOptions.getWorldBuilderClass().getName());
+        update(digest, "pta:" + getOptionsKey(options));
+        String classPath = worldOptions.getClassPath();
+        if (classPath != null) {
+            for (String entry : classPath.split(File.pathSeparator)) {
+                hashClassPathEntry(digest, Path.of(entry));
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * @return the options that affect the result of pointer analysis,
+     * which are sorted by their names.
+     */
+    private static String getOptionsKey(AnalysisOptions options) {
+        Map<String, Object> copy = new ObjectMapper()
+                .convertValue(options, new TypeReference<>() {});
+        copy.keySet().removeIf(IRRELEVANT_KEYS::contains);
+        return new TreeMap<>(copy).toString();
+    }
+
+    private static void hashClassPathEntry(MessageDigest digest, Path entry) {
+        update(digest, "cp:" + entry);
+        if (!Files.exists(entry)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(entry)) {
+            for (Path path : paths.filter(Files::isRegularFile).sorted().toList()) {
+                update(digest, entry.relativize(path).toString());
+                digest.update(Files.readAllBytes(path));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void update(MessageDigest digest, String s) {
+        digest.update(s.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(DataOutputStream out, String s)
+            throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Assigns consecutive ids to elements.
+     */
+    private static class Indexer<T> {
+
+        private final Map<T, Integer> ids = Maps.newMap();
+
+        private final List<T> elements = new ArrayList<>();
+
+        /**
+         * @return id of given element, or -1 if it has not been indexed.
+         */
+        int getId(T e) {
+            return ids.getOrDefault(e, NULL);
+        }
+
+        /**
+         * @return true if given element is new to this indexer.
+         */
+        boolean add(T e) {
+            if (ids.containsKey(e)) {
+                return false;
+            }
+            ids.put(e, elements.size());
+            elements.add(e);
+            return true;
+        }
+
+        List<T> elements() {
+            return elements;
+        }
+    }
+
+    /**
+     * Collects the tables of all elements reachable from the result,
+     * then writes the sections in order.
+     */
+    private static class Writer {
+
+        private final PointerAnalysisResult result;
+
+        private final Indexer<JMethod> methods = new Indexer<>();
+
+        private final Indexer<Type> types = new Indexer<>();
+
+        private final Indexer<JField> fields = new Indexer<>();
+
+        private final Indexer<Obj> objs = new Indexer<>();
+
+        private final Indexer<Context> contexts = new Indexer<>();
+
+        private final Indexer<CSObj> csObjs = new Indexer<>();
+
+        private final Indexer<CSMethod> csMethods = new Indexer<>();
+
+        private final ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+
+        private final DataOutputStream pool = new DataOutputStream(poolBytes);
+
+        private int poolSize = 0;
+
+        private Writer(PointerAnalysisResult result) {
+            this.result = result;
+        }
+
+        private void write(String key, DataOutputStream out) throws IOException {
+            // encode pointers and call graph first, which
+            // index all elements that must appear in the tables
+            ByteArrayOutputStream pointers = new ByteArrayOutputStream();
+            encodePointers(new DataOutputStream(pointers));
+            ByteArrayOutputStream callGraph = new ByteArrayOutputStream();
+            encodeCallGraph(new DataOutputStream(callGraph));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            writeString(out, key);
+            writeTables(out);
+            pointers.writeTo(out);
+            out.writeInt(poolSize);
+            poolBytes.writeTo(out);
+            callGraph.writeTo(out);
+        }
+
+        private void encodePointers(DataOutputStream out) throws IOException {
+            out.writeInt(result.getCSVars().size());
+            for (CSVar csVar : result.getCSVars()) {
+                out.writeInt(indexContext(csVar.getContext()));
+                out.writeInt(indexMethod(csVar.getVar().getMethod()));
+                out.writeInt(csVar.getVar().getIndex());
+                out.writeInt(encodePointsToSet(csVar));
+            }
+            out.writeInt(result.getStaticFields().size());
+            for (StaticField sfield : result.getStaticFields()) {
+                out.writeInt(indexField(sfield.getField()));
+                out.writeInt(encodePointsToSet(sfield));
+            }
+            out.writeInt(result.getInstanceFields().size());
+            for (InstanceField ifield : result.getInstanceFields()) {
+                out.writeInt(indexCSObj(ifield.getBase()));
+                out.writeInt(indexField(ifield.getField()));
+                out.writeInt(encodePointsToSet(ifield));
+            }
+            out.writeInt(result.getArrayIndexes().size());
+            for (ArrayIndex arrayIndex : result.getArrayIndexes()) {
+                out.writeInt(indexCSObj(arrayIndex.getArray()));
+                out.writeInt(encodePointsToSet(arrayIndex));
+            }
+        }
+
+        /**
+         * @return offset of the points-to set of given pointer in the pool.
+         */
+        private int encodePointsToSet(Pointer pointer) throws IOException {
+            int offset = poolSize;
+            PointsToSet pts = pointer.getPointsToSet();
+            if (pts == null) {
+                pool.writeInt(0);
+                ++poolSize;
+            } else {
+                pool.writeInt(pts.size());
+                for (CSObj csObj : pts) {
+                    pool.writeInt(indexCSObj(csObj));
+                }
+                poolSize += 1 + pts.size();
+            }
+            return offset;
+        }
+
+        private void encodeCallGraph(DataOutputStream out) throws IOException {
+            CallGraph<CSCallSite, CSMethod> csCallGraph = result.getCSCallGraph();
+            csCallGraph.reachableMethods().forEach(this::indexCSMethod);
+            out.writeInt(csMethods.elements().size());
+            for (CSMethod csMethod : csMethods.elements()) {
+                out.writeInt(indexContext(csMethod.getContext()));
+                out.writeInt(indexMethod(csMethod.getMethod()));
+            }
+            List<CSMethod> entries = csCallGraph.entryMethods().toList();
+            out.writeInt(entries.size());
+            for (CSMethod entry : entries) {
+                out.writeInt(csMethods.getId(entry));
+            }
+            out.writeInt(csCallGraph.getNumberOfEdges());
+            for (Edge<CSCallSite, CSMethod> edge :
+                    (Iterable<Edge<CSCallSite, CSMethod>>) csCallGraph.edges()::iterator) {
+                CSCallSite csCallSite = edge.getCallSite();
+                out.writeInt(csMethods.getId(csCallSite.getContainer()));
+                out.writeInt(csCallSite.getCallSite().getIndex());
+                out.writeByte(edge.getKind().ordinal());
+                out.writeInt(csMethods.getId(edge.getCallee()));
+            }
+        }
+
+        private void indexCSMethod(CSMethod csMethod) {
+            if (csMethods.add(csMethod)) {
+                indexContext(csMethod.getContext());
+                indexMethod(csMethod.getMethod());
+            }
+        }
+
+        private int indexMethod(JMethod method) {
+            methods.add(method);
+            return methods.getId(method);
+        }
+
+        private int indexType(Type type) {
+            types.add(type);
+            return types.getId(type);
+        }
+
+        private int indexField(JField field) {
+            fields.add(field);
+            return fields.getId(field);
+        }
+
+        private int indexObj(Obj obj) {
+            if (objs.add(obj)) {
+                obj.getContainerMethod().ifPresent(this::indexMethod);
+                indexType(obj.getType());
+                if (obj.getContainerType() != null) {
+                    indexType(obj.getContainerType());
+                }
+            }
+            return objs.getId(obj);
+        }
+
+        private int indexContext(Context context) {
+            if (contexts.add(context)) {
+                for (int i = 0; i < context.getLength(); ++i) {
+                    Object elem = context.getElementAt(i);
+                    if (elem instanceof Obj obj) {
+                        indexObj(obj);
+                    } else if (elem instanceof Invoke invoke) {
+                        indexMethod(invoke.getContainer());
+                    } else if (elem instanceof Type type) {
+                        indexType(type);
+                    } else {
+                        throw new AnalysisException(
+                                "Cannot write context element: " + elem);
+                    }
+                }
+            }
+            return contexts.getId(context);
+        }
+
+        private int indexCSObj(CSObj csObj) {
+            if (csObjs.add(csObj)) {
+                indexContext(csObj.getContext());
+                indexObj(csObj.getObject());
+            }
+            return csObjs.getId(csObj);
+        }
+
+        private void writeTables(DataOutputStream out) throws IOException {
+            out.writeInt(methods.elements().size());
+            for (JMethod method : methods.elements()) {
+                writeString(out, method.getDeclaringClass().getName());
+                writeString(out, method.getSubsignature().toString());
+            }
+            out.writeInt(types.elements().size());
+            for (Type type : types.elements()) {
+                writeString(out, type.getName());
+            }
+            out.writeInt(fields.elements().size());
+            for (JField field : fields.elements()) {
+                writeString(out, field.getDeclaringClass().getName());
+                writeString(out, field.getName());
+            }
+            out.writeInt(objs.elements().size());
+            for (Obj obj : objs.elements()) {
+                if (obj instanceof NewObj newObj) {
+                    out.writeByte(NEW_OBJ);
+                    out.writeInt(methods.getId(newObj.getContainerMethod().get()));
+                    out.writeInt(newObj.getAllocation().getIndex());
+                } else {
+                    out.writeByte(OTHER_OBJ);
+                    writeString(out, obj.toString());
+                    out.writeInt(types.getId(obj.getType()));
+                    out.writeInt(obj.getContainerMethod()
+                            .map(methods::getId)
+                            .orElse(NULL));
+                    out.writeInt(obj.getContainerType() != null ?
+                            types.getId(obj.getContainerType()) : NULL);
+                }
+            }
+            out.writeInt(contexts.elements().size());
+            for (Context context : contexts.elements()) {
+                out.writeInt(context.getLength());
+                for (int i = 0; i < context.getLength(); ++i) {
+                    Object elem = context.getElementAt(i);
+                    if (elem instanceof Obj obj) {
+                        out.writeByte(OBJ_ELEM);
+                        out.writeInt(objs.getId(obj));
+                    } else if (elem instanceof Invoke invoke) {
+                        out.writeByte(CALL_ELEM);
+                        out.writeInt(methods.getId(invoke.getContainer()));
+                        out.writeInt(invoke.getIndex());
+                    } else {
+                        out.writeByte(TYPE_ELEM);
+                        out.writeInt(types.getId((Type) elem));
+                    }
+                }
+            }
+            out.writeInt(csObjs.elements().size());
+            for (CSObj csObj : csObjs.elements()) {
+                out.writeInt(contexts.getId(csObj.getContext()));
+                out.writeInt(objs.getId(csObj.getObject()));
+            }
+        }
+    }
+}
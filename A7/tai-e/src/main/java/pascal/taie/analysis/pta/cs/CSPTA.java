@@ -24,6 +24,7 @@ package pascal.taie.analysis.pta.cs;
 
 import pascal.taie.analysis.ProgramAnalysis;
 import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.PointerAnalysisSnapshot;
 import pascal.taie.analysis.pta.core.cs.selector.CISelector;
 import pascal.taie.analysis.pta.core.cs.selector.ContextSelector;
 import pascal.taie.analysis.pta.core.heap.AllocationSiteBasedModel;
@@ -35,6 +36,7 @@ import pascal.taie.util.Strings;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Path;
 
 /**
  * Context-sensitive pointer analysis.
@@ -50,11 +52,24 @@ public class CSPTA extends ProgramAnalysis {
     @Override
     public PointerAnalysisResult analyze() {
         AnalysisOptions options = getOptions();
+        String snapshot = options.getString("snapshot");
+        if (snapshot != null) {
+            // reuse the results of previous run if the snapshot matches
+            PointerAnalysisResult result = PointerAnalysisSnapshot.load(
+                    options, Path.of(snapshot));
+            if (result != null) {
+                ResultProcessor.process(options, result);
+                return result;
+            }
+        }
         Solver solver = new Solver(options,
                 new AllocationSiteBasedModel(options),
                 getContextSelector(options.getString("cs")));
         solver.solve();
         PointerAnalysisResult result = solver.getResult();
+        if (snapshot != null) {
+            PointerAnalysisSnapshot.write(result, options, Path.of(snapshot));
+        }
         ResultProcessor.process(options, result);
         return result;
     }
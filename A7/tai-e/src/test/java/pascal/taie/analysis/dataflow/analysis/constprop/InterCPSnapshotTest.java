@@ -0,0 +1,77 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.World;
+import pascal.taie.analysis.Tests;
+import pascal.taie.analysis.dataflow.inter.InterConstantPropagation;
+import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.PointerAnalysisSnapshot;
+import pascal.taie.analysis.pta.cs.CSPTA;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Runs alias-aware constant propagation twice for each test case:
+ * the first run writes the snapshot of pointer analysis, and the second
+ * one loads it, so both must match the expected results.
+ * Each test case uses a fresh directory, so that the snapshot
+ * is always written by the first run.
+ */
+public class InterCPSnapshotTest {
+
+    private static final String CLASS_PATH = "src/test/resources/dataflow/constprop/alias";
+
+    void test(String inputClass) {
+        Path snapshot;
+        try {
+            snapshot = Files.createTempDirectory("pta-snapshot")
+                    .resolve(inputClass + "-pta.bin");
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        for (int i = 0; i < 2; ++i) {
+            Tests.test(inputClass, CLASS_PATH, InterConstantPropagation.ID,
+                    "edge-refine:false;alias-aware:true;pta:cspta",
+                    "-a", "cspta=cs:2-obj;snapshot:" + snapshot,
+                    "-a", "cg=algorithm:cspta");
+            Assert.assertTrue(Files.isRegularFile(snapshot));
+            PointerAnalysisResult result = World.get().getResult(CSPTA.ID);
+            Assert.assertEquals(i == 1, PointerAnalysisSnapshot.isLoaded(result));
+        }
+    }
+
+    @Test
+    public void testInstanceField() {
+        test("InstanceField");
+    }
+
+    @Test
+    public void testObjSens() {
+        test("ObjSens");
+    }
+}
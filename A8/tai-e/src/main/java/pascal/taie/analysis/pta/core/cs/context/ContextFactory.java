@@ -0,0 +1,59 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.core.cs.context;
+
+import java.util.List;
+
+/**
+ * Factory of contexts. Context selectors create contexts via factories,
+ * so that the representation of contexts can be changed without
+ * touching the selectors.
+ *
+ * @param <T> type of context elements
+ */
+public interface ContextFactory<T> {
+
+    /**
+     * @return the empty context.
+     */
+    Context getEmptyContext();
+
+    /**
+     * @return a context that consists of given context elements.
+     */
+    Context make(List<T> elements);
+
+    /**
+     * Constructs a context by the last k elements of given context.
+     * If the length of given context is less than or equal to k,
+     * then the context itself is returned.
+     */
+    Context makeLastK(Context context, int k);
+
+    /**
+     * Constructs a context by appending a context element to a parent
+     * context. If the length of the resulting context exceeds the limit,
+     * then its first element(s) will be truncated.
+     */
+    Context append(Context parent, T elem, int limit);
+}
@@ -0,0 +1,171 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.core.cs.context;
+
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.Indexable;
+import pascal.taie.util.collection.Maps;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hash-consed contexts organized as a trie. Each context keeps its parent
+ * context and its last element, and the children of a context are cached,
+ * so that every context is created only once by a {@link Factory}.
+ * As a result, appending an element to a context takes a single map probe,
+ * and equality of contexts is reference equality. Besides, the contexts
+ * from the same factory are indexed densely in creation order.
+ * <p>
+ * Contexts from different factories must not be mixed.
+ */
+public class TrieContext implements Context, Indexable {
+
+    private final TrieContext parent;
+
+    private final Object elem;
+
+    private final int length;
+
+    private final int index;
+
+    /**
+     * Children of this context, created on demand.
+     */
+    private Map<Object, TrieContext> children;
+
+    private TrieContext() {
+        this(null, null, 0, 0);
+    }
+
+    private TrieContext(TrieContext parent, Object elem, int length, int index) {
+        this.parent = parent;
+        this.elem = elem;
+        this.length = length;
+        this.index = index;
+    }
+
+    private TrieContext getChild(Object elem, Factory<?> factory) {
+        if (children == null) {
+            children = Maps.newHybridMap();
+        }
+        return children.computeIfAbsent(elem,
+                e -> new TrieContext(this, e, length + 1, factory.counter++));
+    }
+
+    @Override
+    public int getIndex() {
+        return index;
+    }
+
+    @Override
+    public int getLength() {
+        return length;
+    }
+
+    @Override
+    public Object getElementAt(int i) {
+        if (i >= length) {
+            throw new AnalysisException(
+                    "Context " + this + " doesn't have " + i + "-th element");
+        }
+        TrieContext c = this;
+        for (int j = length - 1; j > i; --j) {
+            c = c.parent;
+        }
+        return c.elem;
+    }
+
+    /**
+     * @return the last element of this context.
+     */
+    public Object getLastElement() {
+        return elem;
+    }
+
+    @Override
+    public String toString() {
+        List<Object> elems = new ArrayList<>(length);
+        for (TrieContext c = this; c.parent != null; c = c.parent) {
+            elems.add(0, c.elem);
+        }
+        return elems.toString();
+    }
+
+    public static class Factory<T> implements ContextFactory<T> {
+
+        private final TrieContext root = new TrieContext();
+
+        /**
+         * Index of the next created context.
+         */
+        private int counter = 1;
+
+        @Override
+        public Context getEmptyContext() {
+            return root;
+        }
+
+        @Override
+        public Context make(List<T> elements) {
+            TrieContext c = root;
+            for (T e : elements) {
+                c = c.getChild(e, this);
+            }
+            return c;
+        }
+
+        @Override
+        public Context makeLastK(Context context, int k) {
+            if (k == 0) {
+                return root;
+            }
+            if (context.getLength() <= k) {
+                return context;
+            }
+            // walk up to collect the last k elements, then re-insert them
+            Object[] elems = new Object[k];
+            TrieContext c = (TrieContext) context;
+            for (int i = k - 1; i >= 0; --i) {
+                elems[i] = c.elem;
+                c = c.parent;
+            }
+            c = root;
+            for (Object e : elems) {
+                c = c.getChild(e, this);
+            }
+            return c;
+        }
+
+        @Override
+        public Context append(Context parent, T elem, int limit) {
+            if (limit == 0) {
+                return root;
+            }
+            TrieContext p = (TrieContext) (parent.getLength() < limit ?
+                    parent : makeLastK(parent, limit - 1));
+            return p.getChild(elem, this);
+        }
+    }
+}
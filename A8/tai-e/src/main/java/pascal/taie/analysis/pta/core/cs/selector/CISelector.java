@@ -23,6 +23,7 @@
 package pascal.taie.analysis.pta.core.cs.selector;
 
 import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.context.ContextFactory;
 import pascal.taie.analysis.pta.core.cs.context.ListContext;
 import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
 import pascal.taie.analysis.pta.core.cs.element.CSMethod;
@@ -35,9 +36,22 @@ import pascal.taie.language.classes.JMethod;
  */
 public class CISelector implements ContextSelector {
 
+    private final Context emptyContext;
+
+    public CISelector() {
+        emptyContext = ListContext.make();
+    }
+
+    /**
+     * @param factory the factory that provides the empty context.
+     */
+    public CISelector(ContextFactory<?> factory) {
+        emptyContext = factory.getEmptyContext();
+    }
+
     @Override
     public Context getEmptyContext() {
-        return ListContext.make();
+        return emptyContext;
     }
 
     @Override
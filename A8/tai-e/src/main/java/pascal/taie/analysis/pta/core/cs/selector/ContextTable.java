@@ -0,0 +1,104 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.core.cs.selector;
+
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.util.Indexable;
+import pascal.taie.util.collection.Maps;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Memo table of context selection, which maps (context, element), or
+ * a context alone, to the selected context. Rows of the table are indexed
+ * by the dense indexes of {@link Indexable} contexts, e.g.,
+ * {@link pascal.taie.analysis.pta.core.cs.context.TrieContext},
+ * so a hit costs an array access plus a probe on a small map, or just
+ * an array access if the selected context is determined by the context.
+ * <p>
+ * The table is only valid for selectors whose results are determined
+ * by the key, e.g., the method contexts selected by k-object sensitivity
+ * are determined by the heap context and the allocation site of the
+ * receiver object, regardless of the call site and callee.
+ */
+class ContextTable {
+
+    private final List<Map<Object, Context>> rows = new ArrayList<>();
+
+    /**
+     * Contexts associated with the contexts alone.
+     */
+    private final List<Context> results = new ArrayList<>();
+
+    /**
+     * @return the context associated with (context, elem) in this table.
+     * If absent, computes the context by given supplier, and stores it
+     * to this table if it is not null.
+     */
+    Context get(Context context, Object elem, Supplier<Context> supplier) {
+        if (!(context instanceof Indexable indexable)) {
+            return supplier.get();
+        }
+        int i = indexable.getIndex();
+        while (rows.size() <= i) {
+            rows.add(null);
+        }
+        Map<Object, Context> row = rows.get(i);
+        if (row == null) {
+            row = Maps.newHybridMap();
+            rows.set(i, row);
+        }
+        Context result = row.get(elem);
+        if (result == null) {
+            result = supplier.get();
+            if (result != null) {
+                row.put(elem, result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the context associated with given context in this table.
+     * If absent, computes the context by given supplier, and stores it
+     * to this table if it is not null.
+     */
+    Context get(Context context, Supplier<Context> supplier) {
+        if (!(context instanceof Indexable indexable)) {
+            return supplier.get();
+        }
+        int i = indexable.getIndex();
+        while (results.size() <= i) {
+            results.add(null);
+        }
+        Context result = results.get(i);
+        if (result == null) {
+            result = supplier.get();
+            results.set(i, result);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.core.cs.selector;
+
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
+import pascal.taie.analysis.pta.core.cs.element.CSMethod;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.language.classes.JMethod;
+
+/**
+ * Context selector that can be degraded to context insensitivity during
+ * the analysis, e.g., when the analysis runs out of its budget.
+ * After degradation, the contexts of the methods and objects that have
+ * been selected are kept, while new selections return the empty context.
+ */
+public class DegradableSelector implements ContextSelector {
+
+    private final ContextSelector delegate;
+
+    /**
+     * The flags are volatile as the selector may be degraded by
+     * a thread other than the solver, e.g., a budget monitor.
+     */
+    private volatile boolean methodsDegraded = false;
+
+    private volatile boolean heapDegraded = false;
+
+    public DegradableSelector(ContextSelector delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Selects empty contexts for the callees from now on.
+     */
+    public void degradeMethodContexts() {
+        methodsDegraded = true;
+    }
+
+    /**
+     * Selects empty heap contexts for the new objects from now on,
+     * so that the objects allocated at the same site are merged.
+     */
+    public void degradeHeapContexts() {
+        heapDegraded = true;
+    }
+
+    @Override
+    public Context getEmptyContext() {
+        return delegate.getEmptyContext();
+    }
+
+    @Override
+    public Context selectContext(CSCallSite callSite, JMethod callee) {
+        return methodsDegraded ? getEmptyContext() :
+                delegate.selectContext(callSite, callee);
+    }
+
+    @Override
+    public Context selectContext(CSCallSite callSite, CSObj recv, JMethod callee) {
+        return methodsDegraded ? getEmptyContext() :
+                delegate.selectContext(callSite, recv, callee);
+    }
+
+    @Override
+    public Context selectHeapContext(CSMethod method, Obj obj) {
+        return heapDegraded ? getEmptyContext() :
+                delegate.selectHeapContext(method, obj);
+    }
+}
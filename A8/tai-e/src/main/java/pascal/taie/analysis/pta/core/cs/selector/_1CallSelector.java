@@ -23,38 +23,64 @@
 package pascal.taie.analysis.pta.core.cs.selector;
 
 import pascal.taie.analysis.pta.core.cs.context.Context;
-import pascal.taie.analysis.pta.core.cs.context.ListContext;
+import pascal.taie.analysis.pta.core.cs.context.ContextFactory;
+import pascal.taie.analysis.pta.core.cs.context.TrieContext;
 import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
 import pascal.taie.analysis.pta.core.cs.element.CSMethod;
 import pascal.taie.analysis.pta.core.cs.element.CSObj;
 import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.ir.stmt.Invoke;
 import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+
+import java.util.List;
+import java.util.Map;
 
 /**
  * Implementation of 1-call-site sensitivity.
  */
 public class _1CallSelector implements ContextSelector {
 
+    private final ContextFactory<? super Invoke> factory;
+
+    /**
+     * Method contexts, indexed by call site, as the context of 1-call-site
+     * sensitivity does not depend on the caller context. Static and
+     * instance calls share the map as both select contexts by call sites.
+     */
+    private final Map<Invoke, Context> methodContexts = Maps.newMap();
+
+    public _1CallSelector() {
+        this(new TrieContext.Factory<>());
+    }
+
+    /**
+     * @param factory the factory to create contexts, which could be shared
+     *                by multiple selectors, e.g., in selective context
+     *                sensitivity.
+     */
+    public _1CallSelector(ContextFactory<? super Invoke> factory) {
+        this.factory = factory;
+    }
+
     @Override
     public Context getEmptyContext() {
-        return ListContext.make();
+        return factory.getEmptyContext();
     }
 
     @Override
     public Context selectContext(CSCallSite callSite, JMethod callee) {
-        // TODO - finish me
-        return null;
+        return methodContexts.computeIfAbsent(callSite.getCallSite(),
+                site -> factory.make(List.of(site)));
     }
 
     @Override
     public Context selectContext(CSCallSite callSite, CSObj recv, JMethod callee) {
-        // TODO - finish me
-        return null;
+        return selectContext(callSite, callee);
     }
 
     @Override
     public Context selectHeapContext(CSMethod method, Obj obj) {
-        // TODO - finish me
-        return null;
+        return factory.getEmptyContext();
     }
 }
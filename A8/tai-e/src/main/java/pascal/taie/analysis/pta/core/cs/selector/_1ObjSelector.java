@@ -23,38 +23,62 @@
 package pascal.taie.analysis.pta.core.cs.selector;
 
 import pascal.taie.analysis.pta.core.cs.context.Context;
-import pascal.taie.analysis.pta.core.cs.context.ListContext;
+import pascal.taie.analysis.pta.core.cs.context.ContextFactory;
+import pascal.taie.analysis.pta.core.cs.context.TrieContext;
 import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
 import pascal.taie.analysis.pta.core.cs.element.CSMethod;
 import pascal.taie.analysis.pta.core.cs.element.CSObj;
 import pascal.taie.analysis.pta.core.heap.Obj;
 import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+
+import java.util.List;
+import java.util.Map;
 
 /**
  * Implementation of 1-object sensitivity.
  */
 public class _1ObjSelector implements ContextSelector {
 
+    private final ContextFactory<? super Obj> factory;
+
+    /**
+     * Method contexts, indexed by receiver objects, as the context of
+     * 1-object sensitivity does not depend on the heap context.
+     */
+    private final Map<Obj, Context> methodContexts = Maps.newMap();
+
+    public _1ObjSelector() {
+        this(new TrieContext.Factory<>());
+    }
+
+    /**
+     * @param factory the factory to create contexts, which could be shared
+     *                by multiple selectors, e.g., in selective context
+     *                sensitivity.
+     */
+    public _1ObjSelector(ContextFactory<? super Obj> factory) {
+        this.factory = factory;
+    }
+
     @Override
     public Context getEmptyContext() {
-        return ListContext.make();
+        return factory.getEmptyContext();
     }
 
     @Override
     public Context selectContext(CSCallSite callSite, JMethod callee) {
-        // TODO - finish me
-        return null;
+        return callSite.getContext();
     }
 
     @Override
     public Context selectContext(CSCallSite callSite, CSObj recv, JMethod callee) {
-        // TODO - finish me
-        return null;
+        return methodContexts.computeIfAbsent(recv.getObject(),
+                obj -> factory.make(List.of(obj)));
     }
 
     @Override
     public Context selectHeapContext(CSMethod method, Obj obj) {
-        // TODO - finish me
-        return null;
+        return factory.getEmptyContext();
     }
 }
@@ -23,38 +23,65 @@
 package pascal.taie.analysis.pta.core.cs.selector;
 
 import pascal.taie.analysis.pta.core.cs.context.Context;
-import pascal.taie.analysis.pta.core.cs.context.ListContext;
+import pascal.taie.analysis.pta.core.cs.context.ContextFactory;
+import pascal.taie.analysis.pta.core.cs.context.TrieContext;
 import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
 import pascal.taie.analysis.pta.core.cs.element.CSMethod;
 import pascal.taie.analysis.pta.core.cs.element.CSObj;
 import pascal.taie.analysis.pta.core.heap.Obj;
 import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+
+import java.util.List;
+import java.util.Map;
+import pascal.taie.language.type.Type;
 
 /**
  * Implementation of 1-type sensitivity.
  */
 public class _1TypeSelector implements ContextSelector {
 
+    private final ContextFactory<? super Type> factory;
+
+    /**
+     * Method contexts, indexed by the container types of receiver objects,
+     * as the context of 1-type sensitivity does not depend on the heap
+     * context.
+     */
+    private final Map<Type, Context> methodContexts = Maps.newMap();
+
+    public _1TypeSelector() {
+        this(new TrieContext.Factory<>());
+    }
+
+    /**
+     * @param factory the factory to create contexts, which could be shared
+     *                by multiple selectors, e.g., in selective context
+     *                sensitivity.
+     */
+    public _1TypeSelector(ContextFactory<? super Type> factory) {
+        this.factory = factory;
+    }
+
     @Override
     public Context getEmptyContext() {
-        return ListContext.make();
+        return factory.getEmptyContext();
     }
 
     @Override
     public Context selectContext(CSCallSite callSite, JMethod callee) {
-        // TODO - finish me
-        return null;
+        return callSite.getContext();
     }
 
     @Override
     public Context selectContext(CSCallSite callSite, CSObj recv, JMethod callee) {
-        // TODO - finish me
-        return null;
+        return methodContexts.computeIfAbsent(
+                recv.getObject().getContainerType(),
+                type -> factory.make(List.of(type)));
     }
 
     @Override
     public Context selectHeapContext(CSMethod method, Obj obj) {
-        // TODO - finish me
-        return null;
+        return factory.getEmptyContext();
     }
 }
@@ -23,7 +23,8 @@
 package pascal.taie.analysis.pta.core.cs.selector;
 
 import pascal.taie.analysis.pta.core.cs.context.Context;
-import pascal.taie.analysis.pta.core.cs.context.ListContext;
+import pascal.taie.analysis.pta.core.cs.context.ContextFactory;
+import pascal.taie.analysis.pta.core.cs.context.TrieContext;
 import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
 import pascal.taie.analysis.pta.core.cs.element.CSMethod;
 import pascal.taie.analysis.pta.core.cs.element.CSObj;
@@ -36,26 +37,46 @@ import pascal.taie.language.classes.JMethod;
  */
 public class _2CallSelector implements ContextSelector {
 
+    private final ContextFactory<? super Invoke> factory;
+
+    /**
+     * Method contexts, indexed by (caller context, call site). Static and
+     * instance calls share the table as both select contexts by call sites.
+     */
+    private final ContextTable methodContexts = new ContextTable();
+
+    public _2CallSelector() {
+        this(new TrieContext.Factory<>());
+    }
+
+    /**
+     * @param factory the factory to create contexts, which could be shared
+     *                by multiple selectors, e.g., in selective context
+     *                sensitivity.
+     */
+    public _2CallSelector(ContextFactory<? super Invoke> factory) {
+        this.factory = factory;
+    }
+
     @Override
     public Context getEmptyContext() {
-        return ListContext.make();
+        return factory.getEmptyContext();
     }
 
     @Override
     public Context selectContext(CSCallSite callSite, JMethod callee) {
-        // TODO - finish me
-        return null;
+        return methodContexts.get(callSite.getContext(), callSite.getCallSite(),
+                () -> factory.append(callSite.getContext(), callSite.getCallSite(), 2));
     }
 
     @Override
     public Context selectContext(CSCallSite callSite, CSObj recv, JMethod callee) {
-        // TODO - finish me
-        return null;
+        return methodContexts.get(callSite.getContext(), callSite.getCallSite(),
+                () -> factory.append(callSite.getContext(), callSite.getCallSite(), 2));
     }
 
     @Override
     public Context selectHeapContext(CSMethod method, Obj obj) {
-        // TODO - finish me
-        return null;
+        return factory.makeLastK(method.getContext(), 1);
     }
 }
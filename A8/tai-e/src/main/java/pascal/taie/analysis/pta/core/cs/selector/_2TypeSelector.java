@@ -23,7 +23,8 @@
 package pascal.taie.analysis.pta.core.cs.selector;
 
 import pascal.taie.analysis.pta.core.cs.context.Context;
-import pascal.taie.analysis.pta.core.cs.context.ListContext;
+import pascal.taie.analysis.pta.core.cs.context.ContextFactory;
+import pascal.taie.analysis.pta.core.cs.context.TrieContext;
 import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
 import pascal.taie.analysis.pta.core.cs.element.CSMethod;
 import pascal.taie.analysis.pta.core.cs.element.CSObj;
@@ -36,26 +37,52 @@ import pascal.taie.language.type.Type;
  */
 public class _2TypeSelector implements ContextSelector {
 
+    private final ContextFactory<? super Type> factory;
+
+    /**
+     * Method contexts, indexed by (heap context, allocation site) of receivers.
+     */
+    private final ContextTable methodContexts = new ContextTable();
+
+    /**
+     * Heap contexts, indexed by method context, as the heap context
+     * does not depend on the allocation site.
+     */
+    private final ContextTable heapContexts = new ContextTable();
+
+    public _2TypeSelector() {
+        this(new TrieContext.Factory<>());
+    }
+
+    /**
+     * @param factory the factory to create contexts, which could be shared
+     *                by multiple selectors, e.g., in selective context
+     *                sensitivity.
+     */
+    public _2TypeSelector(ContextFactory<? super Type> factory) {
+        this.factory = factory;
+    }
+
     @Override
     public Context getEmptyContext() {
-        return ListContext.make();
+        return factory.getEmptyContext();
     }
 
     @Override
     public Context selectContext(CSCallSite callSite, JMethod callee) {
-        // TODO - finish me
-        return null;
+        return callSite.getContext();
     }
 
     @Override
     public Context selectContext(CSCallSite callSite, CSObj recv, JMethod callee) {
-        // TODO - finish me
-        return null;
+        return methodContexts.get(recv.getContext(), recv.getObject(),
+                () -> factory.append(recv.getContext(),
+                        recv.getObject().getContainerType(), 2));
     }
 
     @Override
     public Context selectHeapContext(CSMethod method, Obj obj) {
-        // TODO - finish me
-        return null;
+        return heapContexts.get(method.getContext(),
+                () -> factory.makeLastK(method.getContext(), 1));
     }
 }
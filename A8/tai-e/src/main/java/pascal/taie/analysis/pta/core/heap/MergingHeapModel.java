@@ -0,0 +1,152 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.core.heap;
+
+import pascal.taie.World;
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.config.ConfigException;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.language.type.Type;
+import pascal.taie.util.collection.Maps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Heap model that merges the objects of hot types, i.e., all objects
+ * of such a type are represented by a single {@link MergedObj}.
+ * A type is hot if
+ * <ul>
+ *     <li>it matches option "merge-types", which is a list of type names
+ *     and package prefixes ending with ".*", e.g.,
+ *     {@code [java.lang.Integer,java.util.*]}. Array types match
+ *     the entries by their names, e.g., {@code java.util.HashMap$Node[]}
+ *     matches {@code java.util.*}; or</li>
+ *     <li>the number of its allocation sites in the program exceeds
+ *     option "merge-site-threshold". The sites are counted by scanning
+ *     the IR of the methods of application classes once before the first
+ *     object is selected, so that all sites of a hot type are merged
+ *     regardless of the order in which the analysis reaches them.
+ *     The library is not scanned, as building the IR of all its methods
+ *     costs more than the analysis of most programs; hot library types
+ *     can be given by "merge-types" instead.</li>
+ * </ul>
+ * Other objects are modeled by allocation sites, as
+ * {@link AllocationSiteBasedModel}.
+ */
+public class MergingHeapModel extends AbstractHeapModel {
+
+    private final List<String> mergedTypes = new ArrayList<>();
+
+    private final List<String> mergedPackages = new ArrayList<>();
+
+    private final int siteThreshold;
+
+    /**
+     * Number of allocation sites of each type in the program,
+     * which is null until the program is scanned.
+     */
+    private Map<Type, Integer> siteCounts;
+
+    private final Map<Type, Boolean> hotTypes = Maps.newMap();
+
+    public MergingHeapModel(AnalysisOptions options) {
+        super(options);
+        Object types = options.get("merge-types");
+        if (types instanceof Collection<?> c) {
+            c.forEach(t -> addMergedType(t.toString()));
+        } else if (types instanceof String s) {
+            for (String t : s.split(",")) {
+                addMergedType(t);
+            }
+        } else if (types != null) {
+            throw new ConfigException("Invalid merge-types: " + types);
+        }
+        Object threshold = options.get("merge-site-threshold");
+        siteThreshold = threshold instanceof Number n ?
+                n.intValue() : Integer.MAX_VALUE;
+    }
+
+    /**
+     * @return true if any merging option of this model is given.
+     */
+    public static boolean isEnabled(AnalysisOptions options) {
+        return options.get("merge-types") != null ||
+                options.get("merge-site-threshold") != null;
+    }
+
+    private void addMergedType(String type) {
+        type = type.strip();
+        if (type.endsWith(".*")) {
+            // keep the trailing dot to avoid matching packages
+            // that share the prefix, e.g., java.utils
+            mergedPackages.add(type.substring(0, type.length() - 1));
+        } else if (!type.isEmpty()) {
+            mergedTypes.add(type);
+        }
+    }
+
+    @Override
+    protected Obj doGetObj(New allocSite) {
+        Type type = allocSite.getRValue().getType();
+        return hotTypes.computeIfAbsent(type, this::isHotType) ?
+                getMergedObj(allocSite) : getNewObj(allocSite);
+    }
+
+    private boolean isHotType(Type type) {
+        String name = type.getName();
+        if (mergedTypes.contains(name) ||
+                mergedPackages.stream().anyMatch(name::startsWith)) {
+            return true;
+        }
+        if (siteThreshold == Integer.MAX_VALUE) {
+            return false;
+        }
+        if (siteCounts == null) {
+            siteCounts = countSites();
+        }
+        return siteCounts.getOrDefault(type, 0) > siteThreshold;
+    }
+
+    /**
+     * @return the number of allocation sites of each type
+     * in the application classes.
+     */
+    private static Map<Type, Integer> countSites() {
+        Map<Type, Integer> counts = Maps.newMap();
+        World.get().getClassHierarchy()
+                .applicationClasses()
+                .flatMap(c -> c.getDeclaredMethods().stream())
+                .filter(m -> !m.isAbstract() && !m.isNative())
+                .flatMap(m -> m.getIR().stmts())
+                .forEach(stmt -> {
+                    if (stmt instanceof New newStmt) {
+                        counts.merge(newStmt.getRValue().getType(),
+                                1, Integer::sum);
+                    }
+                });
+        return counts;
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.cs;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.analysis.pta.core.cs.element.CSManager;
+import pascal.taie.analysis.pta.core.cs.selector.DegradableSelector;
+import pascal.taie.config.AnalysisOptions;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Monitors the time, context-sensitive elements and heap consumed by
+ * pointer analysis, and degrades the context selector gracefully when
+ * any budget is exceeded:
+ * <ul>
+ *     <li>time or CS elements: the methods reached from now on are
+ *     analyzed context-insensitively;</li>
+ *     <li>heap: in addition, the objects created from now on are merged
+ *     by their allocation sites, i.e., have empty heap contexts.</li>
+ * </ul>
+ * The budgets are checked periodically by the solver thread, which
+ * calls {@link #poll(CSManager)} for each work-list entry, so that
+ * the CS elements are never counted while the solver modifies them.
+ * Each budget triggers at most once, and the triggered degradations are
+ * stored in the pointer analysis result with key of the name of this class.
+ */
+public class BudgetMonitor {
+
+    private static final Logger logger = LogManager.getLogger(BudgetMonitor.class);
+
+    /**
+     * Interval (in milliseconds) between two checks of the budgets.
+     */
+    private static final long CHECK_INTERVAL = 1000;
+
+    /**
+     * Number of polls between two readings of the clock, which keeps
+     * {@link #poll(CSManager)} cheap for the main loop of the solver.
+     */
+    private static final int POLLS_PER_CLOCK = 1024;
+
+    /**
+     * Kinds of budgets.
+     */
+    public enum Kind {
+        TIME, CS_ELEMENTS, HEAP
+    }
+
+    /**
+     * Record of a triggered degradation.
+     *
+     * @param kind          the exceeded budget
+     * @param elapsedMillis elapsed time when the budget is exceeded
+     * @param csElements    number of CS elements when the budget is exceeded
+     * @param heapFraction  fraction of heap used after the last garbage
+     *                      collection when the budget is exceeded
+     */
+    public record Degradation(Kind kind, long elapsedMillis,
+                       long csElements, double heapFraction) {
+    }
+
+    private final long timeLimit;
+
+    private final long maxCSElements;
+
+    private final double maxHeapFraction;
+
+    private final DegradableSelector selector;
+
+    private long startTime;
+
+    private long lastCheckTime;
+
+    private int polls = 0;
+
+    private final List<Degradation> degradations = new ArrayList<>();
+
+    /**
+     * Reads budgets from options "time-limit" (in seconds),
+     * "max-cs-elements" and "max-heap-fraction" (between 0 and 1).
+     * Absent options mean unlimited budgets.
+     */
+    BudgetMonitor(AnalysisOptions options, DegradableSelector selector) {
+        this.timeLimit = getLong(options, "time-limit", Long.MAX_VALUE / 1000) * 1000;
+        this.maxCSElements = getLong(options, "max-cs-elements", Long.MAX_VALUE);
+        Object fraction = options.get("max-heap-fraction");
+        this.maxHeapFraction = fraction instanceof Number n ? n.doubleValue() : 1.0;
+        this.selector = selector;
+    }
+
+    private static long getLong(AnalysisOptions options, String key, long defaultValue) {
+        Object value = options.get(key);
+        return value instanceof Number n ? n.longValue() : defaultValue;
+    }
+
+    /**
+     * Starts the clock of the time budget.
+     */
+    void start() {
+        startTime = System.currentTimeMillis();
+        lastCheckTime = startTime;
+    }
+
+    /**
+     * Invoked by the solver for each work-list entry, and checks
+     * the budgets once every {@link #CHECK_INTERVAL} milliseconds.
+     */
+    void poll(CSManager csManager) {
+        if (++polls < POLLS_PER_CLOCK) {
+            return;
+        }
+        polls = 0;
+        long now = System.currentTimeMillis();
+        if (now - lastCheckTime >= CHECK_INTERVAL) {
+            lastCheckTime = now;
+            check(csManager);
+        }
+    }
+
+    /**
+     * Checks the budgets, and degrades the selector if any budget
+     * is exceeded for the first time.
+     */
+    void check(CSManager csManager) {
+        long elapsed = System.currentTimeMillis() - startTime;
+        if (elapsed > timeLimit) {
+            degrade(Kind.TIME, elapsed, csManager);
+        }
+        if (countCSElements(csManager) > maxCSElements) {
+            degrade(Kind.CS_ELEMENTS, elapsed, csManager);
+        }
+        if (getHeapFraction() > maxHeapFraction) {
+            degrade(Kind.HEAP, elapsed, csManager);
+        }
+    }
+
+    private void degrade(Kind kind, long elapsed, CSManager csManager) {
+        if (degradations.stream().anyMatch(d -> d.kind() == kind)) {
+            return;
+        }
+        Degradation degradation = new Degradation(kind, elapsed,
+                countCSElements(csManager), getHeapFraction());
+        logger.warn("Budget exceeded: {}, degrading context sensitivity", degradation);
+        degradations.add(degradation);
+        selector.degradeMethodContexts();
+        if (kind == Kind.HEAP) {
+            selector.degradeHeapContexts();
+        }
+    }
+
+    private static long countCSElements(CSManager csManager) {
+        return (long) csManager.getCSVars().size()
+                + csManager.getObjects().size()
+                + csManager.getInstanceFields().size()
+                + csManager.getArrayIndexes().size()
+                + csManager.getStaticFields().size();
+    }
+
+    /**
+     * @return fraction of the heap used after the last garbage collection
+     * of each heap memory pool, which, unlike the current usage, excludes
+     * the garbage that has not been collected yet.
+     */
+    static double getHeapFraction() {
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                MemoryUsage usage = pool.getCollectionUsage();
+                if (usage != null) {
+                    used += usage.getUsed();
+                }
+            }
+        }
+        long max = ManagementFactory.getMemoryMXBean()
+                .getHeapMemoryUsage().getMax();
+        if (max <= 0) {
+            max = Runtime.getRuntime().maxMemory();
+        }
+        return (double) used / max;
+    }
+
+    /**
+     * @return the degradations triggered so far.
+     */
+    List<Degradation> getDegradations() {
+        return List.copyOf(degradations);
+    }
+}
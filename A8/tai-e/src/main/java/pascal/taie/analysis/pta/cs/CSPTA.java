@@ -22,19 +22,34 @@
 
 package pascal.taie.analysis.pta.cs;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import pascal.taie.analysis.ProgramAnalysis;
 import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.core.cs.context.ContextFactory;
+import pascal.taie.analysis.pta.core.cs.context.TrieContext;
 import pascal.taie.analysis.pta.core.cs.selector.CISelector;
 import pascal.taie.analysis.pta.core.cs.selector.ContextSelector;
+import pascal.taie.analysis.pta.core.cs.selector.SelectiveSelector;
 import pascal.taie.analysis.pta.core.heap.AllocationSiteBasedModel;
+import pascal.taie.analysis.pta.core.heap.HeapModel;
+import pascal.taie.analysis.pta.core.heap.MergingHeapModel;
 import pascal.taie.analysis.pta.plugin.ResultProcessor;
+import pascal.taie.analysis.pta.toolkit.scaler.Scaler;
 import pascal.taie.config.AnalysisConfig;
 import pascal.taie.config.AnalysisOptions;
 import pascal.taie.config.ConfigException;
+import pascal.taie.language.classes.JMethod;
 import pascal.taie.util.Strings;
+import pascal.taie.util.collection.Maps;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Context-sensitive pointer analysis.
@@ -43,6 +58,16 @@ public class CSPTA extends ProgramAnalysis {
 
     public static final String ID = "cspta";
 
+    private static final Logger logger = LogManager.getLogger(CSPTA.class);
+
+    /**
+     * Keys of the options which are excluded from the pre-analysis,
+     * in addition to the ones of taint analysis.
+     */
+    private static final Set<String> MAIN_ANALYSIS_KEYS = Set.of(
+            "time-limit", "max-cs-elements", "max-heap-fraction",
+            "detect-changed-methods", "incremental", "action", "file");
+
     public CSPTA(AnalysisConfig config) {
         super(config);
     }
@@ -50,18 +75,97 @@ public class CSPTA extends ProgramAnalysis {
     @Override
     public PointerAnalysisResult analyze() {
         AnalysisOptions options = getOptions();
-        Solver solver = new Solver(options,
-                new AllocationSiteBasedModel(options),
-                getContextSelector(options.getString("cs")));
+        String cs = options.getString("cs");
+        ContextFactory<Object> factory = new TrieContext.Factory<>();
+        ContextSelector selector = cs.equals("scaler") ?
+                getScalerSelector(options) :
+                getContextSelector(cs, factory);
+        String fingerprintDir = options.getString("detect-changed-methods");
+        IncrementalSolving incremental = null;
+        if (options.getBooleanOrDefault("incremental", false)) {
+            if (fingerprintDir == null) {
+                throw new ConfigException(
+                        "Option incremental requires option detect-changed-methods");
+            }
+            if (IncrementalSolving.isSupported(options)) {
+                incremental = new IncrementalSolving(Path.of(fingerprintDir), factory);
+            }
+        }
+        Solver solver = new Solver(options, getHeapModel(options), selector, incremental);
         solver.solve();
         PointerAnalysisResult result = solver.getResult();
+        if (fingerprintDir != null) {
+            detectChanges(result, Path.of(fingerprintDir, "fingerprints.txt"));
+        }
         ResultProcessor.process(options, result);
         return result;
     }
 
-    private static ContextSelector getContextSelector(String cs) {
+    /**
+     * Compares the fingerprints of the reachable methods with the ones
+     * of previous run, stores the signatures of changed methods to
+     * the result, and saves the fingerprints for next run.
+     */
+    private static void detectChanges(PointerAnalysisResult result, Path file) {
+        MethodFingerprints current = MethodFingerprints.compute(
+                result.getCallGraph().reachableMethods().toList());
+        MethodFingerprints previous = MethodFingerprints.read(file);
+        if (previous != null) {
+            result.storeResult(MethodFingerprints.class.getName(),
+                    current.diff(previous));
+        }
+        current.write(file);
+    }
+
+    private static HeapModel getHeapModel(AnalysisOptions options) {
+        return MergingHeapModel.isEnabled(options) ?
+                new MergingHeapModel(options) :
+                new AllocationSiteBasedModel(options);
+    }
+
+    /**
+     * Runs a context-insensitive pre-analysis, and selects context
+     * sensitivity variant for each method via Scaler, so that the total
+     * size of points-to sets of the main analysis is kept within
+     * the budget given by option "scaler-budget".
+     */
+    private static ContextSelector getScalerSelector(AnalysisOptions options) {
+        logger.info("Running context-insensitive pre-analysis for Scaler ...");
+        AnalysisOptions preOptions = getPreAnalysisOptions(options);
+        Solver preSolver = new Solver(preOptions,
+                getHeapModel(preOptions), new CISelector());
+        preSolver.solve();
+        Object budget = options.get("scaler-budget");
+        Scaler scaler = budget instanceof Number n ?
+                new Scaler(preSolver.getResult(), n.longValue()) :
+                new Scaler(preSolver.getResult());
+        // all selectors share one factory to make their contexts comparable
+        ContextFactory<Object> factory = new TrieContext.Factory<>();
+        Map<String, ContextSelector> variants = Maps.newMap();
+        Map<JMethod, ContextSelector> selectors = Maps.newMap();
+        scaler.selectContext().forEach((method, cs) ->
+                selectors.put(method, variants.computeIfAbsent(cs,
+                        v -> getContextSelector(v, factory))));
+        return new SelectiveSelector(selectors, new CISelector(factory));
+    }
+
+    /**
+     * @return a copy of given options for the pre-analysis, which excludes
+     * the options of taint analysis, budgets, change detection and
+     * incremental solving, as they only make sense for the main analysis.
+     */
+    private static AnalysisOptions getPreAnalysisOptions(AnalysisOptions options) {
+        Map<String, Object> copy = new ObjectMapper()
+                .convertValue(options, new TypeReference<>() {});
+        copy.keySet().removeIf(key -> key.startsWith("taint-")
+                || MAIN_ANALYSIS_KEYS.contains(key));
+        return new AnalysisOptions(copy);
+    }
+
+    private static ContextSelector getContextSelector(
+            String cs, ContextFactory<Object> factory) {
         if (cs.equals("ci")) {
-            return new CISelector();
+            return new CISelector(factory);
         } else {
             try {
                 // we expect that the argument of context-sensitivity variant
@@ -73,8 +177,8 @@ public class CSPTA extends ProgramAnalysis {
                 String selectorName = "pascal.taie.analysis.pta.core.cs.selector." +
                         "_" + k + kind + "Selector";
                 Class<?> c = Class.forName(selectorName);
-                Constructor<?> ctor = c.getConstructor();
-                return (ContextSelector) ctor.newInstance();
+                Constructor<?> ctor = c.getConstructor(ContextFactory.class);
+                return (ContextSelector) ctor.newInstance(factory);
             } catch (RuntimeException e) {
                 throw new ConfigException("Unexpected context-sensitivity variants: " + cs, e);
             } catch (ClassNotFoundException | NoSuchMethodException |
@@ -0,0 +1,366 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.cs;
+
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.context.ContextFactory;
+import pascal.taie.analysis.pta.core.cs.element.CSManager;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.heap.HeapModel;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.InstanceFieldAccess;
+import pascal.taie.ir.exp.InvokeInstanceExp;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Cast;
+import pascal.taie.ir.stmt.Copy;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.LoadArray;
+import pascal.taie.ir.stmt.LoadField;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.ir.stmt.StoreArray;
+import pascal.taie.ir.stmt.StoreField;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Pair;
+import pascal.taie.util.collection.Sets;
+
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Demand-driven points-to analysis, which computes points-to sets of
+ * queried variables only, by traversing the pointer flow backward from
+ * the queried variables, i.e., it solves a CFL-reachability problem where
+ * <ul>
+ *     <li>calls and returns are matched by call-site contexts of length
+ *     at most k. A variable queried in the empty context may be reached
+ *     from any caller;</li>
+ *     <li>loads and stores of the same field (or of arrays) are matched if
+ *     their base variables may be aliases, which is decided by sub-queries.
+ *     The values flowing through fields lose their contexts.</li>
+ * </ul>
+ * The pointer flow is built lazily from the statements of the methods in
+ * given call graph, e.g., a CHA call graph, which is also used to resolve
+ * callees and callers. Results of completed queries are cached and shared
+ * by later queries.
+ * <p>
+ * Each query is given a budget, i.e., the maximum number of pointers
+ * it may traverse (including the ones traversed by its sub-queries).
+ * A query that runs out of its budget returns null.
+ */
+public class DemandPointerAnalysis {
+
+    private final CallGraph<Invoke, JMethod> callGraph;
+
+    private final HeapModel heapModel;
+
+    private final CSManager csManager;
+
+    private final ContextFactory<Invoke> contextFactory;
+
+    private final int k;
+
+    private final int budget;
+
+    /**
+     * Completed results of queries, shared across queries.
+     */
+    private final Map<Pair<Var, Context>, Set<CSObj>> cache = Maps.newMap();
+
+    /**
+     * Queries in progress, used to break cycles of sub-queries.
+     */
+    private final Set<Pair<Var, Context>> inProgress = Sets.newSet();
+
+    /**
+     * Number of pointers that the current top-level query may still traverse.
+     */
+    private int remaining;
+
+    // Indexes of statements, built on first query.
+
+    private MultiMap<Var, Stmt> definitions;
+
+    private MultiMap<JField, StoreField> storeFields;
+
+    private List<StoreArray> storeArrays;
+
+    /**
+     * Maps each parameter to its index, where "this" is mapped to -1.
+     */
+    private Map<Var, Integer> params;
+
+    /**
+     * @param callGraph      call graph to resolve calls
+     * @param heapModel      heap model to obtain abstract objects
+     * @param csManager      manager of context-sensitive elements
+     * @param contextFactory factory of call-site contexts
+     * @param k              limit of context length
+     * @param budget         maximum number of pointers traversed by a query
+     */
+    public DemandPointerAnalysis(CallGraph<Invoke, JMethod> callGraph,
+                                 HeapModel heapModel, CSManager csManager,
+                                 ContextFactory<Invoke> contextFactory,
+                                 int k, int budget) {
+        this.callGraph = callGraph;
+        this.heapModel = heapModel;
+        this.csManager = csManager;
+        this.contextFactory = contextFactory;
+        this.k = k;
+        this.budget = budget;
+    }
+
+    /**
+     * @return the points-to set of var in given context, or null if
+     * the query runs out of its budget. The context must be created by
+     * the context factory of this analysis.
+     */
+    public @Nullable Set<CSObj> pointsTo(Var var, Context context) {
+        buildIndexes();
+        remaining = budget;
+        try {
+            return query(var, context);
+        } catch (BudgetExceededException e) {
+            return null;
+        } finally {
+            inProgress.clear();
+        }
+    }
+
+    /**
+     * @return the context-insensitive points-to set of var, or null if
+     * the query runs out of its budget.
+     */
+    public @Nullable Set<Obj> pointsTo(Var var) {
+        Set<CSObj> pts = pointsTo(var, contextFactory.getEmptyContext());
+        if (pts == null) {
+            return null;
+        }
+        Set<Obj> objs = Sets.newHybridSet();
+        pts.forEach(csObj -> objs.add(csObj.getObject()));
+        return objs;
+    }
+
+    private void buildIndexes() {
+        if (definitions != null) {
+            return;
+        }
+        definitions = Maps.newMultiMap();
+        storeFields = Maps.newMultiMap();
+        storeArrays = new ArrayList<>();
+        params = Maps.newMap();
+        callGraph.reachableMethods().forEach(method -> {
+            if (method.isAbstract()) {
+                return;
+            }
+            IR ir = method.getIR();
+            if (ir.getThis() != null) {
+                params.put(ir.getThis(), -1);
+            }
+            for (int i = 0; i < ir.getParams().size(); ++i) {
+                params.put(ir.getParam(i), i);
+            }
+            for (Stmt stmt : ir) {
+                if (stmt instanceof New || stmt instanceof Copy ||
+                        stmt instanceof Cast || stmt instanceof LoadField ||
+                        stmt instanceof LoadArray) {
+                    stmt.getDef().ifPresent(def ->
+                            definitions.put((Var) def, stmt));
+                } else if (stmt instanceof Invoke invoke &&
+                        invoke.getLValue() != null) {
+                    definitions.put(invoke.getLValue(), invoke);
+                } else if (stmt instanceof StoreField storeField) {
+                    storeFields.put(storeField.getFieldRef().resolve(), storeField);
+                } else if (stmt instanceof StoreArray storeArray) {
+                    storeArrays.add(storeArray);
+                }
+            }
+        });
+    }
+
+    /**
+     * Computes the points-to set of var in given context by traversing
+     * the pointer flow backward.
+     */
+    private Set<CSObj> query(Var var, Context context) {
+        Pair<Var, Context> root = new Pair<>(var, context);
+        Set<CSObj> cached = cache.get(root);
+        if (cached != null) {
+            return cached;
+        }
+        inProgress.add(root);
+        Set<CSObj> pts = Sets.newHybridSet();
+        Set<Pair<Var, Context>> visited = Sets.newSet();
+        Deque<Pair<Var, Context>> workList = new ArrayDeque<>();
+        visited.add(root);
+        workList.add(root);
+        while (!workList.isEmpty()) {
+            Pair<Var, Context> node = workList.poll();
+            if (--remaining < 0) {
+                throw new BudgetExceededException();
+            }
+            Var v = node.first();
+            Context c = node.second();
+            Set<CSObj> known = cache.get(node);
+            if (known != null) {
+                pts.addAll(known);
+                continue;
+            }
+            for (Stmt stmt : definitions.get(v)) {
+                if (stmt instanceof New newStmt) {
+                    Context heapContext = contextFactory.makeLastK(c, Math.max(k - 1, 0));
+                    pts.add(csManager.getCSObj(heapContext,
+                            heapModel.getObj(newStmt)));
+                } else if (stmt instanceof Copy copy) {
+                    visit(copy.getRValue(), c, visited, workList);
+                } else if (stmt instanceof Cast cast) {
+                    visit(cast.getRValue().getValue(), c, visited, workList);
+                } else if (stmt instanceof LoadField load) {
+                    JField field = load.getFieldRef().resolve();
+                    for (StoreField store : storeFields.get(field)) {
+                        if (load.isStatic() || mayAlias(
+                                ((InstanceFieldAccess) load.getFieldAccess()).getBase(), c,
+                                ((InstanceFieldAccess) store.getFieldAccess()).getBase())) {
+                            visit(store.getRValue(), getEmptyContext(), visited, workList);
+                        }
+                    }
+                } else if (stmt instanceof LoadArray load) {
+                    for (StoreArray store : storeArrays) {
+                        if (mayAlias(load.getArrayAccess().getBase(), c,
+                                store.getArrayAccess().getBase())) {
+                            visit(store.getRValue(), getEmptyContext(), visited, workList);
+                        }
+                    }
+                } else if (stmt instanceof Invoke invoke) {
+                    // flow from return variables of the callees
+                    Context calleeContext = contextFactory.append(c, invoke, k);
+                    for (JMethod callee : callGraph.getCalleesOf(invoke)) {
+                        if (!callee.isAbstract()) {
+                            for (Var ret : callee.getIR().getReturnVars()) {
+                                visit(ret, calleeContext, visited, workList);
+                            }
+                        }
+                    }
+                }
+            }
+            Integer index = params.get(v);
+            if (index != null) {
+                // flow from arguments of the callers
+                JMethod method = v.getMethod();
+                if (c.getLength() > 0) {
+                    Invoke callSite = (Invoke) c.getElementAt(c.getLength() - 1);
+                    Context callerContext = dropLast(c);
+                    if (callGraph.getCalleesOf(callSite).contains(method)) {
+                        visit(getArg(callSite, index), callerContext, visited, workList);
+                    }
+                } else {
+                    for (Invoke callSite : callGraph.getCallersOf(method)) {
+                        visit(getArg(callSite, index), c, visited, workList);
+                    }
+                }
+            }
+        }
+        Set<CSObj> result = Collections.unmodifiableSet(pts);
+        cache.put(root, result);
+        inProgress.remove(root);
+        return result;
+    }
+
+    private void visit(@Nullable Var var, Context context,
+                       Set<Pair<Var, Context>> visited,
+                       Deque<Pair<Var, Context>> workList) {
+        if (var != null) {
+            Pair<Var, Context> node = new Pair<>(var, context);
+            if (visited.add(node)) {
+                workList.add(node);
+            }
+        }
+    }
+
+    /**
+     * @return true if base1 in context1 and base2 in any context
+     * may point to the same object. Sub-queries that are in progress
+     * are conservatively considered as aliases.
+     */
+    private boolean mayAlias(Var base1, Context context1, Var base2) {
+        Pair<Var, Context> q1 = new Pair<>(base1, context1);
+        Pair<Var, Context> q2 = new Pair<>(base2, getEmptyContext());
+        if (inProgress.contains(q1) || inProgress.contains(q2)) {
+            return true;
+        }
+        Set<CSObj> pts1 = query(base1, context1);
+        if (pts1.isEmpty()) {
+            return false;
+        }
+        Set<Obj> objs1 = Sets.newHybridSet();
+        pts1.forEach(o -> objs1.add(o.getObject()));
+        return query(base2, getEmptyContext())
+                .stream()
+                .anyMatch(o -> objs1.contains(o.getObject()));
+    }
+
+    private Context getEmptyContext() {
+        return contextFactory.getEmptyContext();
+    }
+
+    private Context dropLast(Context context) {
+        List<Invoke> elems = new ArrayList<>(context.getLength() - 1);
+        for (int i = 0; i < context.getLength() - 1; ++i) {
+            elems.add((Invoke) context.getElementAt(i));
+        }
+        return contextFactory.make(elems);
+    }
+
+    /**
+     * @return the argument of callSite that is passed to the parameter
+     * of given index, where -1 denotes the receiver.
+     */
+    private static @Nullable Var getArg(Invoke callSite, int index) {
+        if (index == -1) {
+            return callSite.getInvokeExp() instanceof InvokeInstanceExp e ?
+                    e.getBase() : null;
+        }
+        return index < callSite.getInvokeExp().getArgCount() ?
+                callSite.getInvokeExp().getArg(index) : null;
+    }
+
+    private static class BudgetExceededException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        private BudgetExceededException() {
+            super(null, null, false, false);
+        }
+    }
+}
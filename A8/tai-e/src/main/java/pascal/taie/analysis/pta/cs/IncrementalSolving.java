@@ -0,0 +1,915 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.cs;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.World;
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.graph.callgraph.Edge;
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.context.ContextFactory;
+import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
+import pascal.taie.analysis.pta.core.cs.element.CSManager;
+import pascal.taie.analysis.pta.core.cs.element.CSMethod;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.CSVar;
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.core.heap.MergingHeapModel;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.plugin.taint.TaintAnalysiss;
+import pascal.taie.analysis.pta.pts.PointsToSet;
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.classes.Modifier;
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Pair;
+import pascal.taie.util.collection.Sets;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Incremental solving of pointer analysis, in the style of DRed
+ * (delete and re-derive).
+ * <p>
+ * The solver records the facts each PFG edge is derived from, and
+ * the facts of a run are saved to a {@link SolverSnapshot}. Next run
+ * restores the snapshot, and deletes the facts which depend on
+ * the methods changed since then, i.e., whose IR hashes differ:
+ * the changed methods and the methods reached via deleted call edges
+ * become unreachable, the points-to sets of their variables and of
+ * the pointers reached from deleted facts are cleared, and so on.
+ * The facts are over-deleted, and the deleted facts which are still
+ * derivable from the surviving ones are re-derived by the solver,
+ * which only propagates the affected part of the program.
+ * The result is the same as the one of solving from scratch.
+ * <p>
+ * The snapshot is used only by the runs with the same options and
+ * class structures (of application classes), otherwise the solver
+ * solves from scratch.
+ */
+public class IncrementalSolving {
+
+    private static final Logger logger = LogManager.getLogger(IncrementalSolving.class);
+
+    private static final String SNAPSHOT_FILE = "solver-snapshot.txt";
+
+    /**
+     * Keys of the options which do not affect the facts of the solver.
+     */
+    private static final Set<String> IRRELEVANT_KEYS = Set.of(
+            "detect-changed-methods", "incremental", "action", "file");
+
+    private final Path file;
+
+    /**
+     * The factory of the contexts of the context selector,
+     * which makes the contexts decoded from the snapshot.
+     */
+    private final ContextFactory<Object> contextFactory;
+
+    /**
+     * PFG edges and the facts they are derived from.
+     */
+    private final Map<Pair<Pointer, Pointer>, Set<Object>> pfgEdges = Maps.newMap();
+
+    /**
+     * Allocation sites of the objects.
+     */
+    private final Map<Obj, New> allocSites = Maps.newMap();
+
+    /**
+     * Statistics of the restored snapshot, or null if no snapshot
+     * is restored.
+     */
+    private Stats stats;
+
+    /**
+     * @param dir            the directory of the snapshot
+     * @param contextFactory the factory of the contexts of the solver
+     */
+    IncrementalSolving(Path dir, ContextFactory<Object> contextFactory) {
+        this.file = dir.resolve(SNAPSHOT_FILE);
+        this.contextFactory = contextFactory;
+    }
+
+    /**
+     * @return true if incremental solving supports given options,
+     * otherwise false. Taint analysis, budgets and merging heap model
+     * derive facts which are not recorded, and Scaler selects contexts
+     * by a pre-analysis, thus they are not supported.
+     */
+    static boolean isSupported(AnalysisOptions options) {
+        String reason = null;
+        if (TaintAnalysiss.isEnabled(options)) {
+            reason = "taint analysis";
+        } else if (options.get("time-limit") != null
+                || options.get("max-cs-elements") != null
+                || options.get("max-heap-fraction") != null) {
+            reason = "budgets";
+        } else if (MergingHeapModel.isEnabled(options)) {
+            reason = "merging heap model";
+        } else if ("scaler".equals(options.getString("cs"))) {
+            reason = "Scaler";
+        }
+        if (reason != null) {
+            logger.warn("Incremental solving does not support {}, solving from scratch",
+                    reason);
+        }
+        return reason == null;
+    }
+
+    /**
+     * Records a derivation of a PFG edge.
+     */
+    void onPFGEdge(Pointer source, Pointer target, Object origin) {
+        pfgEdges.computeIfAbsent(new Pair<>(source, target),
+                unused -> Sets.newHybridSet()).add(origin);
+    }
+
+    /**
+     * Records the allocation site of an object.
+     */
+    void onNewObj(Obj obj, New allocSite) {
+        allocSites.putIfAbsent(obj, allocSite);
+    }
+
+    /**
+     * Restores the snapshot of previous run to given solver, deletes
+     * the facts affected by the changed methods, and adds the work to
+     * re-derive them.
+     *
+     * @return true if the snapshot is restored, or false if there is
+     * no usable snapshot; in this case, the solver is not changed except
+     * that its CSManager may contain elements decoded from the snapshot.
+     */
+    boolean restore(Solver solver) {
+        SolverSnapshot snapshot;
+        try {
+            snapshot = SolverSnapshot.read(file);
+        } catch (AnalysisException e) {
+            logger.warn("{}, solving from scratch", e.getMessage());
+            return false;
+        }
+        if (snapshot == null) {
+            logger.info("No solver snapshot in {}, solving from scratch", file);
+            return false;
+        }
+        if (!snapshot.optionsKey.equals(getOptionsKey(solver.getOptions()))) {
+            logger.info("Options changed since previous run, solving from scratch");
+            return false;
+        }
+        if (!snapshot.structureKey.equals(getStructureKey())) {
+            logger.info("Classes changed since previous run, solving from scratch");
+            return false;
+        }
+        Restorer restorer = new Restorer(snapshot, solver);
+        try {
+            restorer.decode();
+        } catch (AnalysisException e) {
+            logger.warn("Solver snapshot is stale ({}), solving from scratch",
+                    e.getMessage());
+            return false;
+        }
+        restorer.restore();
+        stats = restorer.getStats();
+        logger.info("Restored solver snapshot: {}", stats);
+        return true;
+    }
+
+    /**
+     * Saves the facts of the solver to the snapshot, and stores
+     * the statistics of incremental solving to the result.
+     */
+    void onFinish(Solver solver) {
+        CSManager csManager = solver.getCSManager();
+        SolverSnapshot.Encoder encoder = new SolverSnapshot.Encoder(
+                getOptionsKey(solver.getOptions()), getStructureKey(),
+                csManager, allocSites);
+        CallGraph<CSCallSite, CSMethod> callGraph = solver.getResult().getCSCallGraph();
+        callGraph.reachableMethods().forEach(encoder::addReachable);
+        callGraph.edges().forEach(encoder::addCallEdge);
+        pfgEdges.forEach((edge, origins) ->
+                encoder.addPFGEdge(edge.first(), edge.second(), origins));
+        List<Collection<? extends Pointer>> pointers = List.of(
+                csManager.getCSVars(), csManager.getStaticFields(),
+                csManager.getInstanceFields(), csManager.getArrayIndexes());
+        pointers.forEach(ptrs -> ptrs.forEach(p -> {
+            if (!p.getPointsToSet().isEmpty()) {
+                encoder.addPointsTo(p);
+            }
+        }));
+        encoder.getSnapshot().write(file);
+        if (stats != null) {
+            solver.getResult().storeResult(IncrementalSolving.class.getName(), stats);
+        }
+    }
+
+    /**
+     * @return the key of the options that affect the facts of the solver,
+     * which are sorted by their names.
+     */
+    private static String getOptionsKey(AnalysisOptions options) {
+        Map<String, Object> copy = new ObjectMapper()
+                .convertValue(options, new TypeReference<>() {});
+        copy.keySet().removeIf(IRRELEVANT_KEYS::contains);
+        return hash(new TreeMap<>(copy).toString());
+    }
+
+    /**
+     * @return the key of the structures of application classes, i.e.,
+     * their modifiers, super classes, interfaces, fields and methods,
+     * which affect the resolution of fields and callees.
+     */
+    private static String getStructureKey() {
+        List<String> lines = new ArrayList<>();
+        World.get().getClassHierarchy().applicationClasses().forEach(c -> {
+            JClass superClass = c.getSuperClass();
+            lines.add(c.getName() + " " + toString(c.getModifiers())
+                    + " extends " + (superClass == null ? "" : superClass.getName())
+                    + " implements " + c.getInterfaces().stream()
+                    .map(JClass::getName).sorted().toList());
+            for (JField field : c.getDeclaredFields()) {
+                lines.add(field.getSignature() + " " + toString(field.getModifiers()));
+            }
+            for (JMethod method : c.getDeclaredMethods()) {
+                lines.add(method.getSignature() + " " + toString(method.getModifiers()));
+            }
+        });
+        return hash(lines.stream().sorted().collect(Collectors.joining("\n")));
+    }
+
+    private static String toString(Set<Modifier> modifiers) {
+        return modifiers.stream().map(Modifier::toString).sorted().toList().toString();
+    }
+
+    private static String hash(String s) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(
+                    digest.digest(s.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new AnalysisException(e);
+        }
+    }
+
+    /**
+     * Statistics of incremental solving, i.e., the numbers of facts
+     * in the snapshot, and of the ones deleted for re-derivation.
+     */
+    public record Stats(int reachableMethods, int deletedMethods,
+                        int callEdges, int deletedCallEdges,
+                        int pfgEdges, int deletedPFGEdges,
+                        int pointers, int affectedPointers) {
+    }
+
+    /**
+     * Ids of the elements in the snapshot to be processed, each of which
+     * is added at most once.
+     */
+    private static class IdQueue {
+
+        private final BitSet added = new BitSet();
+
+        private final int[] ids;
+
+        private int head;
+
+        private int tail;
+
+        private IdQueue(int capacity) {
+            ids = new int[capacity];
+        }
+
+        private void add(int id) {
+            if (!added.get(id)) {
+                added.set(id);
+                ids[tail++] = id;
+            }
+        }
+
+        private boolean contains(int id) {
+            return added.get(id);
+        }
+
+        private boolean isEmpty() {
+            return head == tail;
+        }
+
+        private int poll() {
+            return ids[head++];
+        }
+
+        private int size() {
+            return tail;
+        }
+    }
+
+    /**
+     * Deletes the facts of the snapshot affected by the changed methods,
+     * decodes the surviving ones, and restores them to the solver.
+     */
+    private class Restorer {
+
+        private final SolverSnapshot snapshot;
+
+        private final Solver solver;
+
+        private final CSManager csManager;
+
+        private final ClassHierarchy hierarchy = World.get().getClassHierarchy();
+
+        /**
+         * Methods whose IR changed since previous run.
+         */
+        private final BitSet changed = new BitSet();
+
+        private final IdQueue deletedMethods;
+
+        private final IdQueue affectedPointers;
+
+        private final IdQueue deletedCalls;
+
+        private final BitSet deletedEdges = new BitSet();
+
+        /**
+         * Number of origins of each PFG edge that have not been deleted.
+         */
+        private final int[] liveOrigins;
+
+        // indexes of the facts in the snapshot
+
+        private final int[][] varsOf;
+
+        private final int[][] callsOut;
+
+        private final int[][] callsIn;
+
+        private final int[][] callsOnReceiver;
+
+        private final int[][] edgesOut;
+
+        private final int[][] edgesByMethod;
+
+        private final int[][] edgesByBase;
+
+        private final int[][] edgesByCall;
+
+        // decoded elements, indexed by their ids in the snapshot
+
+        private final JMethod[] methods;
+
+        private final Invoke[] sites;
+
+        private final New[] allocs;
+
+        private final Obj[] objs;
+
+        private final Context[] contexts;
+
+        private final CSObj[] csObjs;
+
+        private final CSMethod[] csMethods;
+
+        private final Pointer[] pointers;
+
+        private final List<Edge<CSCallSite, CSMethod>> calls = new ArrayList<>();
+
+        private Restorer(SolverSnapshot snapshot, Solver solver) {
+            this.snapshot = snapshot;
+            this.solver = solver;
+            this.csManager = solver.getCSManager();
+            int nCSMethods = snapshot.csMethods.size();
+            int nPointers = snapshot.pointers.size();
+            int nCalls = snapshot.calls.size();
+            int nEdges = snapshot.pfgEdges.size();
+            deletedMethods = new IdQueue(nCSMethods);
+            affectedPointers = new IdQueue(nPointers);
+            deletedCalls = new IdQueue(nCalls);
+            liveOrigins = new int[nEdges];
+            List<SolverSnapshot.PointerKey> ptrs = snapshot.pointers;
+            List<SolverSnapshot.Call> cs = snapshot.calls;
+            List<SolverSnapshot.PFGEdge> es = snapshot.pfgEdges;
+            varsOf = groupBy(nCSMethods, nPointers, p -> ptrs.get(p).kind() == 'V' ?
+                    new int[]{ ptrs.get(p).base() } : new int[0]);
+            callsOut = groupBy(nCSMethods, nCalls, c -> new int[]{ cs.get(c).caller() });
+            callsIn = groupBy(nCSMethods, nCalls, c -> new int[]{ cs.get(c).callee() });
+            callsOnReceiver = groupBy(nPointers, nCalls, c -> cs.get(c).receiver() >= 0 ?
+                    new int[]{ cs.get(c).receiver() } : new int[0]);
+            edgesOut = groupBy(nPointers, nEdges, e -> new int[]{ es.get(e).source() });
+            edgesByMethod = groupBy(nCSMethods, nEdges,
+                    e -> origins(es.get(e), SolverSnapshot.METHOD));
+            edgesByBase = groupBy(nPointers, nEdges,
+                    e -> origins(es.get(e), SolverSnapshot.BASE));
+            edgesByCall = groupBy(nCalls, nEdges,
+                    e -> origins(es.get(e), SolverSnapshot.CALL));
+            methods = new JMethod[snapshot.methodSigs.size()];
+            sites = new Invoke[snapshot.sites.size()];
+            allocs = new New[snapshot.objs.size()];
+            objs = new Obj[snapshot.objs.size()];
+            contexts = new Context[snapshot.contexts.size()];
+            csObjs = new CSObj[snapshot.csObjs.size()];
+            csMethods = new CSMethod[nCSMethods];
+            pointers = new Pointer[nPointers];
+        }
+
+        /**
+         * Finds the changed methods, deletes the affected facts, and
+         * decodes the surviving ones.
+         *
+         * @throws AnalysisException if a method of the snapshot does not
+         *                           exist, or a surviving fact refers to
+         *                           a changed method.
+         */
+        private void decode() {
+            for (int m = 0; m < methods.length; ++m) {
+                String sig = snapshot.methodSigs.get(m);
+                JMethod method = hierarchy.getMethod(sig);
+                if (method == null) {
+                    throw new AnalysisException("no method " + sig);
+                }
+                if (!MethodFingerprints.hash(method).equals(snapshot.methodHashes.get(m))) {
+                    changed.set(m);
+                }
+                methods[m] = method;
+            }
+            delete();
+            for (int m : snapshot.reachable) {
+                if (!deletedMethods.contains(m)) {
+                    csMethod(m);
+                }
+            }
+            for (int c = 0; c < snapshot.calls.size(); ++c) {
+                SolverSnapshot.Call call = snapshot.calls.get(c);
+                if (!deletedCalls.contains(c)) {
+                    calls.add(call(c));
+                    if (call.receiver() >= 0) {
+                        pointer(call.receiver());
+                        pointer(call.calleeThis());
+                    }
+                } else {
+                    calls.add(null);
+                    if (!deletedMethods.contains(call.caller())) {
+                        // the call is re-derived by the caller
+                        csMethod(call.caller());
+                        site(call.site());
+                        if (call.receiver() >= 0) {
+                            pointer(call.receiver());
+                        }
+                    }
+                }
+            }
+            for (int e = 0; e < snapshot.pfgEdges.size(); ++e) {
+                SolverSnapshot.PFGEdge edge = snapshot.pfgEdges.get(e);
+                if (!deletedEdges.get(e)) {
+                    pointer(edge.source());
+                    pointer(edge.target());
+                    for (int i = 0; i < edge.origins().length; ++i) {
+                        if (edge.originKinds()[i] == SolverSnapshot.BASE
+                                && !affectedPointers.contains(edge.origins()[i])) {
+                            pointer(edge.origins()[i]);
+                        }
+                    }
+                }
+            }
+            for (int[] pts : snapshot.pointsTo) {
+                if (!affectedPointers.contains(pts[0])) {
+                    pointer(pts[0]);
+                    for (int i = 1; i < pts.length; ++i) {
+                        csObj(pts[i]);
+                    }
+                }
+            }
+            for (int p = 0; p < pointers.length; ++p) {
+                SolverSnapshot.PointerKey key = snapshot.pointers.get(p);
+                if (affectedPointers.contains(p) && key.kind() == 'V'
+                        && !deletedMethods.contains(key.base())) {
+                    // the New statements of the variable are processed again
+                    csMethod(key.base());
+                }
+            }
+        }
+
+        /**
+         * Over-deletes the facts which depend on the changed methods,
+         * i.e., computes the closure of:
+         * <ul>
+         *     <li>a changed method is deleted, and so are the call edges to it;</li>
+         *     <li>a deleted method makes its variables affected, and deletes
+         *     its call edges and the edges derived from its statements;</li>
+         *     <li>an affected pointer makes its PFG successors affected, and
+         *     deletes the call edges on it (as the receiver) and the edges
+         *     derived from it (as the base of field or array accesses);</li>
+         *     <li>a deleted call edge makes its callee deleted and "this"
+         *     variable of the callee affected, and deletes the edges derived
+         *     from it, i.e., the ones of arguments and return values;</li>
+         *     <li>a PFG edge is deleted when all its origins are deleted,
+         *     which makes its target affected.</li>
+         * </ul>
+         * The points-to sets of affected pointers are cleared.
+         */
+        private void delete() {
+            for (int e = 0; e < liveOrigins.length; ++e) {
+                liveOrigins[e] = snapshot.pfgEdges.get(e).origins().length;
+            }
+            for (int m = 0; m < snapshot.csMethods.size(); ++m) {
+                if (changed.get(snapshot.csMethods.get(m).element())) {
+                    deletedMethods.add(m);
+                    for (int c : callsIn[m]) {
+                        deletedCalls.add(c);
+                    }
+                }
+            }
+            while (!deletedMethods.isEmpty() || !affectedPointers.isEmpty()
+                    || !deletedCalls.isEmpty()) {
+                if (!deletedMethods.isEmpty()) {
+                    int m = deletedMethods.poll();
+                    for (int p : varsOf[m]) {
+                        affectedPointers.add(p);
+                    }
+                    for (int c : callsOut[m]) {
+                        deletedCalls.add(c);
+                    }
+                    for (int e : edgesByMethod[m]) {
+                        deleteOrigin(e);
+                    }
+                } else if (!affectedPointers.isEmpty()) {
+                    int p = affectedPointers.poll();
+                    for (int e : edgesOut[p]) {
+                        affectedPointers.add(snapshot.pfgEdges.get(e).target());
+                    }
+                    for (int c : callsOnReceiver[p]) {
+                        deletedCalls.add(c);
+                    }
+                    for (int e : edgesByBase[p]) {
+                        deleteOrigin(e);
+                    }
+                } else {
+                    int c = deletedCalls.poll();
+                    SolverSnapshot.Call call = snapshot.calls.get(c);
+                    deletedMethods.add(call.callee());
+                    if (call.calleeThis() >= 0) {
+                        affectedPointers.add(call.calleeThis());
+                    }
+                    for (int e : edgesByCall[c]) {
+                        deleteOrigin(e);
+                    }
+                }
+            }
+        }
+
+        private void deleteOrigin(int edge) {
+            if (--liveOrigins[edge] == 0) {
+                deletedEdges.set(edge);
+                affectedPointers.add(snapshot.pfgEdges.get(edge).target());
+            }
+        }
+
+        /**
+         * Restores the surviving facts to the solver without propagation,
+         * and adds the work to re-derive the deleted facts.
+         */
+        private void restore() {
+            for (int m : snapshot.reachable) {
+                if (!deletedMethods.contains(m)) {
+                    solver.restoreReachable(csMethods[m]);
+                }
+            }
+            calls.forEach(call -> {
+                if (call != null) {
+                    solver.restoreCallEdge(call);
+                }
+            });
+            for (int e = 0; e < snapshot.pfgEdges.size(); ++e) {
+                if (!deletedEdges.get(e)) {
+                    SolverSnapshot.PFGEdge edge = snapshot.pfgEdges.get(e);
+                    Pointer source = pointers[edge.source()];
+                    Pointer target = pointers[edge.target()];
+                    solver.restorePFGEdge(source, target);
+                    for (int i = 0; i < edge.origins().length; ++i) {
+                        Object origin = getOrigin(edge.originKinds()[i], edge.origins()[i]);
+                        if (origin != null) {
+                            onPFGEdge(source, target, origin);
+                        }
+                    }
+                }
+            }
+            for (int[] pts : snapshot.pointsTo) {
+                if (!affectedPointers.contains(pts[0])) {
+                    PointsToSet set = pointers[pts[0]].getPointsToSet();
+                    for (int i = 1; i < pts.length; ++i) {
+                        set.addObject(csObjs[pts[i]]);
+                    }
+                }
+            }
+            for (int o = 0; o < objs.length; ++o) {
+                if (objs[o] != null) {
+                    allocSites.put(objs[o], allocs[o]);
+                }
+            }
+            rederive();
+        }
+
+        /**
+         * @return the decoded origin, or null if it has been deleted.
+         */
+        private Object getOrigin(char kind, int id) {
+            return switch (kind) {
+                case SolverSnapshot.METHOD ->
+                        deletedMethods.contains(id) ? null : csMethods[id];
+                case SolverSnapshot.BASE ->
+                        affectedPointers.contains(id) ? null : pointers[id];
+                default -> deletedCalls.contains(id) ? null : calls.get(id);
+            };
+        }
+
+        /**
+         * Adds the work to re-derive the deleted facts from the surviving
+         * ones; the other deleted facts are re-derived by the solver when
+         * the facts they depend on are re-derived.
+         */
+        private void rederive() {
+            // points-to sets flow to affected pointers via surviving edges
+            for (int e = 0; e < snapshot.pfgEdges.size(); ++e) {
+                SolverSnapshot.PFGEdge edge = snapshot.pfgEdges.get(e);
+                if (!deletedEdges.get(e) && affectedPointers.contains(edge.target())) {
+                    PointsToSet pts = pointers[edge.source()].getPointsToSet();
+                    if (!pts.isEmpty()) {
+                        solver.addPointsTo(pointers[edge.target()], pts);
+                    }
+                }
+            }
+            // objects are allocated to affected variables of surviving methods
+            for (int m = 0; m < csMethods.length; ++m) {
+                if (csMethods[m] != null && !deletedMethods.contains(m)) {
+                    processNews(m);
+                }
+            }
+            // deleted methods are reachable again via surviving call edges
+            for (int m = 0; m < csMethods.length; ++m) {
+                if (deletedMethods.contains(m)) {
+                    for (int c : callsIn[m]) {
+                        if (!deletedCalls.contains(c)) {
+                            solver.addReachable(csMethods[m]);
+                            break;
+                        }
+                    }
+                }
+            }
+            // call edges are resolved again on unaffected receivers, to
+            // re-derive the deleted call edges of surviving callers, and
+            // "this" variables of the callees of surviving call edges
+            BitSet receivers = new BitSet();
+            for (int c = 0; c < snapshot.calls.size(); ++c) {
+                SolverSnapshot.Call call = snapshot.calls.get(c);
+                int recv = call.receiver();
+                if (deletedCalls.contains(c)) {
+                    if (deletedMethods.contains(call.caller())) {
+                        continue;
+                    }
+                    if (recv < 0) {
+                        solver.reprocess(csMethods[call.caller()], sites[call.site()]);
+                    } else if (!affectedPointers.contains(recv)) {
+                        receivers.set(recv);
+                    }
+                } else if (recv >= 0 && affectedPointers.contains(call.calleeThis())) {
+                    receivers.set(recv);
+                }
+            }
+            receivers.stream().forEach(recv -> {
+                CSVar csVar = (CSVar) pointers[recv];
+                for (CSObj obj : csVar.getPointsToSet()) {
+                    solver.processCall(csVar, obj);
+                }
+            });
+        }
+
+        /**
+         * Processes the New statements whose variables are affected
+         * in given surviving method.
+         */
+        private void processNews(int m) {
+            Map<Integer, Integer> affectedVars = null;
+            for (int p : varsOf[m]) {
+                if (affectedPointers.contains(p)) {
+                    if (affectedVars == null) {
+                        affectedVars = Maps.newMap();
+                    }
+                    affectedVars.put(snapshot.pointers.get(p).index(), p);
+                }
+            }
+            if (affectedVars == null) {
+                return;
+            }
+            for (Stmt stmt : csMethods[m].getMethod().getIR()) {
+                if (stmt instanceof New newStmt
+                        && affectedVars.containsKey(newStmt.getLValue().getIndex())) {
+                    solver.reprocess(csMethods[m], stmt);
+                }
+            }
+        }
+
+        private Stats getStats() {
+            int deletedMethods = (int) snapshot.reachable.stream()
+                    .filter(this.deletedMethods::contains)
+                    .count();
+            return new Stats(snapshot.reachable.size(), deletedMethods,
+                    snapshot.calls.size(), deletedCalls.size(),
+                    snapshot.pfgEdges.size(), deletedEdges.cardinality(),
+                    snapshot.pointers.size(), affectedPointers.size());
+        }
+
+        // decoding of elements, which checks that they do not refer to
+        // the changed methods
+
+        private JMethod method(int id) {
+            if (changed.get(id)) {
+                throw new AnalysisException("changed method "
+                        + snapshot.methodSigs.get(id) + " survives");
+            }
+            return methods[id];
+        }
+
+        private Invoke site(int id) {
+            if (sites[id] == null) {
+                SolverSnapshot.Site site = snapshot.sites.get(id);
+                Stmt stmt = method(site.method()).getIR().getStmt(site.index());
+                if (!(stmt instanceof Invoke invoke)) {
+                    throw new AnalysisException("no call site " + site);
+                }
+                sites[id] = invoke;
+            }
+            return sites[id];
+        }
+
+        private Obj obj(int id) {
+            if (objs[id] == null) {
+                SolverSnapshot.Site site = snapshot.objs.get(id);
+                Stmt stmt = method(site.method()).getIR().getStmt(site.index());
+                if (!(stmt instanceof New newStmt)) {
+                    throw new AnalysisException("no allocation site " + site);
+                }
+                allocs[id] = newStmt;
+                objs[id] = solver.getHeapModel().getObj(newStmt);
+            }
+            return objs[id];
+        }
+
+        private Context context(int id) {
+            if (contexts[id] == null) {
+                List<Object> elems = new ArrayList<>();
+                for (String e : snapshot.contexts.get(id)) {
+                    int elemId = Integer.parseInt(e.substring(1));
+                    elems.add(switch (e.charAt(0)) {
+                        case 'o' -> obj(elemId);
+                        case 'i' -> site(elemId);
+                        default -> World.get().getTypeSystem()
+                                .getType(snapshot.types.get(elemId));
+                    });
+                }
+                contexts[id] = contextFactory.make(elems);
+            }
+            return contexts[id];
+        }
+
+        private CSObj csObj(int id) {
+            if (csObjs[id] == null) {
+                SolverSnapshot.CSElement e = snapshot.csObjs.get(id);
+                csObjs[id] = csManager.getCSObj(context(e.context()), obj(e.element()));
+            }
+            return csObjs[id];
+        }
+
+        private CSMethod csMethod(int id) {
+            if (csMethods[id] == null) {
+                SolverSnapshot.CSElement e = snapshot.csMethods.get(id);
+                csMethods[id] = csManager.getCSMethod(
+                        context(e.context()), method(e.element()));
+            }
+            return csMethods[id];
+        }
+
+        private Pointer pointer(int id) {
+            if (pointers[id] == null) {
+                SolverSnapshot.PointerKey key = snapshot.pointers.get(id);
+                pointers[id] = switch (key.kind()) {
+                    case 'V' -> {
+                        CSMethod csMethod = csMethod(key.base());
+                        yield csManager.getCSVar(csMethod.getContext(),
+                                csMethod.getMethod().getIR().getVar(key.index()));
+                    }
+                    case 'S' -> csManager.getStaticField(field(key.field()));
+                    case 'F' -> csManager.getInstanceField(
+                            csObj(key.base()), field(key.field()));
+                    default -> csManager.getArrayIndex(csObj(key.base()));
+                };
+            }
+            return pointers[id];
+        }
+
+        private JField field(String sig) {
+            JField field = hierarchy.getField(sig);
+            if (field == null) {
+                throw new AnalysisException("no field " + sig);
+            }
+            return field;
+        }
+
+        private Edge<CSCallSite, CSMethod> call(int id) {
+            SolverSnapshot.Call call = snapshot.calls.get(id);
+            CSMethod caller = csMethod(call.caller());
+            CSCallSite csCallSite = csManager.getCSCallSite(
+                    caller.getContext(), site(call.site()));
+            return new Edge<>(call.kind(), csCallSite, csMethod(call.callee()));
+        }
+    }
+
+    private static int[] origins(SolverSnapshot.PFGEdge edge, char kind) {
+        int n = 0;
+        for (char k : edge.originKinds()) {
+            if (k == kind) {
+                ++n;
+            }
+        }
+        int[] origins = new int[n];
+        for (int i = 0, j = 0; i < edge.originKinds().length; ++i) {
+            if (edge.originKinds()[i] == kind) {
+                origins[j++] = edge.origins()[i];
+            }
+        }
+        return origins;
+    }
+
+    /**
+     * Groups the facts by their keys.
+     *
+     * @param numberOfKeys  the number of keys
+     * @param numberOfFacts the number of facts
+     * @param keysOf        the keys of each fact
+     * @return the ids of the facts of each key.
+     */
+    private static int[][] groupBy(int numberOfKeys, int numberOfFacts,
+                                   IntFunction<int[]> keysOf) {
+        int[] counts = new int[numberOfKeys];
+        int[][] keys = new int[numberOfFacts][];
+        for (int f = 0; f < numberOfFacts; ++f) {
+            keys[f] = keysOf.apply(f);
+            for (int k : keys[f]) {
+                ++counts[k];
+            }
+        }
+        int[][] groups = new int[numberOfKeys][];
+        for (int k = 0; k < numberOfKeys; ++k) {
+            groups[k] = new int[counts[k]];
+            counts[k] = 0;
+        }
+        for (int f = 0; f < numberOfFacts; ++f) {
+            for (int k : keys[f]) {
+                groups[k][counts[k]++] = f;
+            }
+        }
+        return groups;
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.cs;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.proginfo.ExceptionEntry;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.collection.Maps;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Fingerprints (IR hashes) of methods, which are used to identify
+ * the methods changed between two runs of pointer analysis.
+ * <p>
+ * Fingerprints are stored in a text file, one method per line,
+ * in the form of {@code <hash> <method signature>}.
+ */
+public class MethodFingerprints {
+
+    private static final Logger logger = LogManager.getLogger(MethodFingerprints.class);
+
+    /**
+     * Method signature -> hash of its IR.
+     */
+    private final Map<String, String> hashes;
+
+    private MethodFingerprints(Map<String, String> hashes) {
+        this.hashes = hashes;
+    }
+
+    /**
+     * Computes fingerprints of given methods.
+     */
+    public static MethodFingerprints compute(Iterable<JMethod> methods) {
+        Map<String, String> hashes = Maps.newMap();
+        for (JMethod method : methods) {
+            hashes.put(method.getSignature(), hash(method));
+        }
+        return new MethodFingerprints(hashes);
+    }
+
+    /**
+     * @return hash of the IR of given method. Abstract methods, which
+     * have no IR, are hashed by their signatures. Line numbers are
+     * excluded, so that a method is not considered as changed when
+     * only the code above it is edited.
+     */
+    static String hash(JMethod method) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new AnalysisException(e);
+        }
+        update(digest, method.getSignature());
+        if (!method.isAbstract()) {
+            IR ir = method.getIR();
+            for (Var var : ir.getVars()) {
+                update(digest, var.getName() + ":" + var.getType());
+            }
+            ir.forEach(stmt -> update(digest, toString(stmt)));
+            for (ExceptionEntry entry : ir.getExceptionEntries()) {
+                update(digest, String.format("%d-%d -> %d: %s",
+                        entry.start().getIndex(), entry.end().getIndex(),
+                        entry.handler().getIndex(), entry.catchType()));
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * @return string representation of given statement without its
+     * position. Jump targets are represented by their indexes.
+     */
+    private static String toString(Stmt stmt) {
+        if (stmt instanceof Invoke invoke) {
+            // Invoke.toString() contains the container and line number
+            Var result = invoke.getResult();
+            return (result == null ? "" : result + " = ") + invoke.getInvokeExp();
+        }
+        return stmt.toString();
+    }
+
+    private static void update(MessageDigest digest, String s) {
+        digest.update(s.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) '\n');
+    }
+
+    /**
+     * Reads fingerprints from given file.
+     *
+     * @return the fingerprints, or null if the file does not exist.
+     */
+    public static MethodFingerprints read(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            Map<String, String> hashes = Maps.newMap();
+            for (String line : Files.readAllLines(file)) {
+                int sep = line.indexOf(' ');
+                if (sep > 0) {
+                    hashes.put(line.substring(sep + 1), line.substring(0, sep));
+                }
+            }
+            return new MethodFingerprints(hashes);
+        } catch (IOException e) {
+            throw new AnalysisException("Failed to read fingerprints from " + file, e);
+        }
+    }
+
+    /**
+     * Writes the fingerprints to given file.
+     */
+    public void write(Path file) {
+        try {
+            Path dir = file.toAbsolutePath().getParent();
+            Files.createDirectories(dir);
+            try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+                List<String> sigs = hashes.keySet().stream().sorted().toList();
+                for (String sig : sigs) {
+                    writer.write(hashes.get(sig) + " " + sig);
+                    writer.newLine();
+                }
+            }
+        } catch (IOException e) {
+            throw new AnalysisException("Failed to write fingerprints to " + file, e);
+        }
+    }
+
+    /**
+     * @return signatures of the methods that are added, removed or changed
+     * in this fingerprints compared with the previous ones.
+     */
+    public Set<String> diff(MethodFingerprints previous) {
+        Set<String> changed = hashes.keySet()
+                .stream()
+                .filter(sig -> !hashes.get(sig).equals(previous.hashes.get(sig)))
+                .collect(Collectors.toSet());
+        previous.hashes.keySet()
+                .stream()
+                .filter(sig -> !hashes.containsKey(sig))
+                .forEach(changed::add);
+        logger.info("{} of {} methods changed since previous run",
+                changed.size(), hashes.size());
+        return changed;
+    }
+}
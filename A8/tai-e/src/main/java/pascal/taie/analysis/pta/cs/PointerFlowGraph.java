@@ -23,20 +23,66 @@
 package pascal.taie.analysis.pta.cs;
 
 import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.util.collection.LongHashSet;
 import pascal.taie.util.collection.Maps;
-import pascal.taie.util.collection.MultiMap;
 
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 /**
  * Represents pointer flow graph in context-sensitive pointer analysis.
+ * <p>
+ * Each pointer is given a dense id when it first appears in an edge,
+ * and the successors of a pointer are stored as a growable {@code int[]}
+ * of such ids, so that propagation iterates over a primitive array
+ * instead of hash buckets. A single {@link LongHashSet} of edges, each
+ * of which is encoded as a {@code long} consisting of the ids of its
+ * source and target, is used only to detect duplicate edges.
  */
-class PointerFlowGraph {
+public class PointerFlowGraph {
+
+    private static final int[] EMPTY = new int[0];
+
+    /**
+     * Map from a pointer (node) to its id.
+     */
+    private final Map<Pointer, Integer> ids = Maps.newMap();
+
+    /**
+     * All pointers in this PFG, indexed by their ids.
+     */
+    private final List<Pointer> pointers = new ArrayList<>();
 
     /**
-     * Map from a pointer (node) to its successors in PFG.
+     * Successor ids of each pointer; only the first
+     * {@code succCounts[id]} elements of {@code succs[id]} are valid.
      */
-    private final MultiMap<Pointer, Pointer> successors = Maps.newMultiMap();
+    private int[][] succs = new int[64][];
+
+    private int[] succCounts = new int[64];
+
+    private final LongHashSet edges = new LongHashSet();
+
+    private int getId(Pointer pointer) {
+        Integer id = ids.get(pointer);
+        if (id == null) {
+            id = pointers.size();
+            ids.put(pointer, id);
+            pointers.add(pointer);
+            if (id == succs.length) {
+                succs = Arrays.copyOf(succs, id << 1);
+                succCounts = Arrays.copyOf(succCounts, id << 1);
+            }
+            succs[id] = EMPTY;
+        }
+        return id;
+    }
 
     /**
      * Adds an edge (source -> target) to this PFG.
@@ -45,13 +91,117 @@ class PointerFlowGraph {
      * otherwise false.
      */
     boolean addEdge(Pointer source, Pointer target) {
-        return successors.put(source, target);
+        int s = getId(source), t = getId(target);
+        if (!edges.add(LongHashSet.key(s, t))) {
+            return false;
+        }
+        int[] targets = succs[s];
+        int count = succCounts[s];
+        if (count == targets.length) {
+            targets = succs[s] = Arrays.copyOf(targets,
+                    Math.max(4, count + (count >> 1)));
+        }
+        targets[count] = t;
+        succCounts[s] = count + 1;
+        return true;
     }
 
     /**
      * @return successors of given pointer in the PFG.
      */
-    Set<Pointer> getSuccsOf(Pointer pointer) {
-        return successors.get(pointer);
+    public Set<Pointer> getSuccsOf(Pointer pointer) {
+        Integer id = ids.get(pointer);
+        return id != null ? new SuccessorSet(id) : Set.of();
+    }
+
+    /**
+     * @return number of edges in this PFG.
+     */
+    public int getNumberOfEdges() {
+        return edges.size();
+    }
+
+    /**
+     * @return estimated number of bytes occupied by the adjacency
+     * structures of this PFG, excluding the pointers themselves.
+     */
+    public long getMemoryFootprint() {
+        // 16 bytes for each array header, 4 bytes for each reference
+        // (with compressed oops) and int, and 8 bytes for each long
+        long bytes = 16 + 4L * succs.length + 16 + 4L * succCounts.length
+                + 16 + 4L * pointers.size()
+                // about 48 bytes for each entry (with boxed id) of the id map
+                + 48L * ids.size();
+        for (int i = 0; i < pointers.size(); ++i) {
+            if (succs[i] != EMPTY) {
+                bytes += 16 + 4L * succs[i].length;
+            }
+        }
+        return bytes + 16 + 8L * edges.capacity();
+    }
+
+    /**
+     * @return a snapshot of the size of this PFG, which can be kept after
+     * the analysis without retaining the graph itself.
+     */
+    public Stats getStats() {
+        return new Stats(pointers.size(), getNumberOfEdges(),
+                getMemoryFootprint());
+    }
+
+    /**
+     * Size statistics of a PFG.
+     *
+     * @param nodes           number of pointers in the PFG
+     * @param edges           number of edges in the PFG
+     * @param memoryFootprint estimated bytes of the adjacency structures
+     */
+    public record Stats(int nodes, int edges, long memoryFootprint) {
+    }
+
+    /**
+     * Read-only view of the successors of a pointer.
+     */
+    private class SuccessorSet extends AbstractSet<Pointer> {
+
+        private final int source;
+
+        private SuccessorSet(int source) {
+            this.source = source;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            Integer target = ids.get(o);
+            return target != null && edges.contains(LongHashSet.key(source, target));
+        }
+
+        @Override
+        public Iterator<Pointer> iterator() {
+            int[] targets = succs[source];
+            int count = succCounts[source];
+            return new Iterator<>() {
+
+                private int i = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return i < count;
+                }
+
+                @Override
+                public Pointer next() {
+                    if (i >= count) {
+                        throw new NoSuchElementException();
+                    }
+                    return pointers.get(targets[i++]);
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return succCounts[source];
+        }
     }
 }
@@ -43,12 +43,14 @@ import pascal.taie.analysis.pta.core.cs.element.MapBasedCSManager;
 import pascal.taie.analysis.pta.core.cs.element.Pointer;
 import pascal.taie.analysis.pta.core.cs.element.StaticField;
 import pascal.taie.analysis.pta.core.cs.selector.ContextSelector;
+import pascal.taie.analysis.pta.core.cs.selector.DegradableSelector;
 import pascal.taie.analysis.pta.core.heap.HeapModel;
 import pascal.taie.analysis.pta.core.heap.Obj;
 import pascal.taie.analysis.pta.plugin.taint.TaintAnalysiss;
 import pascal.taie.analysis.pta.pts.PointsToSet;
 import pascal.taie.analysis.pta.pts.PointsToSetFactory;
 import pascal.taie.config.AnalysisOptions;
+import pascal.taie.ir.IR;
 import pascal.taie.ir.exp.InvokeExp;
 import pascal.taie.ir.exp.Var;
 import pascal.taie.ir.stmt.Copy;
@@ -56,12 +58,16 @@ import pascal.taie.ir.stmt.Invoke;
 import pascal.taie.ir.stmt.LoadArray;
 import pascal.taie.ir.stmt.LoadField;
 import pascal.taie.ir.stmt.New;
+import pascal.taie.ir.stmt.Stmt;
 import pascal.taie.ir.stmt.StmtVisitor;
 import pascal.taie.ir.stmt.StoreArray;
 import pascal.taie.ir.stmt.StoreField;
 import pascal.taie.language.classes.JField;
 import pascal.taie.language.classes.JMethod;
 import pascal.taie.language.type.Type;
+import pascal.taie.util.collection.Sets;
+
+import java.util.Set;
 
 public class Solver {
 
@@ -73,6 +79,11 @@ public class Solver {
 
     private final ContextSelector contextSelector;
 
+    /**
+     * Monitor of budgets, or null if no budget is given.
+     */
+    private final BudgetMonitor budget;
+
     private CSManager csManager;
 
     private CSCallGraph callGraph;
@@ -81,21 +92,56 @@ public class Solver {
 
     private WorkList workList;
 
+    /**
+     * Call edges added by plugins, e.g., the calls on taint objects,
+     * whose PFG edges are not added by the solver until the edges
+     * are also resolved on points-to sets.
+     */
+    private Set<Edge<CSCallSite, CSMethod>> pluginEdges;
+
+    /**
+     * Taint analysis, or null if no taint configuration is given.
+     */
     private TaintAnalysiss taintAnalysis;
 
+    /**
+     * Incremental solving which restores the facts of previous run,
+     * or null if incremental solving is not enabled.
+     */
+    private final IncrementalSolving incremental;
+
     private PointerAnalysisResult result;
 
     Solver(AnalysisOptions options, HeapModel heapModel,
            ContextSelector contextSelector) {
+        this(options, heapModel, contextSelector, null);
+    }
+
+    Solver(AnalysisOptions options, HeapModel heapModel,
+           ContextSelector contextSelector, IncrementalSolving incremental) {
         this.options = options;
         this.heapModel = heapModel;
-        this.contextSelector = contextSelector;
+        this.incremental = incremental;
+        if (options.get("time-limit") != null
+                || options.get("max-cs-elements") != null
+                || options.get("max-heap-fraction") != null) {
+            DegradableSelector selector = new DegradableSelector(contextSelector);
+            this.contextSelector = selector;
+            this.budget = new BudgetMonitor(options, selector);
+        } else {
+            this.contextSelector = contextSelector;
+            this.budget = null;
+        }
     }
 
     public AnalysisOptions getOptions() {
         return options;
     }
 
+    public HeapModel getHeapModel() {
+        return heapModel;
+    }
+
     public ContextSelector getContextSelector() {
         return contextSelector;
     }
@@ -104,18 +150,39 @@ public class Solver {
         return csManager;
     }
 
+    public PointerFlowGraph getPointerFlowGraph() {
+        return pointerFlowGraph;
+    }
+
     void solve() {
         initialize();
         analyze();
-        taintAnalysis.onFinish();
+        if (budget != null) {
+            getResult().storeResult(BudgetMonitor.class.getName(),
+                    budget.getDegradations());
+        }
+        getResult().storeResult(PointerFlowGraph.Stats.class.getName(),
+                pointerFlowGraph.getStats());
+        if (incremental != null) {
+            incremental.onFinish(this);
+        }
+        if (taintAnalysis != null) {
+            taintAnalysis.onFinish();
+        }
     }
 
     private void initialize() {
-        csManager = new MapBasedCSManager();
-        callGraph = new CSCallGraph(csManager);
-        pointerFlowGraph = new PointerFlowGraph();
-        workList = new WorkList();
-        taintAnalysis = new TaintAnalysiss(this);
+        createState();
+        if (incremental != null && !incremental.restore(this)) {
+            // discards the elements created for the unusable snapshot
+            createState();
+        }
+        if (budget != null) {
+            budget.start();
+        }
+        // taint analysis is created only when it is configured
+        taintAnalysis = TaintAnalysiss.isEnabled(options) ?
+                new TaintAnalysiss(this) : null;
         // process program entry, i.e., main method
         Context defContext = contextSelector.getEmptyContext();
         JMethod main = World.get().getMainMethod();
@@ -124,11 +191,22 @@ public class Solver {
         addReachable(csMethod);
     }
 
+    private void createState() {
+        csManager = new MapBasedCSManager();
+        callGraph = new CSCallGraph(csManager);
+        pointerFlowGraph = new PointerFlowGraph();
+        workList = new WorkList();
+        pluginEdges = Sets.newSet();
+    }
+
     /**
      * Processes new reachable context-sensitive method.
      */
-    private void addReachable(CSMethod csMethod) {
-        // TODO - finish me
+    void addReachable(CSMethod csMethod) {
+        if (callGraph.addReachableMethod(csMethod)) {
+            StmtProcessor stmtProcessor = new StmtProcessor(csMethod);
+            csMethod.getMethod().getIR().forEach(stmt -> stmt.accept(stmtProcessor));
+        }
     }
 
     /**
@@ -145,22 +223,158 @@ public class Solver {
             this.context = csMethod.getContext();
         }
 
-        // TODO - if you choose to implement addReachable()
-        //  via visitor pattern, then finish me
+        @Override
+        public Void visit(New stmt) {
+            Obj obj = heapModel.getObj(stmt);
+            if (incremental != null) {
+                incremental.onNewObj(obj, stmt);
+            }
+            Context heapContext = contextSelector.selectHeapContext(csMethod, obj);
+            CSObj csObj = csManager.getCSObj(heapContext, obj);
+            workList.addEntry(csManager.getCSVar(context, stmt.getLValue()),
+                    PointsToSetFactory.make(csObj));
+            return null;
+        }
+
+        @Override
+        public Void visit(Copy stmt) {
+            addPFGEdge(csManager.getCSVar(context, stmt.getRValue()),
+                    csManager.getCSVar(context, stmt.getLValue()), csMethod);
+            return null;
+        }
+
+        @Override
+        public Void visit(LoadField stmt) {
+            if (stmt.isStatic()) {
+                JField field = stmt.getFieldRef().resolve();
+                addPFGEdge(csManager.getStaticField(field),
+                        csManager.getCSVar(context, stmt.getLValue()), csMethod);
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(StoreField stmt) {
+            if (stmt.isStatic()) {
+                JField field = stmt.getFieldRef().resolve();
+                addPFGEdge(csManager.getCSVar(context, stmt.getRValue()),
+                        csManager.getStaticField(field), csMethod);
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(Invoke stmt) {
+            if (stmt.isStatic()) {
+                JMethod callee = resolveCallee(null, stmt);
+                if (callee != null) {
+                    CSCallSite csCallSite = csManager.getCSCallSite(context, stmt);
+                    Context calleeContext = contextSelector.selectContext(
+                            csCallSite, callee);
+                    CSMethod csCallee = csManager.getCSMethod(calleeContext, callee);
+                    processCallEdge(new Edge<>(CallKind.STATIC, csCallSite, csCallee));
+                }
+            }
+            return null;
+        }
     }
 
     /**
      * Adds an edge "source -> target" to the PFG.
+     *
+     * @param origin the fact from which the edge is derived, i.e.,
+     *               the CSMethod containing the statement, the base CSVar
+     *               of the field or array access, or the call Edge.
+     */
+    private void addPFGEdge(Pointer source, Pointer target, Object origin) {
+        if (incremental != null) {
+            incremental.onPFGEdge(source, target, origin);
+        }
+        if (pointerFlowGraph.addEdge(source, target)) {
+            PointsToSet pts = source.getPointsToSet();
+            if (!pts.isEmpty()) {
+                workList.addEntry(target, pts);
+            }
+            if (taintAnalysis != null) {
+                taintAnalysis.onNewPFGEdge(source, target);
+            }
+        }
+    }
+
+    /**
+     * Adds a call edge discovered by plugins, e.g., a call on a taint
+     * object, and makes the callee reachable. The PFG edges of the call
+     * are not added, as its receiver is not in points-to sets; they are
+     * added if the solver resolves the same edge later.
+     *
+     * @return true if the call graph changed as a result of the call,
+     * otherwise false.
+     */
+    public boolean addCallEdge(Edge<CSCallSite, CSMethod> edge) {
+        if (callGraph.addEdge(edge)) {
+            pluginEdges.add(edge);
+            addReachable(edge.getCallee());
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Adds a points-to set to the given pointer, e.g., the taint objects
+     * generated by plugins. The objects are propagated when the entry
+     * is polled from the work list.
+     */
+    public void addPointsTo(Pointer pointer, PointsToSet pointsToSet) {
+        workList.addEntry(pointer, pointsToSet);
+    }
+
+    /**
+     * Stops solving by discarding the pending and subsequent work-list
+     * entries, e.g., when a plugin has found what it looks for.
+     * The result contains what has been computed so far.
      */
-    private void addPFGEdge(Pointer source, Pointer target) {
-        // TODO - finish me
+    public void stop() {
+        workList.stop();
     }
 
     /**
      * Processes work-list entries until the work-list is empty.
      */
     private void analyze() {
-        // TODO - finish me
+        while (!workList.isEmpty()) {
+            WorkList.Entry entry = workList.pollEntry();
+            if (budget != null) {
+                budget.poll(csManager);
+            }
+            Pointer pointer = entry.pointer();
+            PointsToSet delta = propagate(pointer, entry.pointsToSet());
+            if (pointer instanceof CSVar csVar && !delta.isEmpty()) {
+                Var var = csVar.getVar();
+                Context context = csVar.getContext();
+                for (CSObj obj : delta) {
+                    for (StoreField store : var.getStoreFields()) {
+                        addPFGEdge(csManager.getCSVar(context, store.getRValue()),
+                                csManager.getInstanceField(obj,
+                                        store.getFieldRef().resolve()), csVar);
+                    }
+                    for (LoadField load : var.getLoadFields()) {
+                        addPFGEdge(csManager.getInstanceField(obj,
+                                        load.getFieldRef().resolve()),
+                                csManager.getCSVar(context, load.getLValue()), csVar);
+                    }
+                    ArrayIndex arrayIndex = csManager.getArrayIndex(obj);
+                    for (StoreArray store : var.getStoreArrays()) {
+                        addPFGEdge(csManager.getCSVar(context, store.getRValue()),
+                                arrayIndex, csVar);
+                    }
+                    for (LoadArray load : var.getLoadArrays()) {
+                        addPFGEdge(arrayIndex,
+                                csManager.getCSVar(context, load.getLValue()), csVar);
+                    }
+                    processCall(csVar, obj);
+                }
+            }
+        }
     }
 
     /**
@@ -168,8 +382,18 @@ public class Solver {
      * returns the difference set of pointsToSet and pt(pointer).
      */
     private PointsToSet propagate(Pointer pointer, PointsToSet pointsToSet) {
-        // TODO - finish me
-        return null;
+        PointsToSet pts = pointer.getPointsToSet();
+        PointsToSet delta = PointsToSetFactory.make();
+        for (CSObj obj : pointsToSet) {
+            if (pts.addObject(obj)) {
+                delta.addObject(obj);
+            }
+        }
+        if (!delta.isEmpty()) {
+            pointerFlowGraph.getSuccsOf(pointer).forEach(succ ->
+                    workList.addEntry(succ, delta));
+        }
+        return delta;
     }
 
     /**
@@ -178,8 +402,88 @@ public class Solver {
      * @param recv    the receiver variable
      * @param recvObj set of new discovered objects pointed by the variable.
      */
-    private void processCall(CSVar recv, CSObj recvObj) {
-        // TODO - finish me
+    void processCall(CSVar recv, CSObj recvObj) {
+        Context context = recv.getContext();
+        for (Invoke callSite : recv.getVar().getInvokes()) {
+            JMethod callee = resolveCallee(recvObj, callSite);
+            if (callee == null) {
+                continue;
+            }
+            CSCallSite csCallSite = csManager.getCSCallSite(context, callSite);
+            Context calleeContext = contextSelector.selectContext(
+                    csCallSite, recvObj, callee);
+            CSMethod csCallee = csManager.getCSMethod(calleeContext, callee);
+            workList.addEntry(csManager.getCSVar(calleeContext,
+                    callee.getIR().getThis()), PointsToSetFactory.make(recvObj));
+            processCallEdge(new Edge<>(CallGraphs.getCallKind(callSite),
+                    csCallSite, csCallee));
+        }
+    }
+
+    /**
+     * Processes a call edge: if it is new, or it has been added only by
+     * plugins, makes the callee reachable, and adds the PFG edges from
+     * the arguments to the parameters, and from the return variables to
+     * the result of the call. The taint analysis handles a new edge before
+     * its PFG edges are added, so that the edges cut by sanitizers are
+     * known in advance.
+     */
+    private void processCallEdge(Edge<CSCallSite, CSMethod> edge) {
+        if (callGraph.addEdge(edge)) {
+            if (taintAnalysis != null) {
+                taintAnalysis.onNewCallEdge(edge);
+            }
+        } else if (!pluginEdges.remove(edge)) {
+            return;
+        }
+        CSMethod csCallee = edge.getCallee();
+        addReachable(csCallee);
+        Context context = edge.getCallSite().getContext();
+        Invoke callSite = edge.getCallSite().getCallSite();
+        Context calleeContext = csCallee.getContext();
+        IR ir = csCallee.getMethod().getIR();
+        InvokeExp invokeExp = callSite.getInvokeExp();
+        for (int i = 0; i < invokeExp.getArgCount(); ++i) {
+            addPFGEdge(csManager.getCSVar(context, invokeExp.getArg(i)),
+                    csManager.getCSVar(calleeContext, ir.getParam(i)), edge);
+        }
+        Var lhs = callSite.getLValue();
+        if (lhs != null) {
+            CSVar csLhs = csManager.getCSVar(context, lhs);
+            for (Var ret : ir.getReturnVars()) {
+                addPFGEdge(csManager.getCSVar(calleeContext, ret), csLhs, edge);
+            }
+        }
+    }
+
+    /**
+     * Restores a reachable method of previous run without processing
+     * its statements.
+     */
+    void restoreReachable(CSMethod csMethod) {
+        callGraph.addReachableMethod(csMethod);
+    }
+
+    /**
+     * Restores a call edge of previous run without adding its PFG edges.
+     */
+    void restoreCallEdge(Edge<CSCallSite, CSMethod> edge) {
+        callGraph.addEdge(edge);
+    }
+
+    /**
+     * Restores a PFG edge of previous run without propagation.
+     */
+    void restorePFGEdge(Pointer source, Pointer target) {
+        pointerFlowGraph.addEdge(source, target);
+    }
+
+    /**
+     * Processes a statement of a reachable method again, e.g.,
+     * to re-derive the facts deleted by incremental solving.
+     */
+    void reprocess(CSMethod csMethod, Stmt stmt) {
+        stmt.accept(new StmtProcessor(csMethod));
     }
 
     /**
@@ -0,0 +1,532 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.cs;
+
+import pascal.taie.analysis.graph.callgraph.CallKind;
+import pascal.taie.analysis.graph.callgraph.Edge;
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.element.ArrayIndex;
+import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
+import pascal.taie.analysis.pta.core.cs.element.CSManager;
+import pascal.taie.analysis.pta.core.cs.element.CSMethod;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.CSVar;
+import pascal.taie.analysis.pta.core.cs.element.InstanceField;
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.core.cs.element.StaticField;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.ir.exp.InvokeInstanceExp;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.Type;
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.collection.Maps;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Facts of a run of pointer analysis, i.e., the reachable methods,
+ * call edges, PFG edges with the facts they are derived from, and
+ * points-to sets, which are saved for incremental solving of next run.
+ * <p>
+ * Elements are identified by ids, which are their indexes in the tables
+ * of this snapshot. In the file, each element or fact takes one line
+ * starting with a tag; elements are referenced by their ids and precede
+ * the lines that reference them, and signatures, which may contain
+ * spaces, are put at the end of lines:
+ * <pre>
+ * M &lt;hash&gt; &lt;signature&gt;          method and the hash of its IR
+ * I &lt;method&gt; &lt;index&gt;            call site
+ * O &lt;method&gt; &lt;index&gt;            object, by its allocation site
+ * T &lt;name&gt;                      type
+ * C &lt;element&gt;...                context, whose elements are o/i/t&lt;id&gt;
+ * H &lt;context&gt; &lt;object&gt;          context-sensitive object
+ * P &lt;context&gt; &lt;method&gt;          context-sensitive method
+ * V &lt;cs method&gt; &lt;index&gt;         pointer of variable
+ * S &lt;signature&gt;                 pointer of static field
+ * F &lt;cs object&gt; &lt;signature&gt;     pointer of instance field
+ * A &lt;cs object&gt;                 pointer of array index
+ * R &lt;cs method&gt;                 reachable method
+ * K &lt;kind&gt; &lt;caller&gt; &lt;call site&gt; &lt;callee&gt; &lt;receiver&gt; &lt;this&gt;   call edge
+ * G &lt;source&gt; &lt;target&gt; &lt;origin&gt;...   PFG edge, whose origins are m/b/c&lt;id&gt;
+ * Q &lt;pointer&gt; &lt;cs object&gt;...     points-to set
+ * </pre>
+ * The first line holds the keys of the options and class structures
+ * of the run, and the snapshot is reusable only by the runs with
+ * the same keys.
+ */
+final class SolverSnapshot {
+
+    private static final String HEADER = "tai-e-solver-snapshot";
+
+    /**
+     * Origin of a PFG edge: statement of a context-sensitive method.
+     */
+    static final char METHOD = 'm';
+
+    /**
+     * Origin of a PFG edge: base variable of a field or array access.
+     */
+    static final char BASE = 'b';
+
+    /**
+     * Origin of a PFG edge: call edge.
+     */
+    static final char CALL = 'c';
+
+    record Site(int method, int index) {
+    }
+
+    record CSElement(int context, int element) {
+    }
+
+    /**
+     * @param kind  V, S, F or A
+     * @param base  the cs method of a variable, or the cs object of
+     *              an instance field or array index, otherwise -1
+     * @param index the index of a variable, otherwise -1
+     * @param field the signature of a field, otherwise null
+     */
+    record PointerKey(char kind, int base, int index, String field) {
+    }
+
+    /**
+     * @param receiver   the pointer of the receiver variable, or -1
+     *                   for static calls
+     * @param calleeThis the pointer of "this" variable of the callee,
+     *                   or -1 for static calls
+     */
+    record Call(CallKind kind, int caller, int site, int callee,
+                int receiver, int calleeThis) {
+    }
+
+    /**
+     * The edge is derived from each of its origins, i.e., the cs method
+     * of {@link #METHOD}, pointer of {@link #BASE}, or call of {@link #CALL}.
+     */
+    record PFGEdge(int source, int target, char[] originKinds, int[] origins) {
+    }
+
+    final String optionsKey;
+
+    final String structureKey;
+
+    final List<String> methodHashes = new ArrayList<>();
+
+    final List<String> methodSigs = new ArrayList<>();
+
+    final List<Site> sites = new ArrayList<>();
+
+    final List<Site> objs = new ArrayList<>();
+
+    final List<String> types = new ArrayList<>();
+
+    /**
+     * Elements of each context, e.g., "o3" for the object of id 3.
+     */
+    final List<String[]> contexts = new ArrayList<>();
+
+    final List<CSElement> csObjs = new ArrayList<>();
+
+    final List<CSElement> csMethods = new ArrayList<>();
+
+    final List<PointerKey> pointers = new ArrayList<>();
+
+    final List<Integer> reachable = new ArrayList<>();
+
+    final List<Call> calls = new ArrayList<>();
+
+    final List<PFGEdge> pfgEdges = new ArrayList<>();
+
+    /**
+     * Points-to sets, each of which starts with the id of its pointer,
+     * followed by the ids of the cs objects.
+     */
+    final List<int[]> pointsTo = new ArrayList<>();
+
+    private SolverSnapshot(String optionsKey, String structureKey) {
+        this.optionsKey = optionsKey;
+        this.structureKey = structureKey;
+    }
+
+    /**
+     * Reads a snapshot from given file.
+     *
+     * @return the snapshot, or null if the file does not exist.
+     * @throws AnalysisException if the file cannot be read or is malformed.
+     */
+    static SolverSnapshot read(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            String[] header = reader.readLine().split(" ");
+            if (header.length != 3 || !header[0].equals(HEADER)) {
+                throw new AnalysisException("Not a solver snapshot: " + file);
+            }
+            SolverSnapshot snapshot = new SolverSnapshot(header[1], header[2]);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                snapshot.parse(line);
+            }
+            return snapshot;
+        } catch (IOException | RuntimeException e) {
+            throw new AnalysisException("Failed to read solver snapshot from " + file, e);
+        }
+    }
+
+    private void parse(String line) {
+        char tag = line.charAt(0);
+        String[] s = line.substring(2).split(" ", tag == 'M' || tag == 'F' ? 2 : -1);
+        switch (tag) {
+            case 'M' -> {
+                methodHashes.add(s[0]);
+                methodSigs.add(s[1]);
+            }
+            case 'I' -> sites.add(new Site(toInt(s[0]), toInt(s[1])));
+            case 'O' -> objs.add(new Site(toInt(s[0]), toInt(s[1])));
+            case 'T' -> types.add(s[0]);
+            case 'C' -> contexts.add(s[0].isEmpty() ? new String[0] : s);
+            case 'H' -> csObjs.add(new CSElement(toInt(s[0]), toInt(s[1])));
+            case 'P' -> csMethods.add(new CSElement(toInt(s[0]), toInt(s[1])));
+            case 'V' -> pointers.add(new PointerKey(tag, toInt(s[0]), toInt(s[1]), null));
+            case 'S' -> pointers.add(new PointerKey(tag, -1, -1, line.substring(2)));
+            case 'F' -> pointers.add(new PointerKey(tag, toInt(s[0]), -1, s[1]));
+            case 'A' -> pointers.add(new PointerKey(tag, toInt(s[0]), -1, null));
+            case 'R' -> reachable.add(toInt(s[0]));
+            case 'K' -> calls.add(new Call(CallKind.valueOf(s[0]), toInt(s[1]),
+                    toInt(s[2]), toInt(s[3]), toInt(s[4]), toInt(s[5])));
+            case 'G' -> {
+                char[] kinds = new char[s.length - 2];
+                int[] origins = new int[s.length - 2];
+                for (int i = 2; i < s.length; ++i) {
+                    kinds[i - 2] = s[i].charAt(0);
+                    origins[i - 2] = toInt(s[i].substring(1));
+                }
+                pfgEdges.add(new PFGEdge(toInt(s[0]), toInt(s[1]), kinds, origins));
+            }
+            case 'Q' -> {
+                int[] pts = new int[s.length];
+                for (int i = 0; i < s.length; ++i) {
+                    pts[i] = toInt(s[i]);
+                }
+                pointsTo.add(pts);
+            }
+            default -> throw new AnalysisException("Unexpected line: " + line);
+        }
+    }
+
+    private static int toInt(String s) {
+        return Integer.parseInt(s);
+    }
+
+    /**
+     * Writes this snapshot to given file.
+     */
+    void write(Path file) {
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            try (BufferedWriter writer = Files.newBufferedWriter(file);
+                 PrintWriter out = new PrintWriter(writer)) {
+                out.println(HEADER + " " + optionsKey + " " + structureKey);
+                for (int i = 0; i < methodSigs.size(); ++i) {
+                    out.println("M " + methodHashes.get(i) + " " + methodSigs.get(i));
+                }
+                sites.forEach(s -> out.println("I " + s.method() + " " + s.index()));
+                objs.forEach(s -> out.println("O " + s.method() + " " + s.index()));
+                types.forEach(t -> out.println("T " + t));
+                contexts.forEach(c -> out.println("C " + String.join(" ", c)));
+                csObjs.forEach(e -> out.println("H " + e.context() + " " + e.element()));
+                csMethods.forEach(e -> out.println("P " + e.context() + " " + e.element()));
+                pointers.forEach(p -> out.println(switch (p.kind()) {
+                    case 'V' -> "V " + p.base() + " " + p.index();
+                    case 'S' -> "S " + p.field();
+                    case 'F' -> "F " + p.base() + " " + p.field();
+                    default -> "A " + p.base();
+                }));
+                reachable.forEach(m -> out.println("R " + m));
+                calls.forEach(c -> out.println("K " + c.kind() + " " + c.caller()
+                        + " " + c.site() + " " + c.callee() + " " + c.receiver()
+                        + " " + c.calleeThis()));
+                for (PFGEdge edge : pfgEdges) {
+                    StringBuilder sb = new StringBuilder("G ")
+                            .append(edge.source()).append(' ').append(edge.target());
+                    for (int i = 0; i < edge.origins().length; ++i) {
+                        sb.append(' ').append(edge.originKinds()[i])
+                                .append(edge.origins()[i]);
+                    }
+                    out.println(sb);
+                }
+                for (int[] pts : pointsTo) {
+                    StringBuilder sb = new StringBuilder("Q");
+                    for (int id : pts) {
+                        sb.append(' ').append(id);
+                    }
+                    out.println(sb);
+                }
+                if (out.checkError()) {
+                    throw new IOException("Failed to write " + file);
+                }
+            }
+        } catch (IOException e) {
+            throw new AnalysisException("Failed to write solver snapshot to " + file, e);
+        }
+    }
+
+    /**
+     * Encodes the elements and facts of a run of the solver to a snapshot.
+     */
+    static class Encoder {
+
+        private final SolverSnapshot snapshot;
+
+        private final CSManager csManager;
+
+        /**
+         * Allocation sites of the objects.
+         */
+        private final Map<Obj, New> allocSites;
+
+        private final Map<JMethod, Integer> methodIds = Maps.newMap();
+
+        private final Map<Invoke, Integer> siteIds = Maps.newMap();
+
+        private final Map<Obj, Integer> objIds = Maps.newMap();
+
+        private final Map<Type, Integer> typeIds = Maps.newMap();
+
+        private final Map<Context, Integer> contextIds = Maps.newMap();
+
+        private final Map<CSObj, Integer> csObjIds = Maps.newMap();
+
+        private final Map<CSMethod, Integer> csMethodIds = Maps.newMap();
+
+        private final Map<Pointer, Integer> pointerIds = Maps.newMap();
+
+        private final Map<Edge<CSCallSite, CSMethod>, Integer> callIds = Maps.newMap();
+
+        Encoder(String optionsKey, String structureKey,
+                CSManager csManager, Map<Obj, New> allocSites) {
+            this.snapshot = new SolverSnapshot(optionsKey, structureKey);
+            this.csManager = csManager;
+            this.allocSites = allocSites;
+        }
+
+        SolverSnapshot getSnapshot() {
+            return snapshot;
+        }
+
+        void addReachable(CSMethod csMethod) {
+            snapshot.reachable.add(csMethod(csMethod));
+        }
+
+        void addCallEdge(Edge<CSCallSite, CSMethod> edge) {
+            call(edge);
+        }
+
+        void addPFGEdge(Pointer source, Pointer target, Set<Object> origins) {
+            char[] kinds = new char[origins.size()];
+            int[] ids = new int[origins.size()];
+            int i = 0;
+            for (Object origin : origins) {
+                if (origin instanceof CSMethod csMethod) {
+                    kinds[i] = METHOD;
+                    ids[i] = csMethod(csMethod);
+                } else if (origin instanceof Pointer base) {
+                    kinds[i] = BASE;
+                    ids[i] = pointer(base);
+                } else {
+                    @SuppressWarnings("unchecked")
+                    var edge = (Edge<CSCallSite, CSMethod>) origin;
+                    kinds[i] = CALL;
+                    ids[i] = call(edge);
+                }
+                ++i;
+            }
+            snapshot.pfgEdges.add(new PFGEdge(pointer(source), pointer(target), kinds, ids));
+        }
+
+        void addPointsTo(Pointer pointer) {
+            int[] pts = new int[pointer.getPointsToSet().size() + 1];
+            pts[0] = pointer(pointer);
+            int i = 0;
+            for (CSObj obj : pointer.getPointsToSet()) {
+                pts[++i] = csObj(obj);
+            }
+            snapshot.pointsTo.add(pts);
+        }
+
+        private int method(JMethod method) {
+            Integer id = methodIds.get(method);
+            if (id == null) {
+                id = methodIds.size();
+                methodIds.put(method, id);
+                snapshot.methodHashes.add(MethodFingerprints.hash(method));
+                snapshot.methodSigs.add(method.getSignature());
+            }
+            return id;
+        }
+
+        private int site(Invoke invoke) {
+            Integer id = siteIds.get(invoke);
+            if (id == null) {
+                Site site = new Site(method(invoke.getContainer()), invoke.getIndex());
+                id = siteIds.size();
+                siteIds.put(invoke, id);
+                snapshot.sites.add(site);
+            }
+            return id;
+        }
+
+        private int obj(Obj obj) {
+            Integer id = objIds.get(obj);
+            if (id == null) {
+                New allocSite = allocSites.get(obj);
+                if (allocSite == null) {
+                    throw new AnalysisException("Unknown allocation site of " + obj);
+                }
+                Site site = new Site(method(allocSite.getContainer()), allocSite.getIndex());
+                id = objIds.size();
+                objIds.put(obj, id);
+                snapshot.objs.add(site);
+            }
+            return id;
+        }
+
+        private int type(Type type) {
+            Integer id = typeIds.get(type);
+            if (id == null) {
+                id = typeIds.size();
+                typeIds.put(type, id);
+                snapshot.types.add(type.getName());
+            }
+            return id;
+        }
+
+        private int context(Context context) {
+            Integer id = contextIds.get(context);
+            if (id == null) {
+                String[] elems = new String[context.getLength()];
+                for (int i = 0; i < elems.length; ++i) {
+                    Object elem = context.getElementAt(i);
+                    if (elem instanceof Obj obj) {
+                        elems[i] = "o" + obj(obj);
+                    } else if (elem instanceof Invoke invoke) {
+                        elems[i] = "i" + site(invoke);
+                    } else if (elem instanceof Type type) {
+                        elems[i] = "t" + type(type);
+                    } else {
+                        throw new AnalysisException("Unexpected context element: " + elem);
+                    }
+                }
+                id = contextIds.size();
+                contextIds.put(context, id);
+                snapshot.contexts.add(elems);
+            }
+            return id;
+        }
+
+        private int csObj(CSObj csObj) {
+            Integer id = csObjIds.get(csObj);
+            if (id == null) {
+                CSElement e = new CSElement(context(csObj.getContext()),
+                        obj(csObj.getObject()));
+                id = csObjIds.size();
+                csObjIds.put(csObj, id);
+                snapshot.csObjs.add(e);
+            }
+            return id;
+        }
+
+        private int csMethod(CSMethod csMethod) {
+            Integer id = csMethodIds.get(csMethod);
+            if (id == null) {
+                CSElement e = new CSElement(context(csMethod.getContext()),
+                        method(csMethod.getMethod()));
+                id = csMethodIds.size();
+                csMethodIds.put(csMethod, id);
+                snapshot.csMethods.add(e);
+            }
+            return id;
+        }
+
+        private int pointer(Pointer pointer) {
+            Integer id = pointerIds.get(pointer);
+            if (id == null) {
+                PointerKey key;
+                if (pointer instanceof CSVar csVar) {
+                    Var var = csVar.getVar();
+                    key = new PointerKey('V', csMethod(csManager.getCSMethod(
+                            csVar.getContext(), var.getMethod())), var.getIndex(), null);
+                } else if (pointer instanceof StaticField sfield) {
+                    key = new PointerKey('S', -1, -1, sfield.getField().getSignature());
+                } else if (pointer instanceof InstanceField ifield) {
+                    key = new PointerKey('F', csObj(ifield.getBase()), -1,
+                            ifield.getField().getSignature());
+                } else {
+                    key = new PointerKey('A', csObj(((ArrayIndex) pointer).getArray()),
+                            -1, null);
+                }
+                id = pointerIds.size();
+                pointerIds.put(pointer, id);
+                snapshot.pointers.add(key);
+            }
+            return id;
+        }
+
+        private int call(Edge<CSCallSite, CSMethod> edge) {
+            Integer id = callIds.get(edge);
+            if (id == null) {
+                CSCallSite csCallSite = edge.getCallSite();
+                Context context = csCallSite.getContext();
+                Invoke invoke = csCallSite.getCallSite();
+                CSMethod callee = edge.getCallee();
+                int receiver = -1;
+                int calleeThis = -1;
+                if (invoke.getInvokeExp() instanceof InvokeInstanceExp exp) {
+                    receiver = pointer(csManager.getCSVar(context, exp.getBase()));
+                    calleeThis = pointer(csManager.getCSVar(callee.getContext(),
+                            callee.getMethod().getIR().getThis()));
+                }
+                Call call = new Call(edge.getKind(),
+                        csMethod(csManager.getCSMethod(context, invoke.getContainer())),
+                        site(invoke), csMethod(callee), receiver, calleeThis);
+                id = callIds.size();
+                callIds.put(edge, id);
+                snapshot.calls.add(call);
+            }
+            return id;
+        }
+    }
+}
@@ -35,11 +35,15 @@ class WorkList {
 
     private final Queue<Entry> entries = new ArrayDeque<>();
 
+    private boolean stopped = false;
+
     /**
      * Adds an entry to the work list.
      */
     void addEntry(Pointer pointer, PointsToSet pointsToSet) {
-        entries.add(new Entry(pointer, pointsToSet));
+        if (!stopped) {
+            entries.add(new Entry(pointer, pointsToSet));
+        }
     }
 
     /**
@@ -57,6 +61,15 @@ class WorkList {
         return entries.isEmpty();
     }
 
+    /**
+     * Removes all entries from the work list, and ignores
+     * the entries added afterwards.
+     */
+    void stop() {
+        stopped = true;
+        entries.clear();
+    }
+
     /**
      * Represents entries in the work list.
      * Each entry consists of a pointer and a points-to set.
@@ -26,12 +26,16 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import pascal.taie.analysis.pta.PointerAnalysisResult;
 import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.cs.BudgetMonitor;
+import pascal.taie.analysis.pta.cs.PointerFlowGraph;
+import pascal.taie.analysis.pta.plugin.taint.TaintAnalysiss;
 import pascal.taie.analysis.pta.plugin.taint.TaintFlow;
 import pascal.taie.analysis.pta.pts.PointsToSet;
 import pascal.taie.config.AnalysisOptions;
 import pascal.taie.util.AnalysisException;
 import pascal.taie.util.collection.Streams;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
@@ -80,7 +84,7 @@ public class ResultProcessor {
             return;
         }
         String file = options.getString("file");
-        boolean taintEnabled = options.getString("taint-config") != null;
+        boolean taintEnabled = TaintAnalysiss.isEnabled(options);
         switch (action) {
             case "dump":
                 dumpPointsToSet(result, file, taintEnabled);
@@ -125,6 +129,21 @@ public class ResultProcessor {
                 format(reachableInsens), format(reachableSens));
         System.out.printf("%-30s%s (insens) / %s (sens)%n", "#call graph edges:",
                 format(callEdgeInsens), format(callEdgeSens));
+        PointerFlowGraph.Stats pfg =
+                result.getResult(PointerFlowGraph.Stats.class.getName());
+        if (pfg != null) {
+            System.out.printf("%-30s%s%n", "#PFG nodes:", format(pfg.nodes()));
+            System.out.printf("%-30s%s%n", "#PFG edges:", format(pfg.edges()));
+            System.out.printf("%-30s%s%n", "PFG memory (bytes):",
+                    formatter.format(pfg.memoryFootprint()));
+        }
+        List<BudgetMonitor.Degradation> degradations =
+                result.getResult(BudgetMonitor.class.getName(), List.of());
+        for (BudgetMonitor.Degradation d : degradations) {
+            System.out.printf("%-30s%s at %,d ms (%s CS elements, %.0f%% heap)%n",
+                    "#budget exceeded:", d.kind(), d.elapsedMillis(),
+                    formatter.format(d.csElements()), d.heapFraction() * 100);
+        }
         System.out.println("----------------------------------------");
     }
 
@@ -224,27 +243,38 @@ public class ResultProcessor {
 
     private static void dumpTaintFlows(PrintStream out, PointerAnalysisResult result) {
         Set<TaintFlow> taintFlows = getTaintFlows(result);
+        if (taintFlows == null) {
+            out.println("Taint analysis result is absent");
+            out.println();
+            return;
+        }
         out.printf("Detected %d taint flow(s):%n", taintFlows.size());
-        taintFlows.forEach(out::println);
+        // the flows are not necessarily kept in order
+        taintFlows.stream().sorted().forEach(out::println);
         out.println();
     }
 
     /**
-     * @return taint analysis result.
+     * @return taint analysis result, or null if it is absent.
      */
+    @Nullable
     private static Set<TaintFlow> getTaintFlows(PointerAnalysisResult result) {
         for (String key : result.getKeys()) {
             if (key.contains("Taint")) { // adapt different taint analyses
                 return result.getResult(key);
             }
         }
-        throw new AnalysisException("Taint analysis result is absent");
+        return null;
     }
 
     private static void compareTaintFlows(PointerAnalysisResult result, String input) {
         logger.info("Comparing taint flows with {} ...", input);
         List<String> inputs = readTaintFlows(input);
-        List<String> taintFlows = getTaintFlows(result)
+        Set<TaintFlow> flows = getTaintFlows(result);
+        if (flows == null) {
+            throw new AnalysisException("Taint analysis result is absent");
+        }
+        List<String> taintFlows = flows
                 .stream()
                 .map(TaintFlow::toString)
                 .collect(Collectors.toList());
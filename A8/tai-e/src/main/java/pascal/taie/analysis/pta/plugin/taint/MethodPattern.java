@@ -0,0 +1,222 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.plugin.taint;
+
+import pascal.taie.config.ConfigException;
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.Type;
+import pascal.taie.util.collection.Sets;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Pattern of method signatures in taint config, which is of the form
+ * <pre>
+ * &lt;CLASS: RETURN NAME(PARAM,...)&gt;
+ * </pre>
+ * where
+ * <ul>
+ *     <li>{@code *} in CLASS, RETURN, NAME and PARAM matches any sequence
+ *     of characters, e.g., {@code java.sql.*} and {@code execute*};
+ *     <li>CLASS ending with {@code +} also matches all subclasses,
+ *     subinterfaces and implementors of the classes, so that the pattern
+ *     covers all overriders of the methods, e.g., {@code java.sql.Statement+};
+ *     <li>PARAM {@code ..} matches any number of parameters.
+ * </ul>
+ * Patterns are compiled once against the class hierarchy to the methods
+ * they match, so that looking up rules during analysis stays unchanged.
+ */
+final class MethodPattern {
+
+    private static final String ANY_PARAMS = "..";
+
+    private final String pattern;
+
+    private final String classGlob;
+
+    private final Pattern classPattern;
+
+    private final boolean includesSubclasses;
+
+    private final Pattern returnPattern;
+
+    private final Pattern namePattern;
+
+    private final List<Pattern> paramPatterns;
+
+    private MethodPattern(String pattern) {
+        this.pattern = pattern;
+        String s = pattern.trim();
+        int colon = s.indexOf(':');
+        int lparen = s.indexOf('(');
+        int rparen = s.lastIndexOf(')');
+        if (!s.startsWith("<") || !s.endsWith(">") ||
+                colon < 0 || lparen < colon || rparen < lparen) {
+            throw new ConfigException("Invalid method pattern: " + pattern);
+        }
+        String classPart = s.substring(1, colon).trim();
+        includesSubclasses = classPart.endsWith("+");
+        if (includesSubclasses) {
+            classPart = classPart.substring(0, classPart.length() - 1);
+        }
+        classGlob = classPart;
+        classPattern = toRegex(classPart);
+        String[] retAndName = s.substring(colon + 1, lparen).trim().split("\\s+");
+        if (retAndName.length != 2) {
+            throw new ConfigException("Invalid method pattern: " + pattern);
+        }
+        returnPattern = toRegex(retAndName[0]);
+        namePattern = toRegex(retAndName[1]);
+        String params = s.substring(lparen + 1, rparen).trim();
+        paramPatterns = params.isEmpty() ? List.of() :
+                Arrays.stream(params.split(","))
+                        .map(String::trim)
+                        .map(p -> p.equals(ANY_PARAMS) ? null : toRegex(p))
+                        .toList();
+    }
+
+    /**
+     * @return true if given method signature in taint config is a pattern.
+     */
+    static boolean isPattern(String signature) {
+        return signature.indexOf('*') >= 0 || signature.contains("+:")
+                || signature.contains(ANY_PARAMS);
+    }
+
+    static MethodPattern parse(String pattern) {
+        return new MethodPattern(pattern);
+    }
+
+    /**
+     * @return the methods in given class hierarchy matched by this pattern.
+     */
+    List<JMethod> match(ClassHierarchy hierarchy) {
+        List<JMethod> result = new ArrayList<>();
+        for (JClass jclass : getClasses(hierarchy)) {
+            for (JMethod method : jclass.getDeclaredMethods()) {
+                if (matches(method)) {
+                    result.add(method);
+                }
+            }
+        }
+        return result;
+    }
+
+    private Set<JClass> getClasses(ClassHierarchy hierarchy) {
+        Set<JClass> classes = Sets.newHybridSet();
+        if (classGlob.indexOf('*') < 0) {
+            JClass jclass = hierarchy.getClass(classGlob);
+            if (jclass != null) {
+                classes.add(jclass);
+            }
+        } else {
+            hierarchy.allClasses()
+                    .filter(c -> classPattern.matcher(c.getName()).matches())
+                    .forEach(classes::add);
+        }
+        if (includesSubclasses) {
+            Deque<JClass> workList = new ArrayDeque<>(classes);
+            while (!workList.isEmpty()) {
+                JClass jclass = workList.poll();
+                for (JClass sub : getDirectSubtypesOf(hierarchy, jclass)) {
+                    if (classes.add(sub)) {
+                        workList.add(sub);
+                    }
+                }
+            }
+        }
+        return classes;
+    }
+
+    private static List<JClass> getDirectSubtypesOf(ClassHierarchy hierarchy, JClass jclass) {
+        List<JClass> subtypes = new ArrayList<>();
+        if (jclass.isInterface()) {
+            subtypes.addAll(hierarchy.getDirectSubinterfacesOf(jclass));
+            subtypes.addAll(hierarchy.getDirectImplementorsOf(jclass));
+        } else {
+            subtypes.addAll(hierarchy.getDirectSubclassesOf(jclass));
+        }
+        return subtypes;
+    }
+
+    private boolean matches(JMethod method) {
+        return namePattern.matcher(method.getName()).matches()
+                && matches(returnPattern, method.getReturnType())
+                && matchesParams(method.getParamTypes(), 0, 0);
+    }
+
+    private boolean matchesParams(List<Type> types, int i, int j) {
+        if (j == paramPatterns.size()) {
+            return i == types.size();
+        }
+        Pattern p = paramPatterns.get(j);
+        if (p == null) { // ".." matches zero or more parameters
+            for (int k = i; k <= types.size(); ++k) {
+                if (matchesParams(types, k, j + 1)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return i < types.size() && matches(p, types.get(i))
+                && matchesParams(types, i + 1, j + 1);
+    }
+
+    private static boolean matches(Pattern pattern, Type type) {
+        return pattern.matcher(type.getName()).matches();
+    }
+
+    /**
+     * Converts a glob, where {@code *} matches any sequence of characters,
+     * to a regular expression.
+     */
+    private static Pattern toRegex(String glob) {
+        StringBuilder sb = new StringBuilder();
+        int start = 0;
+        for (int i = glob.indexOf('*'); i >= 0; i = glob.indexOf('*', start)) {
+            if (i > start) {
+                sb.append(Pattern.quote(glob.substring(start, i)));
+            }
+            sb.append(".*");
+            start = i + 1;
+        }
+        if (start < glob.length() || sb.isEmpty()) {
+            sb.append(Pattern.quote(glob.substring(start)));
+        }
+        return Pattern.compile(sb.toString());
+    }
+
+    @Override
+    public String toString() {
+        return pattern;
+    }
+}
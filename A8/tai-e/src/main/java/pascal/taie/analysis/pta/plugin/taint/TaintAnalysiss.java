@@ -25,22 +25,60 @@ package pascal.taie.analysis.pta.plugin.taint;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import pascal.taie.World;
-import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.graph.callgraph.CallGraphs;
+import pascal.taie.analysis.graph.callgraph.Edge;
 import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
 import pascal.taie.analysis.pta.core.cs.element.CSManager;
+import pascal.taie.analysis.pta.core.cs.element.CSMethod;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.CSVar;
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.core.heap.Obj;
 import pascal.taie.analysis.pta.cs.Solver;
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Sets;
 
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.TreeSet;
+import java.util.function.Consumer;
 
 public class TaintAnalysiss {
 
+    /**
+     * Key of the taint flows of each configuration in the result
+     * of pointer analysis, which is stored only when multiple
+     * configurations are given.
+     */
+    public static final String FLOWS_BY_CONFIG = "taint-flows-by-config";
+
     private static final Logger logger = LogManager.getLogger(TaintAnalysiss.class);
 
     private final TaintManager manager;
 
-    private final TaintConfig config;
+    /**
+     * Taint configurations, each of which is identified by its index.
+     */
+    private final List<TaintConfig> configs = new ArrayList<>();
+
+    /**
+     * Ids of the configurations, i.e., the names of the config files.
+     */
+    private final List<String> configIds = new ArrayList<>();
+
+    private final TaintRules rules;
+
+    private final TaintPropagator propagator;
+
+    private final TaintFlowReporter reporter;
 
     private final Solver solver;
 
@@ -49,29 +87,202 @@ public class TaintAnalysiss {
     private final Context emptyContext;
 
     public TaintAnalysiss(Solver solver) {
-        manager = new TaintManager();
         this.solver = solver;
         csManager = solver.getCSManager();
         emptyContext = solver.getContextSelector().getEmptyContext();
-        config = TaintConfig.readConfig(
-                solver.getOptions().getString("taint-config"),
-                World.get().getClassHierarchy(),
-                World.get().getTypeSystem());
-        logger.info(config);
+        for (String path : getConfigPaths(solver.getOptions())) {
+            TaintConfig config = TaintConfig.readConfig(path,
+                    World.get().getClassHierarchy(),
+                    World.get().getTypeSystem(),
+                    solver.getOptions().getString("taint-config-cache"));
+            logger.info(config);
+            configs.add(config);
+            String id = Path.of(path).getFileName().toString()
+                    .replaceFirst("\\.ya?ml$", "");
+            configIds.add(configIds.contains(id) ? id + "#" + configIds.size() : id);
+        }
+        manager = new TaintManager(configs.size());
+        rules = new TaintRules(configs);
+        Object maxFlows = solver.getOptions().get("taint-max-flows");
+        reporter = new TaintFlowReporter(configs.size(),
+                getFlowWriters(solver.getOptions()),
+                maxFlows instanceof Number n ? n.intValue() : 0,
+                () -> {
+                    logger.info("Reached the limit of taint flows, stop solving");
+                    solver.stop();
+                });
+        // provenance is tracked only when its limit is given
+        Object provenanceLimit = solver.getOptions().get("taint-provenance-limit");
+        TaintProvenance provenance = provenanceLimit instanceof Number n
+                && n.intValue() > 0 ? new TaintProvenance(n.intValue()) : null;
+        propagator = new TaintPropagator(solver.getPointerFlowGraph(),
+                csManager, manager, rules, reporter::report, provenance,
+                this::resolveTaintCall);
     }
 
-    // TODO - finish me
+    /**
+     * @return true if given options contain any taint configuration,
+     * otherwise the taint analysis should not be created.
+     */
+    public static boolean isEnabled(AnalysisOptions options) {
+        return !getConfigPaths(options).isEmpty();
+    }
 
-    public void onFinish() {
-        Set<TaintFlow> taintFlows = collectTaintFlows();
-        solver.getResult().storeResult(getClass().getName(), taintFlows);
+    /**
+     * Option "taint-config" is either a list of paths, or a string
+     * of comma-separated paths.
+     *
+     * @return the paths of configurations, or an empty list if
+     * the option is absent.
+     */
+    private static List<String> getConfigPaths(AnalysisOptions options) {
+        Object value = options.get("taint-config");
+        if (value == null) {
+            return List.of();
+        }
+        if (value instanceof List<?> list) {
+            return list.stream().map(Object::toString).toList();
+        }
+        return Arrays.stream(value.toString().split(","))
+                .map(String::trim)
+                .filter(path -> !path.isEmpty())
+                .toList();
+    }
+
+    /**
+     * Option "taint-flow-file" gives the file of flows in JSON Lines
+     * format, and option "taint-sarif-file" gives the file of flows
+     * in SARIF format.
+     */
+    private List<TaintFlowWriter> getFlowWriters(AnalysisOptions options) {
+        List<TaintFlowWriter> writers = new ArrayList<>();
+        String jsonLinesFile = options.getString("taint-flow-file");
+        if (jsonLinesFile != null) {
+            writers.add(TaintFlowWriter.jsonLines(jsonLinesFile, configIds));
+        }
+        String sarifFile = options.getString("taint-sarif-file");
+        if (sarifFile != null) {
+            writers.add(TaintFlowWriter.sarif(sarifFile, configIds));
+        }
+        return writers;
+    }
+
+    /**
+     * Adds a listener which is notified of each taint flow
+     * as soon as it is detected during solving.
+     */
+    public void addFlowListener(Consumer<TaintFlow> listener) {
+        reporter.addListener(listener);
+    }
+
+    /**
+     * Handles a new call edge discovered by the solver: generates taint
+     * objects if the callee is a source, adds taint transfer edges
+     * if the callee transfers taint, and cuts the PFG edges of the call
+     * edge if the callee is a sanitizer. This must be called before
+     * the solver adds the PFG edges of the call edge.
+     */
+    public void onNewCallEdge(Edge<CSCallSite, CSMethod> edge) {
+        TaintRules.MethodRules r = rules.get(edge.getCallee().getMethod());
+        if (r == null) {
+            return;
+        }
+        Invoke callSite = edge.getCallSite().getCallSite();
+        Context context = edge.getCallSite().getContext();
+        Var lhs = callSite.getLValue();
+        if (r.isSource() && lhs != null) {
+            Set<Obj> taints = Sets.newHybridSet();
+            for (int i = 0; i < r.sourceTypes().length; ++i) {
+                taints.add(manager.makeTaint(
+                        r.sourceConfigs()[i], callSite, r.sourceTypes()[i]));
+            }
+            propagator.addTaints(csManager.getCSVar(context, lhs), taints);
+        }
+        if (r.hasTransfers()) {
+            propagator.addTransfers(context, callSite, r);
+        }
+        if (r.isSanitizer()) {
+            propagator.addSanitizers(context, callSite, edge.getCallee(), r);
+        }
+        for (int i = 0; i < r.sinkIndexes().length; ++i) {
+            int index = r.sinkIndexes()[i];
+            Var arg = callSite.getInvokeExp().getArg(index);
+            propagator.addSink(csManager.getCSVar(context, arg),
+                    callSite, index, r.sinkConfigs()[i]);
+        }
+    }
+
+    /**
+     * Resolves a call on a taint object, which is not resolved by
+     * the solver as taint objects are not in points-to sets: selects
+     * the context of the callee with the taint object as receiver,
+     * adds the call edge to the solver, and handles the taint rules
+     * of the callee.
+     */
+    private CSMethod resolveTaintCall(CSCallSite csCallSite, Obj taint,
+                                      JMethod callee) {
+        CSObj recv = csManager.getCSObj(emptyContext, taint);
+        Context context = solver.getContextSelector()
+                .selectContext(csCallSite, recv, callee);
+        CSMethod csCallee = csManager.getCSMethod(context, callee);
+        Edge<CSCallSite, CSMethod> edge = new Edge<>(
+                CallGraphs.getCallKind(csCallSite.getCallSite()),
+                csCallSite, csCallee);
+        if (solver.addCallEdge(edge)) {
+            onNewCallEdge(edge);
+        }
+        return csCallee;
     }
 
-    private Set<TaintFlow> collectTaintFlows() {
-        Set<TaintFlow> taintFlows = new TreeSet<>();
-        PointerAnalysisResult result = solver.getResult();
-        // TODO - finish me
-        // You could query pointer analysis results you need via variable result.
-        return taintFlows;
+    /**
+     * Handles a new PFG edge added by the solver, i.e.,
+     * propagates taint objects along the edge.
+     */
+    public void onNewPFGEdge(Pointer source, Pointer target) {
+        propagator.onNewPFGEdge(source, target);
+    }
+
+    /**
+     * Reconstructs the shortest recorded path of given taint flow.
+     * Option "taint-provenance-limit" must be given to record the paths.
+     *
+     * @return the pointers on the path from the result variable of the
+     * source call to the sensitive argument of the sink call, or an empty
+     * list if the path is not recorded.
+     */
+    public List<Pointer> getWitnessPath(TaintFlow flow) {
+        Var arg = flow.sinkCall().getInvokeExp().getArg(flow.index());
+        List<Pointer> shortest = List.of();
+        for (CSVar csArg : csManager.getCSVarsOf(arg)) {
+            for (Obj obj : propagator.getTaints(csArg)) {
+                if (manager.getSourceCall(obj).equals(flow.sourceCall())) {
+                    List<Pointer> path = propagator.getPath(csArg, obj);
+                    if (!path.isEmpty() &&
+                            (shortest.isEmpty() || path.size() < shortest.size())) {
+                        shortest = path;
+                    }
+                }
+            }
+        }
+        return shortest;
+    }
+
+    public void onFinish() {
+        reporter.close();
+        logger.info("#taint propagations cut by sanitizers: {}",
+                propagator.getCutPropagations());
+        if (reporter.hasWriters()) {
+            logger.info("#taint flows written: {}", reporter.getNumberOfFlows());
+        }
+        // the reported flows are kept compactly by the reporter, thus
+        // they are stored as the result even if they are written to files
+        solver.getResult().storeResult(getClass().getName(), reporter.getFlows());
+        if (configs.size() > 1) {
+            Map<String, Set<TaintFlow>> flowsByConfig = new LinkedHashMap<>();
+            for (int i = 0; i < configs.size(); ++i) {
+                flowsByConfig.put(configIds.get(i), reporter.getFlows(i));
+            }
+            solver.getResult().storeResult(FLOWS_BY_CONFIG, flowsByConfig);
+        }
     }
 }
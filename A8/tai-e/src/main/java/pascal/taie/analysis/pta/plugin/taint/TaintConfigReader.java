@@ -0,0 +1,403 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.plugin.taint;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.World;
+import pascal.taie.config.ConfigException;
+import pascal.taie.config.Options;
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.classes.StringReps;
+import pascal.taie.language.classes.Subsignature;
+import pascal.taie.language.type.Type;
+import pascal.taie.language.type.TypeSystem;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Reads {@link TaintConfig} from YAML files.
+ * <p>
+ * The file is parsed by a streaming parser into raw entries, i.e.,
+ * maps from field names to scalar values, grouped by sections
+ * (sources, sinks, ...). Then the method signatures of all entries are
+ * resolved in batch, grouped by their declaring classes, so that each
+ * class is looked up only once, and the method patterns
+ * (see {@link MethodPattern}) are expanded to the methods they match.
+ * <p>
+ * If a cache directory is given, the entries whose methods are resolved
+ * are stored in a binary file whose name is derived from the hash of
+ * the YAML content and the class path, and are loaded from the file
+ * instead of parsing the YAML next time. The class path is hashed by
+ * the paths, sizes and modification times of its files, so that
+ * computing the key reads no class files.
+ */
+final class TaintConfigReader {
+
+    private static final Logger logger = LogManager.getLogger(TaintConfigReader.class);
+
+    private static final int MAGIC = 0x54435243; // "TCRC"
+
+    private static final int VERSION = 2;
+
+    /**
+     * Raw entries of each section.
+     */
+    private final Map<String, List<Map<String, String>>> sections = new LinkedHashMap<>();
+
+    private final Map<String, JMethod> methods = Maps.newMap();
+
+    private final Map<String, Type> types = Maps.newMap();
+
+    private final TypeSystem typeSystem;
+
+    private TaintConfigReader(TypeSystem typeSystem) {
+        this.typeSystem = typeSystem;
+    }
+
+    /**
+     * @throws ConfigException if failed to read the config file
+     */
+    static TaintConfig read(String path, ClassHierarchy hierarchy,
+                            TypeSystem typeSystem, @Nullable String cacheDir) {
+        File file = new File(path);
+        TaintConfigReader reader = new TaintConfigReader(typeSystem);
+        try {
+            byte[] content = Files.readAllBytes(file.toPath());
+            Path cacheFile = cacheDir != null ?
+                    Path.of(cacheDir, computeKey(content) + ".bin") : null;
+            if (cacheFile == null || !reader.load(cacheFile)) {
+                reader.parse(content);
+                reader.resolveMethods(hierarchy);
+                if (cacheFile != null) {
+                    reader.store(cacheFile);
+                }
+            } else {
+                reader.resolveMethods(hierarchy);
+            }
+        } catch (IOException e) {
+            throw new ConfigException("Failed to read taint analysis config file " + file, e);
+        }
+        return reader.build();
+    }
+
+    /**
+     * Parses YAML content into raw entries without building a tree
+     * of the whole document.
+     */
+    private void parse(byte[] content) throws IOException {
+        try (JsonParser p = new YAMLFactory().createParser(content)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) {
+                return; // empty document
+            }
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String section = p.getCurrentName();
+                if (p.nextToken() != JsonToken.START_ARRAY) {
+                    p.skipChildren();
+                    continue;
+                }
+                List<Map<String, String>> entries = getEntries(section);
+                JsonToken token;
+                while ((token = p.nextToken()) != JsonToken.END_ARRAY) {
+                    if (token == JsonToken.START_OBJECT) {
+                        entries.add(readFields(p));
+                    } else {
+                        p.skipChildren();
+                    }
+                }
+            }
+        }
+    }
+
+    private static Map<String, String> readFields(JsonParser p) throws IOException {
+        Map<String, String> fields = Maps.newHybridMap();
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String name = p.getCurrentName();
+            JsonToken value = p.nextToken();
+            if (value.isScalarValue()) {
+                fields.put(name, p.getText());
+            } else {
+                p.skipChildren();
+            }
+        }
+        return fields;
+    }
+
+    private List<Map<String, String>> getEntries(String section) {
+        return sections.computeIfAbsent(section, s -> new ArrayList<>());
+    }
+
+    /**
+     * Resolves the methods of all entries in batch, and removes
+     * the entries whose methods are absent in the class hierarchy.
+     * The entries whose methods are given as {@link MethodPattern}s are
+     * expanded to the entries of the matched methods.
+     */
+    private void resolveMethods(ClassHierarchy hierarchy) {
+        List<String> missing = new ArrayList<>();
+        expandPatterns(hierarchy, missing);
+        Map<String, Set<String>> sigsByClass = new LinkedHashMap<>();
+        sections.values().forEach(entries -> entries.forEach(entry -> {
+            String sig = entry.get("method");
+            if (sig != null && !methods.containsKey(sig)) {
+                sigsByClass.computeIfAbsent(StringReps.getClassNameOf(sig),
+                        c -> Sets.newHybridSet()).add(sig);
+            }
+        }));
+        sigsByClass.forEach((className, sigs) -> {
+            JClass jclass = hierarchy.getClass(className);
+            for (String sig : sigs) {
+                JMethod method = jclass != null ? jclass.getDeclaredMethod(
+                        Subsignature.get(StringReps.getSubsignatureOf(sig))) : null;
+                if (method != null) {
+                    methods.put(sig, method);
+                } else {
+                    missing.add(sig);
+                }
+            }
+        });
+        if (!missing.isEmpty()) {
+            // if the methods (given in config file) are absent in
+            // the class hierarchy, just ignore them.
+            logger.warn("Cannot find {} method(s) in taint config", missing.size());
+            missing.forEach(sig -> logger.debug("Cannot find method '{}'", sig));
+        }
+        sections.values().forEach(entries ->
+                entries.removeIf(entry -> !methods.containsKey(entry.get("method"))));
+    }
+
+    private void expandPatterns(ClassHierarchy hierarchy, List<String> missing) {
+        Map<String, List<JMethod>> matches = Maps.newMap();
+        for (List<Map<String, String>> entries : sections.values()) {
+            List<Map<String, String>> expanded = new ArrayList<>();
+            entries.removeIf(entry -> {
+                String sig = entry.get("method");
+                if (sig == null || !MethodPattern.isPattern(sig)) {
+                    return false;
+                }
+                List<JMethod> matched = matches.computeIfAbsent(sig,
+                        p -> MethodPattern.parse(p).match(hierarchy));
+                if (matched.isEmpty()) {
+                    missing.add(sig);
+                }
+                for (JMethod method : matched) {
+                    Map<String, String> copy = Maps.newHybridMap(entry);
+                    copy.put("method", method.getSignature());
+                    methods.put(method.getSignature(), method);
+                    expanded.add(copy);
+                }
+                return true;
+            });
+            entries.addAll(expanded);
+        }
+    }
+
+    private TaintConfig build() {
+        Set<Source> sources = Sets.newSet();
+        for (Map<String, String> entry : getEntries("sources")) {
+            sources.add(new Source(getMethod(entry), getType(entry, "type")));
+        }
+        Set<Sink> sinks = Sets.newSet();
+        for (Map<String, String> entry : getEntries("sinks")) {
+            sinks.add(new Sink(getMethod(entry),
+                    Integer.parseInt(get(entry, "index"))));
+        }
+        Set<TaintTransfer> transfers = Sets.newSet();
+        for (Map<String, String> entry : getEntries("transfers")) {
+            transfers.add(new TaintTransfer(getMethod(entry),
+                    TaintTransfer.toInt(get(entry, "from")),
+                    TaintTransfer.toInt(get(entry, "to")),
+                    getType(entry, "type")));
+        }
+        Set<Sanitizer> sanitizers = Sets.newSet();
+        for (Map<String, String> entry : getEntries("sanitizers")) {
+            sanitizers.add(new Sanitizer(getMethod(entry),
+                    TaintTransfer.toInt(get(entry, "index"))));
+        }
+        return new TaintConfig(Collections.unmodifiableSet(sources),
+                Collections.unmodifiableSet(sinks),
+                Collections.unmodifiableSet(transfers),
+                Collections.unmodifiableSet(sanitizers));
+    }
+
+    private JMethod getMethod(Map<String, String> entry) {
+        return methods.get(entry.get("method"));
+    }
+
+    private Type getType(Map<String, String> entry, String field) {
+        return types.computeIfAbsent(get(entry, field), typeSystem::getType);
+    }
+
+    private static String get(Map<String, String> entry, String field) {
+        String value = entry.get(field);
+        if (value == null) {
+            throw new ConfigException("Missing '" + field + "' in taint config entry " + entry);
+        }
+        return value;
+    }
+
+    /**
+     * Loads raw entries from cache file.
+     *
+     * @return true if the entries are loaded, otherwise false.
+     */
+    private boolean load(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return false;
+        }
+        logger.info("Loading taint config from {} ...", file);
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Invalid cache file");
+            }
+            int nSections = in.readInt();
+            for (int i = 0; i < nSections; ++i) {
+                List<Map<String, String>> entries = getEntries(in.readUTF());
+                int nEntries = in.readInt();
+                for (int j = 0; j < nEntries; ++j) {
+                    Map<String, String> fields = Maps.newHybridMap();
+                    int nFields = in.readInt();
+                    for (int k = 0; k < nFields; ++k) {
+                        fields.put(in.readUTF(), in.readUTF());
+                    }
+                    entries.add(fields);
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            logger.warn("Failed to load taint config cache {}: {}", file, e.toString());
+            sections.clear();
+            return false;
+        }
+    }
+
+    private void store(Path file) {
+        logger.info("Storing taint config to {} ...", file);
+        try {
+            Files.createDirectories(file.getParent());
+            // write to a temporary file and then move it, so that
+            // interrupted runs never observe a partially written entry
+            Path tmp = Files.createTempFile(file.getParent(), "taint-", ".tmp");
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(sections.size());
+                for (var section : sections.entrySet()) {
+                    out.writeUTF(section.getKey());
+                    out.writeInt(section.getValue().size());
+                    for (Map<String, String> fields : section.getValue()) {
+                        out.writeInt(fields.size());
+                        for (var field : fields.entrySet()) {
+                            out.writeUTF(field.getKey());
+                            out.writeUTF(field.getValue());
+                        }
+                    }
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Failed to store taint config cache {}: {}", file, e.toString());
+        }
+    }
+
+    /**
+     * @return the hash of the config content and the inputs that
+     * determine which methods are resolved, i.e., the class path
+     * (by the metadata of its files) and the options of the world.
+     */
+    private static String computeKey(byte[] content) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+        update(digest, "version:" + VERSION);
+        digest.update(content);
+        Options options = World.get().getOptions();
+        update(digest, "java:" + options.getJavaVersion());
+        update(digest, "prepend-jvm:" + options.isPrependJVM());
+        String classPath = options.getClassPath();
+        if (classPath != null) {
+            for (String entry : classPath.split(File.pathSeparator)) {
+                hashClassPathEntry(digest, Path.of(entry));
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static void hashClassPathEntry(MessageDigest digest, Path entry) {
+        update(digest, "cp:" + entry);
+        if (!Files.exists(entry)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(entry)) {
+            for (Path path : paths.filter(Files::isRegularFile).sorted().toList()) {
+                BasicFileAttributes attrs = Files.readAttributes(
+                        path, BasicFileAttributes.class);
+                update(digest, entry.relativize(path) + ":" + attrs.size()
+                        + ":" + attrs.lastModifiedTime().toMillis());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void update(MessageDigest digest, String s) {
+        digest.update(s.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+}
@@ -0,0 +1,272 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.plugin.taint;
+
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.collection.LongHashSet;
+import pascal.taie.util.collection.Maps;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PrimitiveIterator;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Reports taint flows as soon as they are detected during solving,
+ * instead of after the pointer analysis converges.
+ * <p>
+ * Each flow is reported only once to the registered listeners, and
+ * once per configuration that detects it to the given writers.
+ * When the number of reported flows reaches the given limit,
+ * the reporter stops reporting and invokes the limit handler.
+ * The writers are flushed periodically, and when the limit is reached.
+ * <p>
+ * The source and sink calls are given dense ids, and each reported
+ * flow is remembered as a {@code long} of the ids of its source call and
+ * its sink argument, so that even the flows that are streamed to files
+ * are deduplicated exactly at the cost of a few bytes per flow.
+ * The remembered flows are also the result of the taint analysis.
+ */
+class TaintFlowReporter {
+
+    /**
+     * Number of bits for the index of sink argument in a flow key,
+     * which suffices as a Java method has at most 255 parameters.
+     */
+    private static final int INDEX_BITS = 8;
+
+    private static final long FLUSH_INTERVAL_MILLIS = 1000;
+
+    /**
+     * Map from a source or sink call to its id.
+     */
+    private final Map<Invoke, Integer> callIds = Maps.newMap();
+
+    /**
+     * Source and sink calls, indexed by their ids.
+     */
+    private final List<Invoke> calls = new ArrayList<>();
+
+    /**
+     * Keys of the flows reported for each configuration.
+     */
+    private final List<LongHashSet> configFlows = new ArrayList<>();
+
+    /**
+     * Keys of the flows reported for any configuration.
+     */
+    private final LongHashSet flows = new LongHashSet();
+
+    private final List<Consumer<TaintFlow>> listeners = new ArrayList<>();
+
+    private final List<TaintFlowWriter> writers;
+
+    /**
+     * Maximum number of reported flows, or 0 for no limit.
+     */
+    private final int maxFlows;
+
+    private final Runnable onLimit;
+
+    /**
+     * Executor which flushes the writers, or null if there is no writer.
+     */
+    private final ScheduledExecutorService flusher;
+
+    /**
+     * @param numberOfConfigs number of taint configurations
+     * @param writers         the writers of the flows, which are closed
+     *                        by {@link #close()}
+     * @param maxFlows        the maximum number of reported flows,
+     *                        or 0 for no limit
+     * @param onLimit         invoked once when the limit is reached,
+     *                        e.g., to stop the solver
+     */
+    TaintFlowReporter(int numberOfConfigs, List<TaintFlowWriter> writers,
+                      int maxFlows, Runnable onLimit) {
+        for (int i = 0; i < numberOfConfigs; ++i) {
+            configFlows.add(new LongHashSet());
+        }
+        this.writers = writers;
+        this.maxFlows = maxFlows;
+        this.onLimit = onLimit;
+        if (writers.isEmpty()) {
+            flusher = null;
+        } else {
+            flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "taint-flow-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleWithFixedDelay(() -> {
+                try {
+                    flush();
+                } catch (AnalysisException e) {
+                    // the failure surfaces again at the next write or close
+                }
+            }, FLUSH_INTERVAL_MILLIS, FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    void addListener(Consumer<TaintFlow> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Reports a taint flow detected by given configuration
+     * if it has not been reported.
+     */
+    void report(TaintFlow flow, int config) {
+        if (isLimitReached()) {
+            return;
+        }
+        long key = getKey(flow);
+        if (!configFlows.get(config).add(key)) {
+            return;
+        }
+        if (flows.add(key)) {
+            listeners.forEach(listener -> listener.accept(flow));
+        }
+        writers.forEach(writer -> writer.write(flow, config));
+        if (isLimitReached()) {
+            flush();
+            onLimit.run();
+        }
+    }
+
+    private long getKey(TaintFlow flow) {
+        int sinkArg = (getCallId(flow.sinkCall()) << INDEX_BITS) | flow.index();
+        return LongHashSet.key(getCallId(flow.sourceCall()), sinkArg);
+    }
+
+    private int getCallId(Invoke call) {
+        return callIds.computeIfAbsent(call, c -> {
+            calls.add(c);
+            return calls.size() - 1;
+        });
+    }
+
+    private TaintFlow getFlow(long key) {
+        int sinkArg = (int) key;
+        return new TaintFlow(calls.get((int) (key >>> 32)),
+                calls.get(sinkArg >>> INDEX_BITS),
+                sinkArg & ((1 << INDEX_BITS) - 1));
+    }
+
+    boolean isLimitReached() {
+        return maxFlows > 0 && flows.size() >= maxFlows;
+    }
+
+    /**
+     * @return number of reported flows.
+     */
+    int getNumberOfFlows() {
+        return flows.size();
+    }
+
+    /**
+     * @return read-only view of the reported flows.
+     */
+    Set<TaintFlow> getFlows() {
+        return new FlowSet(flows);
+    }
+
+    /**
+     * @return read-only view of the flows reported for given configuration.
+     */
+    Set<TaintFlow> getFlows(int config) {
+        return new FlowSet(configFlows.get(config));
+    }
+
+    /**
+     * @return true if the flows are written to files.
+     */
+    boolean hasWriters() {
+        return !writers.isEmpty();
+    }
+
+    private void flush() {
+        writers.forEach(TaintFlowWriter::flush);
+    }
+
+    void close() {
+        if (flusher != null) {
+            // a running flush completes before the writers are closed,
+            // as the writers are synchronized
+            flusher.shutdown();
+        }
+        writers.forEach(TaintFlowWriter::close);
+    }
+
+    /**
+     * Read-only view of a set of flow keys, which decodes the flows
+     * on the fly.
+     */
+    private class FlowSet extends AbstractSet<TaintFlow> {
+
+        private final LongHashSet keys;
+
+        private FlowSet(LongHashSet keys) {
+            this.keys = keys;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof TaintFlow flow
+                    && callIds.containsKey(flow.sourceCall())
+                    && callIds.containsKey(flow.sinkCall())
+                    && keys.contains(getKey(flow));
+        }
+
+        @Override
+        public Iterator<TaintFlow> iterator() {
+            PrimitiveIterator.OfLong it = keys.iterator();
+            return new Iterator<>() {
+
+                @Override
+                public boolean hasNext() {
+                    return it.hasNext();
+                }
+
+                @Override
+                public TaintFlow next() {
+                    return getFlow(it.nextLong());
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return keys.size();
+        }
+    }
+}
@@ -0,0 +1,322 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.plugin.taint;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import pascal.taie.analysis.graph.callgraph.CallGraphs;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.util.AnalysisException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Writes taint flows to a file as soon as they are reported, in either
+ * JSON Lines format (one flow per line) or SARIF format.
+ * <p>
+ * Flows are written by a streaming JSON generator into a direct buffer
+ * which is drained to a {@link FileChannel} when it is full, or when
+ * {@link #flush()} is called, e.g., periodically by {@link TaintFlowReporter},
+ * so that the written flows become visible during solving. The methods
+ * are synchronized as flushing may happen on another thread. No document
+ * is built in memory: for SARIF, the enclosing objects of the results
+ * are opened when the writer is created, and closed by {@link #close()}.
+ */
+class TaintFlowWriter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final String SARIF_VERSION = "2.1.0";
+
+    private static final String SARIF_SCHEMA =
+            "https://json.schemastore.org/sarif-2.1.0.json";
+
+    private enum Format {
+        JSON_LINES, SARIF
+    }
+
+    private final Format format;
+
+    private final Path path;
+
+    private final List<String> configIds;
+
+    private final ChannelOutputStream out;
+
+    private final JsonGenerator generator;
+
+    private TaintFlowWriter(Format format, String file, List<String> configIds) {
+        this.format = format;
+        this.path = Path.of(file);
+        this.configIds = configIds;
+        try {
+            Path dir = path.toAbsolutePath().getParent();
+            if (dir != null) {
+                Files.createDirectories(dir);
+            }
+            out = new ChannelOutputStream(FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING));
+            generator = new JsonFactory().createGenerator(out);
+            // each flow of JSON Lines ends with a line break
+            generator.setRootValueSeparator(null);
+            if (format == Format.SARIF) {
+                writeSarifHeader();
+            }
+        } catch (IOException e) {
+            throw new AnalysisException("Failed to open taint flow file " + file, e);
+        }
+    }
+
+    /**
+     * @return a writer which writes each flow as a JSON line to given file.
+     */
+    static TaintFlowWriter jsonLines(String file, List<String> configIds) {
+        return new TaintFlowWriter(Format.JSON_LINES, file, configIds);
+    }
+
+    /**
+     * @return a writer which writes the flows as the results
+     * of a SARIF log to given file.
+     */
+    static TaintFlowWriter sarif(String file, List<String> configIds) {
+        return new TaintFlowWriter(Format.SARIF, file, configIds);
+    }
+
+    /**
+     * Writes a taint flow detected by given configuration.
+     */
+    synchronized void write(TaintFlow flow, int config) {
+        try {
+            switch (format) {
+                case JSON_LINES -> {
+                    writeJsonLine(flow, config);
+                    generator.writeRaw('\n');
+                }
+                case SARIF -> writeSarifResult(flow, config);
+            }
+        } catch (IOException e) {
+            throw new AnalysisException("Failed to write taint flow " + flow, e);
+        }
+    }
+
+    /**
+     * Drains the written flows to the file.
+     */
+    synchronized void flush() {
+        try {
+            generator.flush();
+        } catch (IOException e) {
+            throw new AnalysisException("Failed to flush taint flow file " + path, e);
+        }
+    }
+
+    synchronized void close() {
+        try {
+            if (format == Format.SARIF) {
+                generator.writeEndArray(); // results
+                generator.writeEndObject(); // run
+                generator.writeEndArray(); // runs
+                generator.writeEndObject();
+            }
+            generator.close();
+        } catch (IOException e) {
+            throw new AnalysisException("Failed to close taint flow file " + path, e);
+        }
+    }
+
+    private void writeJsonLine(TaintFlow flow, int config) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("config", configIds.get(config));
+        generator.writeStringField("source", CallGraphs.toString(flow.sourceCall()));
+        generator.writeNumberField("sourceLine", flow.sourceCall().getLineNumber());
+        generator.writeStringField("sink", CallGraphs.toString(flow.sinkCall()));
+        generator.writeNumberField("sinkLine", flow.sinkCall().getLineNumber());
+        generator.writeNumberField("index", flow.index());
+        generator.writeEndObject();
+    }
+
+    /**
+     * Writes the enclosing objects of the results, with a rule
+     * for each taint configuration, and opens the results array.
+     */
+    private void writeSarifHeader() throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("version", SARIF_VERSION);
+        generator.writeStringField("$schema", SARIF_SCHEMA);
+        generator.writeArrayFieldStart("runs");
+        generator.writeStartObject();
+        generator.writeObjectFieldStart("tool");
+        generator.writeObjectFieldStart("driver");
+        generator.writeStringField("name", "Tai-e");
+        generator.writeArrayFieldStart("rules");
+        for (String id : configIds) {
+            generator.writeStartObject();
+            generator.writeStringField("id", id);
+            generator.writeObjectFieldStart("shortDescription");
+            generator.writeStringField("text", "Taint flow detected by " + id);
+            generator.writeEndObject();
+            generator.writeEndObject();
+        }
+        generator.writeEndArray(); // rules
+        generator.writeEndObject(); // driver
+        generator.writeEndObject(); // tool
+        generator.writeArrayFieldStart("results");
+    }
+
+    /**
+     * Writes a flow as a SARIF result located at the sink call,
+     * with a code flow from the source call to the sink call.
+     */
+    private void writeSarifResult(TaintFlow flow, int config) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("ruleId", configIds.get(config));
+        generator.writeStringField("level", "error");
+        generator.writeObjectFieldStart("message");
+        generator.writeStringField("text", flow.toString());
+        generator.writeEndObject();
+        generator.writeArrayFieldStart("locations");
+        writeSarifLocation(flow.sinkCall());
+        generator.writeEndArray();
+        generator.writeArrayFieldStart("codeFlows");
+        generator.writeStartObject();
+        generator.writeArrayFieldStart("threadFlows");
+        generator.writeStartObject();
+        generator.writeArrayFieldStart("locations");
+        for (Invoke call : List.of(flow.sourceCall(), flow.sinkCall())) {
+            generator.writeStartObject();
+            generator.writeFieldName("location");
+            writeSarifLocation(call);
+            generator.writeEndObject();
+        }
+        generator.writeEndArray(); // locations
+        generator.writeEndObject();
+        generator.writeEndArray(); // threadFlows
+        generator.writeEndObject();
+        generator.writeEndArray(); // codeFlows
+        generator.writeEndObject();
+    }
+
+    private void writeSarifLocation(Invoke call) throws IOException {
+        generator.writeStartObject();
+        generator.writeObjectFieldStart("physicalLocation");
+        generator.writeObjectFieldStart("artifactLocation");
+        generator.writeStringField("uri", getSourceFile(call));
+        generator.writeEndObject();
+        if (call.getLineNumber() > 0) {
+            generator.writeObjectFieldStart("region");
+            generator.writeNumberField("startLine", call.getLineNumber());
+            generator.writeEndObject();
+        }
+        generator.writeEndObject(); // physicalLocation
+        generator.writeArrayFieldStart("logicalLocations");
+        generator.writeStartObject();
+        generator.writeStringField("fullyQualifiedName",
+                call.getContainer().getSignature());
+        generator.writeStringField("kind", "function");
+        generator.writeEndObject();
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+
+    /**
+     * @return the relative path of the source file which (presumably)
+     * declares the container of given call, i.e., the path of its
+     * outermost class.
+     */
+    private static String getSourceFile(Invoke call) {
+        JClass jclass = call.getContainer().getDeclaringClass();
+        while (jclass.getOuterClass() != null) {
+            jclass = jclass.getOuterClass();
+        }
+        return jclass.getName().replace('.', '/') + ".java";
+    }
+
+    /**
+     * Output stream which buffers the bytes in a direct buffer,
+     * and writes them to a file channel when the buffer is full
+     * or when it is flushed.
+     */
+    private static class ChannelOutputStream extends OutputStream {
+
+        private final FileChannel channel;
+
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        private ChannelOutputStream(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+            buffer.put((byte) b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int off, int len) throws IOException {
+            while (len > 0) {
+                if (!buffer.hasRemaining()) {
+                    drain();
+                }
+                int n = Math.min(len, buffer.remaining());
+                buffer.put(bytes, off, n);
+                off += n;
+                len -= n;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            drain();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                drain();
+            } finally {
+                channel.close();
+            }
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
@@ -30,33 +30,124 @@ import pascal.taie.util.AnalysisException;
 import pascal.taie.util.collection.Maps;
 import pascal.taie.util.collection.TwoKeyMap;
 
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
 /**
- * Manages taint objects.
+ * Manages taint objects. Each taint object is labelled with the index
+ * of the taint configuration whose source generates it, so that taint
+ * objects of different configurations can be propagated together
+ * without interfering with each other.
+ * <p>
+ * Taint objects are given dense ids in the order of creation, so that
+ * sets of taint objects can be represented as bitmaps of their ids,
+ * and the taint objects of each configuration form a bitmap that can
+ * be tested against a whole set at once.
  */
 class TaintManager {
 
     private static final String TAINT_DESC = "TaintObj";
 
-    private final TwoKeyMap<Invoke, Type, Obj> taints = Maps.newTwoKeyMap();
+    /**
+     * Taint objects of each configuration.
+     */
+    private final List<TwoKeyMap<Invoke, Type, TaintObj>> taints;
+
+    /**
+     * Ids of taint objects of each configuration.
+     */
+    private final List<BitSet> configTaints;
+
+    /**
+     * Taint objects, indexed by their ids.
+     */
+    private final List<TaintObj> taintObjs = new ArrayList<>();
+
+    /**
+     * @param numberOfConfigs number of taint configurations
+     */
+    TaintManager(int numberOfConfigs) {
+        taints = new ArrayList<>(numberOfConfigs);
+        configTaints = new ArrayList<>(numberOfConfigs);
+        for (int i = 0; i < numberOfConfigs; ++i) {
+            taints.add(Maps.newTwoKeyMap());
+            configTaints.add(new BitSet());
+        }
+    }
 
     /**
-     * Makes a taint object for given source and type.
+     * Makes a taint object for given configuration, source and type.
      *
+     * @param config index of the taint configuration
      * @param source invocation to the source method, i.e., source call
      * @param type   type of the taint object
-     * @return the taint object for given source and type.
+     * @return the taint object for given configuration, source and type.
      */
-    Obj makeTaint(Invoke source, Type type) {
-        return taints.computeIfAbsent(source, type,
-                (s, t) -> new MockObj(TAINT_DESC, s, t));
+    Obj makeTaint(int config, Invoke source, Type type) {
+        return taints.get(config).computeIfAbsent(source, type, (s, t) -> {
+            // only label the description when there are multiple
+            // configurations, to keep the output of single configuration
+            String desc = taints.size() == 1 ?
+                    TAINT_DESC : TAINT_DESC + "#" + config;
+            TaintObj taint = new TaintObj(desc, s, t, taintObjs.size(), config);
+            taintObjs.add(taint);
+            configTaints.get(config).set(taint.id);
+            return taint;
+        });
     }
 
     /**
      * @return true if given obj represents a taint object, otherwise false.
      */
     boolean isTaint(Obj obj) {
-        return obj instanceof MockObj &&
-                ((MockObj) obj).getDescription().equals(TAINT_DESC);
+        return obj instanceof TaintObj;
+    }
+
+    /**
+     * @return the id of given taint object.
+     * @throws AnalysisException if given object is not a taint object.
+     */
+    int getId(Obj obj) {
+        return asTaint(obj).id;
+    }
+
+    /**
+     * @return the taint object of given id.
+     */
+    Obj getTaint(int id) {
+        return taintObjs.get(id);
+    }
+
+    /**
+     * @return the number of taint objects.
+     */
+    int getNumberOfTaints() {
+        return taintObjs.size();
+    }
+
+    /**
+     * @return the configuration index of given taint object.
+     * @throws AnalysisException if given object is not a taint object.
+     */
+    int getConfig(Obj obj) {
+        return asTaint(obj).config;
+    }
+
+    /**
+     * @return the configuration index of the taint object of given id.
+     */
+    int getConfig(int id) {
+        return taintObjs.get(id).config;
+    }
+
+    /**
+     * @return the ids of the taint objects of given configuration.
+     * The returned bitmap grows as new taint objects are made,
+     * and it must not be modified by the callers.
+     */
+    BitSet getTaintsOf(int config) {
+        return configTaints.get(config);
     }
 
     /**
@@ -64,9 +155,39 @@ class TaintManager {
      * @throws AnalysisException if given object is not a taint object.
      */
     Invoke getSourceCall(Obj obj) {
-        if (isTaint(obj)) {
-            return (Invoke) obj.getAllocation();
+        return (Invoke) asTaint(obj).getAllocation();
+    }
+
+    /**
+     * @return the source call of the taint object of given id.
+     */
+    Invoke getSourceCall(int id) {
+        return (Invoke) taintObjs.get(id).getAllocation();
+    }
+
+    private static TaintObj asTaint(Obj obj) {
+        if (obj instanceof TaintObj taint) {
+            return taint;
         }
         throw new AnalysisException(obj + " is not a taint object");
     }
+
+    /**
+     * Taint object which carries its id and configuration index,
+     * so that querying them requires no map lookups.
+     * Its equality is the same as {@link MockObj}.
+     */
+    private static class TaintObj extends MockObj {
+
+        private final int id;
+
+        private final int config;
+
+        private TaintObj(String desc, Invoke source, Type type,
+                         int id, int config) {
+            super(desc, source, type);
+            this.id = id;
+            this.config = config;
+        }
+    }
 }
@@ -0,0 +1,549 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.plugin.taint;
+
+import pascal.taie.analysis.graph.callgraph.CallGraphs;
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
+import pascal.taie.analysis.pta.core.cs.element.CSManager;
+import pascal.taie.analysis.pta.core.cs.element.CSMethod;
+import pascal.taie.analysis.pta.core.cs.element.CSVar;
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.cs.PointerFlowGraph;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.InvokeExp;
+import pascal.taie.ir.exp.InvokeInstanceExp;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.Type;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
+
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Propagates taint objects separately from the points-to sets of
+ * pointer analysis, so that ordinary propagation does not carry them.
+ * <p>
+ * Taint objects flow along the edges of the pointer flow graph built by
+ * the solver, and along the taint transfer edges. As taint objects are
+ * not in points-to sets, calls whose receiver is a taint object are not
+ * resolved by the solver; instead, when a variable receives taint objects,
+ * the invocations on the variable are resolved on the types of the taint
+ * objects, and the edges of such calls, i.e., from the receiver to
+ * {@code this} of the callee, from the arguments to the parameters, and
+ * from the return variables to the result, are added for taint objects
+ * only. The calls themselves are handed to a {@link CallResolver}, which
+ * selects the contexts of the callees and applies their taint rules.
+ * <p>
+ * The taint objects of each pointer are kept as a bitmap of their ids
+ * given by {@link TaintManager}, so that computing the difference of
+ * taint sets, and checking them against the taint objects of a
+ * configuration (e.g., at sinks and sanitizers), are bitwise operations.
+ * <p>
+ * At the calls to sanitizers, the PFG edges that pass the sanitized
+ * variables, i.e., the edges from sanitized arguments to the parameters
+ * of the sanitizer, and the edges from its return variables to the
+ * result of the call, are cut for the taint objects of the configuration
+ * of the sanitizer, so that they do not propagate past the call.
+ */
+class TaintPropagator {
+
+    private final PointerFlowGraph pointerFlowGraph;
+
+    private final CSManager csManager;
+
+    private final TaintManager manager;
+
+    private final TaintRules rules;
+
+    /**
+     * Taint objects pointed to by each pointer.
+     */
+    private final Map<Pointer, BitSet> taints = Maps.newMap();
+
+    /**
+     * Taint transfer edges, from a variable to the edges
+     * that transfer its taint objects.
+     */
+    private final MultiMap<Pointer, TransferEdge> transferEdges = Maps.newMultiMap();
+
+    /**
+     * Sensitive arguments of sink calls, from a variable to the sink calls
+     * where it is passed as a sensitive argument.
+     */
+    private final MultiMap<Pointer, SinkArg> sinkArgs = Maps.newMultiMap();
+
+    /**
+     * Edges of the calls on taint objects, which are absent in the PFG.
+     */
+    private final MultiMap<Pointer, Pointer> callEdges = Maps.newMultiMap();
+
+    /**
+     * Callees (with contexts) of the calls on taint objects.
+     */
+    private final MultiMap<CSCallSite, CSMethod> callees = Maps.newMultiMap();
+
+    /**
+     * PFG edges cut by sanitizers, from the source of an edge to
+     * its target and the configuration of the sanitizer.
+     */
+    private final MultiMap<Pointer, SanitizedEdge> sanitizedEdges = Maps.newMultiMap();
+
+    /**
+     * Number of taint objects that are stopped by sanitizers.
+     */
+    private long cutPropagations = 0;
+
+    /**
+     * Consumer of taint flows (and their configuration indexes)
+     * detected during propagation.
+     */
+    private final ObjIntConsumer<TaintFlow> flowConsumer;
+
+    /**
+     * Provenance of taint objects, or null if it is not tracked.
+     */
+    @Nullable
+    private final TaintProvenance provenance;
+
+    private final CallResolver callResolver;
+
+    private final Queue<Entry> workList = new ArrayDeque<>();
+
+    private boolean propagating = false;
+
+    TaintPropagator(PointerFlowGraph pointerFlowGraph, CSManager csManager,
+                    TaintManager manager, TaintRules rules,
+                    ObjIntConsumer<TaintFlow> flowConsumer,
+                    @Nullable TaintProvenance provenance,
+                    CallResolver callResolver) {
+        this.pointerFlowGraph = pointerFlowGraph;
+        this.csManager = csManager;
+        this.manager = manager;
+        this.rules = rules;
+        this.flowConsumer = flowConsumer;
+        this.provenance = provenance;
+        this.callResolver = callResolver;
+    }
+
+    /**
+     * Adds taint objects to given pointer and propagates them.
+     */
+    void addTaints(Pointer pointer, Set<Obj> objs) {
+        BitSet ids = new BitSet();
+        objs.forEach(obj -> ids.set(manager.getId(obj)));
+        workList.add(new Entry(pointer, ids, null));
+        propagate();
+    }
+
+    /**
+     * Propagates the taint objects of source to target when
+     * a new PFG edge (source -> target) is added by the solver.
+     */
+    void onNewPFGEdge(Pointer source, Pointer target) {
+        BitSet ids = taints.get(source);
+        if (ids != null) {
+            ids = sanitize((BitSet) ids.clone(), source, target);
+            if (!ids.isEmpty()) {
+                workList.add(new Entry(target, ids, source));
+                propagate();
+            }
+        }
+    }
+
+    /**
+     * Cuts the PFG edges that pass the sanitized variables of given
+     * rules at a call edge. This must be called before the solver adds
+     * the PFG edges of the call edge, otherwise taint objects may have
+     * passed the sanitizer.
+     *
+     * @param context context of the call site
+     * @param callee  the sanitizer method (with its context)
+     */
+    void addSanitizers(Context context, Invoke callSite,
+                       CSMethod callee, TaintRules.MethodRules rules) {
+        IR ir = callee.getMethod().getIR();
+        Context calleeContext = callee.getContext();
+        int[] indexes = rules.sanitizedIndexes();
+        for (int i = 0; i < indexes.length; ++i) {
+            int config = rules.sanitizerConfigs()[i];
+            CSVar csVar = getCSVar(context, callSite, indexes[i]);
+            if (csVar == null) {
+                continue;
+            }
+            switch (indexes[i]) {
+                case TaintTransfer.RESULT -> {
+                    for (Var ret : ir.getReturnVars()) {
+                        sanitizedEdges.put(csManager.getCSVar(calleeContext, ret),
+                                new SanitizedEdge(csVar, config));
+                    }
+                }
+                case TaintTransfer.BASE -> {
+                    Var thisVar = ir.getThis();
+                    if (thisVar != null) {
+                        sanitizedEdges.put(csVar, new SanitizedEdge(
+                                csManager.getCSVar(calleeContext, thisVar), config));
+                    }
+                }
+                default -> sanitizedEdges.put(csVar, new SanitizedEdge(
+                        csManager.getCSVar(calleeContext, ir.getParam(indexes[i])),
+                        config));
+            }
+        }
+    }
+
+    /**
+     * @return the number of taint objects stopped by sanitizers,
+     * counted once for each cut PFG edge they try to pass.
+     */
+    long getCutPropagations() {
+        return cutPropagations;
+    }
+
+    /**
+     * Adds the taint transfer edges caused by the transfers
+     * of given rules at a call site.
+     */
+    void addTransfers(Context context, Invoke callSite, TaintRules.MethodRules rules) {
+        TaintTransfer[] transfers = rules.transfers();
+        for (int i = 0; i < transfers.length; ++i) {
+            TaintTransfer transfer = transfers[i];
+            CSVar from = getCSVar(context, callSite, transfer.from());
+            CSVar to = getCSVar(context, callSite, transfer.to());
+            if (from != null && to != null) {
+                TransferEdge edge = new TransferEdge(
+                        to, transfer.type(), rules.transferConfigs()[i]);
+                if (transferEdges.put(from, edge)) {
+                    BitSet ids = taints.get(from);
+                    if (ids != null) {
+                        workList.add(new Entry(to, transfer(ids, edge), from));
+                    }
+                }
+            }
+        }
+        propagate();
+    }
+
+    /**
+     * Registers a sensitive argument of a sink call, so that
+     * the taint objects reaching the argument are reported as flows.
+     */
+    void addSink(CSVar arg, Invoke sinkCall, int index, int config) {
+        SinkArg sink = new SinkArg(sinkCall, index, config);
+        BitSet ids = taints.get(arg);
+        if (sinkArgs.put(arg, sink) && ids != null) {
+            reportFlows(ids, sink);
+        }
+    }
+
+    private void reportFlows(BitSet ids, SinkArg sink) {
+        BitSet configTaints = manager.getTaintsOf(sink.config());
+        if (!ids.intersects(configTaints)) {
+            return;
+        }
+        for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+            if (configTaints.get(id)) {
+                flowConsumer.accept(new TaintFlow(manager.getSourceCall(id),
+                        sink.sinkCall(), sink.index()), sink.config());
+            }
+        }
+    }
+
+    /**
+     * @return the taint objects pointed to by given pointer.
+     */
+    Set<Obj> getTaints(Pointer pointer) {
+        BitSet ids = taints.get(pointer);
+        if (ids == null) {
+            return Set.of();
+        }
+        Set<Obj> objs = Sets.newHybridSet();
+        for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+            objs.add(manager.getTaint(id));
+        }
+        return Collections.unmodifiableSet(objs);
+    }
+
+    /**
+     * Reconstructs the witness path along which given taint object
+     * arrives at given pointer, i.e., the path of the first arrival,
+     * which is the shortest in the order of propagation.
+     *
+     * @return the pointers on the path from the result variable of
+     * the source call to given pointer, or an empty list if provenance
+     * is not tracked or the path is not fully recorded.
+     */
+    List<Pointer> getPath(Pointer pointer, Obj taint) {
+        if (provenance == null) {
+            return List.of();
+        }
+        List<Pointer> path = new ArrayList<>();
+        Pointer current = pointer;
+        Obj currentTaint = taint;
+        // each recorded arrival is visited at most once on a path
+        for (int steps = 0; steps <= provenance.size(); ++steps) {
+            Pointer parent = provenance.getParent(current, currentTaint);
+            if (parent == null) {
+                return List.of();
+            }
+            path.add(current);
+            if (parent == current) { // reaches the source call
+                Collections.reverse(path);
+                return path;
+            }
+            if (!provenance.contains(parent, currentTaint)) {
+                // arrives via a taint transfer, which changes the type
+                currentTaint = findTransferred(parent, currentTaint);
+                if (currentTaint == null) {
+                    return List.of();
+                }
+            }
+            current = parent;
+        }
+        return List.of();
+    }
+
+    /**
+     * @return the recorded taint object at pointer which is transferred
+     * to given taint object, or null if it is absent.
+     */
+    @Nullable
+    private Obj findTransferred(Pointer pointer, Obj transferred) {
+        Invoke sourceCall = manager.getSourceCall(transferred);
+        int config = manager.getConfig(transferred);
+        for (Obj obj : getTaints(pointer)) {
+            if (manager.getSourceCall(obj).equals(sourceCall)
+                    && manager.getConfig(obj) == config
+                    && provenance.contains(pointer, obj)) {
+                return obj;
+            }
+        }
+        return null;
+    }
+
+    private void propagate() {
+        if (propagating) {
+            return;
+        }
+        propagating = true;
+        while (!workList.isEmpty()) {
+            Entry entry = workList.poll();
+            Pointer pointer = entry.pointer();
+            BitSet ids = taints.computeIfAbsent(pointer, p -> new BitSet());
+            BitSet delta = (BitSet) entry.ids().clone();
+            delta.andNot(ids);
+            if (delta.isEmpty()) {
+                continue;
+            }
+            ids.or(delta);
+            if (provenance != null) {
+                for (int id = delta.nextSetBit(0); id >= 0; id = delta.nextSetBit(id + 1)) {
+                    provenance.record(pointer, manager.getTaint(id), entry.from());
+                }
+            }
+            boolean sanitized = sanitizedEdges.containsKey(pointer);
+            for (Pointer succ : pointerFlowGraph.getSuccsOf(pointer)) {
+                BitSet flowing = sanitized ? sanitize(delta, pointer, succ) : delta;
+                if (!flowing.isEmpty()) {
+                    workList.add(new Entry(succ, flowing, pointer));
+                }
+            }
+            for (Pointer succ : callEdges.get(pointer)) {
+                BitSet flowing = sanitized ? sanitize(delta, pointer, succ) : delta;
+                if (!flowing.isEmpty()) {
+                    workList.add(new Entry(succ, flowing, pointer));
+                }
+            }
+            if (pointer instanceof CSVar csVar) {
+                resolveCalls(csVar, delta);
+                for (SinkArg sink : sinkArgs.get(csVar)) {
+                    reportFlows(delta, sink);
+                }
+            }
+            for (TransferEdge edge : transferEdges.get(pointer)) {
+                BitSet transferred = transfer(delta, edge);
+                if (!transferred.isEmpty()) {
+                    workList.add(new Entry(edge.target(), transferred, pointer));
+                }
+            }
+        }
+        propagating = false;
+    }
+
+    /**
+     * @return the taint objects that pass the PFG edge (source -> target),
+     * i.e., given objects excluding the ones of the configurations whose
+     * sanitizers cut the edge.
+     */
+    private BitSet sanitize(BitSet ids, Pointer source, Pointer target) {
+        BitSet result = ids;
+        for (SanitizedEdge edge : sanitizedEdges.get(source)) {
+            BitSet configTaints = manager.getTaintsOf(edge.config());
+            if (edge.target().equals(target) && result.intersects(configTaints)) {
+                BitSet passed = (BitSet) result.clone();
+                passed.andNot(configTaints);
+                cutPropagations += result.cardinality() - passed.cardinality();
+                result = passed;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Resolves the invocations whose receiver is given variable
+     * on the types of new taint objects, and adds the edges of
+     * the resolved calls.
+     */
+    private void resolveCalls(CSVar csVar, BitSet delta) {
+        Context context = csVar.getContext();
+        for (Invoke invoke : csVar.getVar().getInvokes()) {
+            CSCallSite csCallSite = csManager.getCSCallSite(context, invoke);
+            for (int id = delta.nextSetBit(0); id >= 0; id = delta.nextSetBit(id + 1)) {
+                Obj taint = manager.getTaint(id);
+                JMethod callee = CallGraphs.resolveCallee(taint.getType(), invoke);
+                if (callee != null) {
+                    CSMethod csCallee = callResolver.resolve(csCallSite, taint, callee);
+                    if (callees.put(csCallSite, csCallee)) {
+                        addCallEdges(csCallSite, csCallee);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds the edges that pass taint objects between a call site
+     * on a taint object and its callee.
+     */
+    private void addCallEdges(CSCallSite csCallSite, CSMethod csCallee) {
+        Context context = csCallSite.getContext();
+        Invoke callSite = csCallSite.getCallSite();
+        Context calleeContext = csCallee.getContext();
+        IR ir = csCallee.getMethod().getIR();
+        if (ir.getThis() != null) {
+            addCallEdge(getCSVar(context, callSite, TaintTransfer.BASE),
+                    csManager.getCSVar(calleeContext, ir.getThis()));
+        }
+        InvokeExp invokeExp = callSite.getInvokeExp();
+        for (int i = 0; i < invokeExp.getArgCount(); ++i) {
+            addCallEdge(csManager.getCSVar(context, invokeExp.getArg(i)),
+                    csManager.getCSVar(calleeContext, ir.getParam(i)));
+        }
+        CSVar result = getCSVar(context, callSite, TaintTransfer.RESULT);
+        if (result != null) {
+            for (Var ret : ir.getReturnVars()) {
+                addCallEdge(csManager.getCSVar(calleeContext, ret), result);
+            }
+        }
+    }
+
+    private void addCallEdge(Pointer source, Pointer target) {
+        if (callEdges.put(source, target)) {
+            BitSet ids = taints.get(source);
+            if (ids != null) {
+                ids = sanitize((BitSet) ids.clone(), source, target);
+                if (!ids.isEmpty()) {
+                    workList.add(new Entry(target, ids, source));
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the taint objects transferred from given objects by given
+     * edge, i.e., for each taint object of the configuration of the edge,
+     * the taint object of the same source call with the type of the edge.
+     */
+    private BitSet transfer(BitSet ids, TransferEdge edge) {
+        BitSet result = new BitSet();
+        BitSet configTaints = manager.getTaintsOf(edge.config());
+        if (!ids.intersects(configTaints)) {
+            return result;
+        }
+        for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+            if (configTaints.get(id)) {
+                result.set(manager.getId(manager.makeTaint(edge.config(),
+                        manager.getSourceCall(id), edge.type())));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the variable at given index of a call site, or null
+     * if the call site has no such variable.
+     */
+    private CSVar getCSVar(Context context, Invoke callSite, int index) {
+        InvokeExp invokeExp = callSite.getInvokeExp();
+        Var var = switch (index) {
+            case TaintTransfer.BASE -> invokeExp instanceof InvokeInstanceExp e ?
+                    e.getBase() : null;
+            case TaintTransfer.RESULT -> callSite.getLValue();
+            default -> invokeExp.getArg(index);
+        };
+        return var != null ? csManager.getCSVar(context, var) : null;
+    }
+
+    /**
+     * Resolves the calls on taint objects, which are not resolved
+     * by the solver.
+     */
+    interface CallResolver {
+
+        /**
+         * @return the callee with its context of given call site
+         * on given taint object.
+         */
+        CSMethod resolve(CSCallSite callSite, Obj recv, JMethod callee);
+    }
+
+    /**
+     * Work-list entry: taint objects arriving at a pointer from
+     * a predecessor, or from a source call if from is null.
+     */
+    private record Entry(Pointer pointer, BitSet ids, @Nullable Pointer from) {
+    }
+
+    private record TransferEdge(Pointer target, Type type, int config) {
+    }
+
+    private record SinkArg(Invoke sinkCall, int index, int config) {
+    }
+
+    private record SanitizedEdge(Pointer target, int config) {
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.plugin.taint;
+
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.util.collection.Maps;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records the provenance of taint objects, i.e., for each taint object
+ * arriving at a pointer, the predecessor pointer from which it arrives
+ * (via a PFG edge or a taint transfer).
+ * <p>
+ * Pointers and taint objects are given dense ids, and the parent table
+ * maps each (pointer id, taint id) pair, encoded as a {@code long},
+ * to the id of the predecessor pointer. Only the first arrival is
+ * recorded, so the table forms a tree rooted at the source calls.
+ * At most {@code limit} arrivals are recorded, and the later arrivals
+ * are ignored, thus their paths cannot be reconstructed.
+ */
+class TaintProvenance {
+
+    /**
+     * Parent of the taint objects generated at a pointer, i.e.,
+     * the result variable of a source call.
+     */
+    static final int ROOT = -1;
+
+    private static final long FREE = -1L;
+
+    private final int limit;
+
+    private final Map<Pointer, Integer> pointerIds = Maps.newMap();
+
+    private final List<Pointer> pointers = new ArrayList<>();
+
+    private final Map<Obj, Integer> taintIds = Maps.newMap();
+
+    private long[] keys = newKeys(1024);
+
+    private int[] parents = new int[1024];
+
+    private int size;
+
+    /**
+     * @param limit the maximum number of recorded arrivals
+     */
+    TaintProvenance(int limit) {
+        this.limit = limit;
+    }
+
+    /**
+     * Records that taint arrives at pointer from parent, or from
+     * a source call if parent is null.
+     */
+    void record(Pointer pointer, Obj taint, @Nullable Pointer parent) {
+        if (size >= limit) {
+            return;
+        }
+        long key = key(getId(pointer), getId(taint));
+        int i = slot(key);
+        if (keys[i] == FREE) {
+            keys[i] = key;
+            parents[i] = parent != null ? getId(parent) : ROOT;
+            if (++size > (keys.length >> 1) + (keys.length >> 2)) {
+                rehash();
+            }
+        }
+    }
+
+    /**
+     * @return the predecessor of the arrival of taint at pointer,
+     * {@code null} if it is absent, or pointer itself if taint is
+     * generated at pointer.
+     */
+    @Nullable
+    Pointer getParent(Pointer pointer, Obj taint) {
+        Integer p = pointerIds.get(pointer);
+        Integer t = taintIds.get(taint);
+        if (p == null || t == null) {
+            return null;
+        }
+        int i = slot(key(p, t));
+        if (keys[i] == FREE) {
+            return null;
+        }
+        return parents[i] == ROOT ? pointer : pointers.get(parents[i]);
+    }
+
+    /**
+     * @return true if the arrival of taint at pointer is recorded.
+     */
+    boolean contains(Pointer pointer, Obj taint) {
+        return getParent(pointer, taint) != null;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private int getId(Pointer pointer) {
+        return pointerIds.computeIfAbsent(pointer, p -> {
+            pointers.add(p);
+            return pointers.size() - 1;
+        });
+    }
+
+    private int getId(Obj taint) {
+        return taintIds.computeIfAbsent(taint, t -> taintIds.size());
+    }
+
+    private static long key(int pointer, int taint) {
+        return ((long) pointer << 32) | (taint & 0xffffffffL);
+    }
+
+    private static long[] newKeys(int capacity) {
+        long[] keys = new long[capacity];
+        Arrays.fill(keys, FREE);
+        return keys;
+    }
+
+    /**
+     * @return the slot of given key, or the free slot where it
+     * should be inserted if the key is absent.
+     */
+    private int slot(long key) {
+        int mask = keys.length - 1;
+        long h = key * 0x9e3779b97f4a7c15L;
+        int i = (int) (h ^ (h >>> 32)) & mask;
+        while (keys[i] != FREE && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        int[] oldParents = parents;
+        keys = newKeys(oldKeys.length << 1);
+        parents = new int[keys.length];
+        for (int i = 0; i < oldKeys.length; ++i) {
+            if (oldKeys[i] != FREE) {
+                int j = slot(oldKeys[i]);
+                keys[j] = oldKeys[i];
+                parents[j] = oldParents[i];
+            }
+        }
+    }
+}
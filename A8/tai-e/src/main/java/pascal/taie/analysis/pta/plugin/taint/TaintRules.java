@@ -0,0 +1,159 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.plugin.taint;
+
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.Type;
+import pascal.taie.util.collection.Maps;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lookup tables of taint configurations indexed by method, so that
+ * checking whether a callee is relevant to taint analysis, and fetching
+ * its sources, sinks, transfers and sanitizers, costs one map probe.
+ * <p>
+ * When multiple configurations are given, each rule is labelled with
+ * the index of the configuration where it comes from.
+ */
+class TaintRules {
+
+    /**
+     * Taint rules of a method. The {@code *Configs} arrays hold the
+     * configuration index of the rule at the same position.
+     *
+     * @param sourceTypes types of taint objects made when the method
+     *                    is a source
+     * @param sinkIndexes indexes of sensitive arguments when the method
+     *                    is a sink
+     * @param transfers   taint transfers caused by the method
+     * @param sanitizedIndexes indexes of sanitized variables when
+     *                         the method is a sanitizer
+     */
+    record MethodRules(Type[] sourceTypes, int[] sourceConfigs,
+                       int[] sinkIndexes, int[] sinkConfigs,
+                       TaintTransfer[] transfers, int[] transferConfigs,
+                       int[] sanitizedIndexes, int[] sanitizerConfigs) {
+
+        private static final MethodRules EMPTY = new MethodRules(
+                new Type[0], new int[0], new int[0], new int[0],
+                new TaintTransfer[0], new int[0], new int[0], new int[0]);
+
+        boolean isSource() {
+            return sourceTypes.length > 0;
+        }
+
+        boolean isSink() {
+            return sinkIndexes.length > 0;
+        }
+
+        boolean hasTransfers() {
+            return transfers.length > 0;
+        }
+
+        boolean isSanitizer() {
+            return sanitizedIndexes.length > 0;
+        }
+    }
+
+    private final Map<JMethod, MethodRules> rules = Maps.newMap();
+
+    TaintRules(List<TaintConfig> configs) {
+        for (int i = 0; i < configs.size(); ++i) {
+            TaintConfig config = configs.get(i);
+            for (Source source : config.getSources()) {
+                MethodRules r = get(source.method(), MethodRules.EMPTY);
+                rules.put(source.method(), new MethodRules(
+                        append(r.sourceTypes(), source.type()),
+                        append(r.sourceConfigs(), i),
+                        r.sinkIndexes(), r.sinkConfigs(),
+                        r.transfers(), r.transferConfigs(),
+                        r.sanitizedIndexes(), r.sanitizerConfigs()));
+            }
+            for (Sink sink : config.getSinks()) {
+                MethodRules r = get(sink.method(), MethodRules.EMPTY);
+                rules.put(sink.method(), new MethodRules(
+                        r.sourceTypes(), r.sourceConfigs(),
+                        append(r.sinkIndexes(), sink.index()),
+                        append(r.sinkConfigs(), i),
+                        r.transfers(), r.transferConfigs(),
+                        r.sanitizedIndexes(), r.sanitizerConfigs()));
+            }
+            for (TaintTransfer transfer : config.getTransfers()) {
+                MethodRules r = get(transfer.method(), MethodRules.EMPTY);
+                rules.put(transfer.method(), new MethodRules(
+                        r.sourceTypes(), r.sourceConfigs(),
+                        r.sinkIndexes(), r.sinkConfigs(),
+                        append(r.transfers(), transfer),
+                        append(r.transferConfigs(), i),
+                        r.sanitizedIndexes(), r.sanitizerConfigs()));
+            }
+            for (Sanitizer sanitizer : config.getSanitizers()) {
+                MethodRules r = get(sanitizer.method(), MethodRules.EMPTY);
+                rules.put(sanitizer.method(), new MethodRules(
+                        r.sourceTypes(), r.sourceConfigs(),
+                        r.sinkIndexes(), r.sinkConfigs(),
+                        r.transfers(), r.transferConfigs(),
+                        append(r.sanitizedIndexes(), sanitizer.index()),
+                        append(r.sanitizerConfigs(), i)));
+            }
+        }
+    }
+
+    private MethodRules get(JMethod method, MethodRules defaultRules) {
+        MethodRules r = rules.get(method);
+        return r != null ? r : defaultRules;
+    }
+
+    private static <T> T[] append(T[] array, T elem) {
+        T[] result = Arrays.copyOf(array, array.length + 1);
+        result[array.length] = elem;
+        return result;
+    }
+
+    private static int[] append(int[] array, int elem) {
+        int[] result = Arrays.copyOf(array, array.length + 1);
+        result[array.length] = elem;
+        return result;
+    }
+
+    /**
+     * @return the taint rules of given method, or null if the method
+     * is irrelevant to taint analysis.
+     */
+    @Nullable
+    MethodRules get(JMethod method) {
+        return rules.get(method);
+    }
+
+    /**
+     * @return the number of taint-relevant methods.
+     */
+    int size() {
+        return rules.size();
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.util.collection;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.LongConsumer;
+
+/**
+ * Open-addressing hash set of primitive {@code long} values, which avoids
+ * the boxed keys and entry objects of {@link java.util.HashSet}.
+ * Pairs of dense ids, e.g., the source and target of an edge, can be
+ * packed into a {@code long} by {@link #key(int, int)}.
+ * <p>
+ * The context-insensitive pointer flow graph of assignment 5 keeps its
+ * own copy of this table, as the assignments are built separately.
+ */
+public class LongHashSet {
+
+    /**
+     * Marks the free slots, thus -1 cannot be added to this set.
+     */
+    private static final long FREE = -1L;
+
+    private long[] table;
+
+    private int size;
+
+    public LongHashSet() {
+        this(256);
+    }
+
+    /**
+     * @param capacity initial capacity, which must be a power of two
+     */
+    public LongHashSet(int capacity) {
+        table = newTable(capacity);
+    }
+
+    private static long[] newTable(int capacity) {
+        long[] table = new long[capacity];
+        Arrays.fill(table, FREE);
+        return table;
+    }
+
+    /**
+     * @return the {@code long} consisting of two non-negative ints.
+     */
+    public static long key(int high, int low) {
+        return ((long) high << 32) | (low & 0xffffffffL);
+    }
+
+    private static int hash(long key, int mask) {
+        long h = key * 0x9e3779b97f4a7c15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    public boolean contains(long key) {
+        int mask = table.length - 1;
+        for (int i = hash(key, mask); table[i] != FREE; i = (i + 1) & mask) {
+            if (table[i] == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return true if given key was absent before this call.
+     */
+    public boolean add(long key) {
+        int mask = table.length - 1;
+        int i = hash(key, mask);
+        for (; table[i] != FREE; i = (i + 1) & mask) {
+            if (table[i] == key) {
+                return false;
+            }
+        }
+        table[i] = key;
+        if (++size > (table.length >> 1) + (table.length >> 2)) {
+            rehash();
+        }
+        return true;
+    }
+
+    private void rehash() {
+        long[] old = table;
+        table = newTable(old.length << 1);
+        int mask = table.length - 1;
+        for (long key : old) {
+            if (key != FREE) {
+                int i = hash(key, mask);
+                while (table[i] != FREE) {
+                    i = (i + 1) & mask;
+                }
+                table[i] = key;
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return number of slots of the table, i.e., {@code 8 * capacity}
+     * bytes are occupied by this set.
+     */
+    public int capacity() {
+        return table.length;
+    }
+
+    /**
+     * @return an iterator over the keys in this set, in no particular order.
+     * The iterator must not be used after this set is modified.
+     */
+    public PrimitiveIterator.OfLong iterator() {
+        long[] keys = table;
+        return new PrimitiveIterator.OfLong() {
+
+            private int i = advance(0);
+
+            private int advance(int from) {
+                while (from < keys.length && keys[from] == FREE) {
+                    ++from;
+                }
+                return from;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return i < keys.length;
+            }
+
+            @Override
+            public long nextLong() {
+                if (i >= keys.length) {
+                    throw new NoSuchElementException();
+                }
+                long key = keys[i];
+                i = advance(i + 1);
+                return key;
+            }
+        };
+    }
+
+    /**
+     * Performs given action for each key in this set, in no particular order.
+     */
+    public void forEach(LongConsumer action) {
+        for (long key : table) {
+            if (key != FREE) {
+                action.accept(key);
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.core.cs.context;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+public class TrieContextTest {
+
+    @Test
+    public void testEmptyContext() {
+        TrieContext.Factory<String> factory = new TrieContext.Factory<>();
+        Context empty = factory.getEmptyContext();
+        Assert.assertEquals(0, empty.getLength());
+        Assert.assertSame(empty, factory.getEmptyContext());
+        Assert.assertSame(empty, factory.make(List.of()));
+        Assert.assertEquals(0, ((TrieContext) empty).getIndex());
+    }
+
+    @Test
+    public void testHashConsing() {
+        TrieContext.Factory<String> factory = new TrieContext.Factory<>();
+        Context ab = factory.make(List.of("a", "b"));
+        Assert.assertSame(ab, factory.make(List.of("a", "b")));
+        Assert.assertSame(ab, factory.append(
+                factory.make(List.of("a")), "b", 2));
+        Assert.assertNotSame(ab, factory.make(List.of("b", "a")));
+        Assert.assertEquals(2, ab.getLength());
+        Assert.assertEquals("a", ab.getElementAt(0));
+        Assert.assertEquals("b", ab.getElementAt(1));
+        Assert.assertEquals("[a, b]", ab.toString());
+    }
+
+    @Test
+    public void testDenseIndexes() {
+        TrieContext.Factory<String> factory = new TrieContext.Factory<>();
+        TrieContext a = (TrieContext) factory.make(List.of("a"));
+        TrieContext ab = (TrieContext) factory.make(List.of("a", "b"));
+        TrieContext c = (TrieContext) factory.make(List.of("c"));
+        Assert.assertEquals(1, a.getIndex());
+        Assert.assertEquals(2, ab.getIndex());
+        Assert.assertEquals(3, c.getIndex());
+        // existing contexts keep their indexes
+        Assert.assertEquals(2,
+                ((TrieContext) factory.make(List.of("a", "b"))).getIndex());
+    }
+
+    @Test
+    public void testAppendWithLimit() {
+        TrieContext.Factory<String> factory = new TrieContext.Factory<>();
+        Context abc = factory.make(List.of("a", "b", "c"));
+        // the first elements are truncated to keep the last k ones
+        Assert.assertSame(factory.make(List.of("b", "c", "d")),
+                factory.append(abc, "d", 3));
+        Assert.assertSame(factory.make(List.of("c", "d")),
+                factory.append(abc, "d", 2));
+        Assert.assertSame(factory.make(List.of("d")),
+                factory.append(abc, "d", 1));
+        Assert.assertSame(factory.getEmptyContext(),
+                factory.append(abc, "d", 0));
+        // no truncation when the limit is not exceeded
+        Assert.assertSame(factory.make(List.of("a", "b", "c", "d")),
+                factory.append(abc, "d", 4));
+    }
+
+    @Test
+    public void testMakeLastK() {
+        TrieContext.Factory<String> factory = new TrieContext.Factory<>();
+        Context abc = factory.make(List.of("a", "b", "c"));
+        Assert.assertSame(abc, factory.makeLastK(abc, 3));
+        Assert.assertSame(abc, factory.makeLastK(abc, 5));
+        Assert.assertSame(factory.make(List.of("b", "c")),
+                factory.makeLastK(abc, 2));
+        Assert.assertSame(factory.getEmptyContext(),
+                factory.makeLastK(abc, 0));
+    }
+
+    @Test
+    public void testSeparateFactories() {
+        TrieContext.Factory<String> f1 = new TrieContext.Factory<>();
+        TrieContext.Factory<String> f2 = new TrieContext.Factory<>();
+        Assert.assertNotSame(f1.make(List.of("a")), f2.make(List.of("a")));
+    }
+}
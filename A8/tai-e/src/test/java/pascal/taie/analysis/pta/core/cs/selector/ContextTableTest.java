@@ -0,0 +1,179 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.core.cs.selector;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.context.ContextFactory;
+import pascal.taie.analysis.pta.core.cs.context.TrieContext;
+import pascal.taie.analysis.pta.core.cs.element.CSManager;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.MapBasedCSManager;
+import pascal.taie.analysis.pta.core.heap.MockObj;
+import pascal.taie.analysis.pta.core.heap.Obj;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ContextTableTest {
+
+    @Test
+    public void testHits() {
+        TrieContext.Factory<String> factory = new TrieContext.Factory<>();
+        Context a = factory.make(List.of("a"));
+        ContextTable table = new ContextTable();
+        AtomicInteger misses = new AtomicInteger();
+        Context ab = table.get(a, "b", () -> {
+            misses.incrementAndGet();
+            return factory.append(a, "b", 2);
+        });
+        Context ab2 = table.get(a, "b", () -> {
+            misses.incrementAndGet();
+            return factory.append(a, "b", 2);
+        });
+        Assert.assertSame(ab, ab2);
+        Assert.assertEquals(1, misses.get());
+        // different elements and contexts are different keys
+        table.get(a, "c", () -> {
+            misses.incrementAndGet();
+            return factory.append(a, "c", 2);
+        });
+        table.get(factory.getEmptyContext(), "b", () -> {
+            misses.incrementAndGet();
+            return factory.make(List.of("b"));
+        });
+        Assert.assertEquals(3, misses.get());
+    }
+
+    @Test
+    public void testNullNotCached() {
+        Context a = new TrieContext.Factory<String>().make(List.of("a"));
+        ContextTable table = new ContextTable();
+        AtomicInteger misses = new AtomicInteger();
+        Assert.assertNull(table.get(a, "b", () -> {
+            misses.incrementAndGet();
+            return null;
+        }));
+        Assert.assertNull(table.get(a, "b", () -> {
+            misses.incrementAndGet();
+            return null;
+        }));
+        Assert.assertEquals(2, misses.get());
+    }
+
+    @Test
+    public void testObjSelectorHits() {
+        CountingFactory factory = new CountingFactory();
+        _2ObjSelector selector = new _2ObjSelector(factory);
+        CSManager csManager = new MapBasedCSManager();
+        Obj o1 = new MockObj("o1", "o1", null);
+        Obj o2 = new MockObj("o2", "o2", null);
+        Context c1 = factory.make(List.of(o1));
+        CSObj recv = csManager.getCSObj(c1, o2);
+        Context selected = selector.selectContext(null, recv, null);
+        Assert.assertSame(factory.make(List.of(o1, o2)), selected);
+        Assert.assertEquals(1, factory.appends);
+        // the same receiver selects the memoized context at
+        // all its call sites
+        for (int i = 0; i < 10; ++i) {
+            Assert.assertSame(selected,
+                    selector.selectContext(null, recv, null));
+        }
+        Assert.assertEquals(1, factory.appends);
+        // k-limiting keeps the last two allocation sites
+        CSObj recv2 = csManager.getCSObj(selected, o1);
+        Assert.assertSame(factory.make(List.of(o2, o1)),
+                selector.selectContext(null, recv2, null));
+        Assert.assertEquals(2, factory.appends);
+    }
+
+    @Test
+    public void testHitsByContext() {
+        // e.g., the heap contexts of 2-object sensitivity, which are
+        // determined by method contexts regardless of allocation sites
+        TrieContext.Factory<String> factory = new TrieContext.Factory<>();
+        Context ab = factory.make(List.of("a", "b"));
+        ContextTable table = new ContextTable();
+        AtomicInteger misses = new AtomicInteger();
+        Context b = table.get(ab, () -> {
+            misses.incrementAndGet();
+            return factory.makeLastK(ab, 1);
+        });
+        Assert.assertSame(factory.make(List.of("b")), b);
+        Assert.assertSame(b, table.get(ab, () -> {
+            misses.incrementAndGet();
+            return factory.makeLastK(ab, 1);
+        }));
+        Assert.assertEquals(1, misses.get());
+    }
+
+    @Test
+    public void test1ObjIgnoresHeapContext() {
+        CountingFactory factory = new CountingFactory();
+        _1ObjSelector selector = new _1ObjSelector(factory);
+        CSManager csManager = new MapBasedCSManager();
+        Obj o1 = new MockObj("o1", "o1", null);
+        Obj o2 = new MockObj("o2", "o2", null);
+        Context selected = selector.selectContext(null,
+                csManager.getCSObj(factory.make(List.of(o1)), o2), null);
+        Assert.assertSame(factory.make(List.of(o2)), selected);
+        int makes = factory.makes;
+        // receivers of the same allocation site select the same
+        // context regardless of their heap contexts
+        Assert.assertSame(selected, selector.selectContext(null,
+                csManager.getCSObj(factory.getEmptyContext(), o2), null));
+        Assert.assertEquals(makes, factory.makes);
+    }
+
+    private static class CountingFactory implements ContextFactory<Obj> {
+
+        private final ContextFactory<Obj> factory = new TrieContext.Factory<>();
+
+        private int appends;
+
+        private int makes;
+
+        @Override
+        public Context getEmptyContext() {
+            return factory.getEmptyContext();
+        }
+
+        @Override
+        public Context make(List<Obj> elements) {
+            ++makes;
+            return factory.make(elements);
+        }
+
+        @Override
+        public Context makeLastK(Context context, int k) {
+            return factory.makeLastK(context, k);
+        }
+
+        @Override
+        public Context append(Context parent, Obj elem, int limit) {
+            ++appends;
+            return factory.append(parent, elem, limit);
+        }
+    }
+}
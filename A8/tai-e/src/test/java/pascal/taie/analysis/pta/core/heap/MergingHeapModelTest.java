@@ -0,0 +1,107 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.core.heap;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import pascal.taie.Main;
+import pascal.taie.World;
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.language.classes.JMethod;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class MergingHeapModelTest {
+
+    private static List<New> allocSites;
+
+    @BeforeClass
+    public static void buildWorld() {
+        Main.buildWorld("-pp", "-cp", "src/test/resources/pta/heap",
+                "-m", "MergeSites");
+        JMethod main = World.get().getMainMethod();
+        allocSites = main.getIR().stmts()
+                .filter(s -> s instanceof New)
+                .map(s -> (New) s)
+                .toList();
+    }
+
+    @Test
+    public void testSiteThreshold() {
+        // B has 3 allocation sites, which exceeds the threshold,
+        // while A and C do not; the sites are counted in the application
+        // classes even if only-app is false
+        MergingHeapModel model = newModel(Map.of(
+                "merge-site-threshold", 2, "only-app", false));
+        for (New site : allocSites) {
+            Obj obj = model.getObj(site);
+            String type = site.getRValue().getType().getName();
+            Assert.assertEquals(type, type.equals("B"), obj instanceof MergedObj);
+        }
+    }
+
+    @Test
+    public void testOrderIndependence() {
+        Map<String, Object> options = Map.of("merge-site-threshold", 2);
+        MergingHeapModel forward = newModel(options);
+        List<Obj> forwardObjs = allocSites.stream()
+                .map(forward::getObj)
+                .toList();
+        MergingHeapModel backward = newModel(options);
+        List<New> reversed = new ArrayList<>(allocSites);
+        Collections.reverse(reversed);
+        reversed.forEach(backward::getObj);
+        for (int i = 0; i < allocSites.size(); ++i) {
+            Obj obj = backward.getObj(allocSites.get(i));
+            Assert.assertEquals(forwardObjs.get(i) instanceof MergedObj,
+                    obj instanceof MergedObj);
+            Assert.assertEquals(forwardObjs.get(i).getType(), obj.getType());
+        }
+    }
+
+    @Test
+    public void testMergeTypes() {
+        MergingHeapModel model = newModel(Map.of("merge-types", "A, C"));
+        for (New site : allocSites) {
+            Obj obj = model.getObj(site);
+            String type = site.getRValue().getType().getName();
+            Assert.assertEquals(type, !type.equals("B"), obj instanceof MergedObj);
+        }
+    }
+
+    private static MergingHeapModel newModel(Map<String, Object> options) {
+        Map<String, Object> allOptions = new HashMap<>(Map.of(
+                "merge-string-constants", false,
+                "merge-string-objects", false,
+                "merge-string-builders", false,
+                "merge-exception-objects", false));
+        allOptions.putAll(options);
+        return new MergingHeapModel(new AnalysisOptions(allOptions));
+    }
+}
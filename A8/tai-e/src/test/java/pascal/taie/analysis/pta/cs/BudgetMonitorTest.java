@@ -0,0 +1,134 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.cs;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.element.CSManager;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.MapBasedCSManager;
+import pascal.taie.analysis.pta.core.cs.selector.DegradableSelector;
+import pascal.taie.analysis.pta.core.cs.selector._1ObjSelector;
+import pascal.taie.analysis.pta.core.heap.MockObj;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.config.AnalysisOptions;
+
+import java.util.List;
+import java.util.Map;
+
+public class BudgetMonitorTest {
+
+    private final DegradableSelector selector =
+            new DegradableSelector(new _1ObjSelector());
+
+    private final CSManager csManager = new MapBasedCSManager();
+
+    private final Obj o1 = new MockObj("o1", "o1", null);
+
+    private final Obj o2 = new MockObj("o2", "o2", null);
+
+    @Test
+    public void testWithinBudgets() {
+        BudgetMonitor monitor = new BudgetMonitor(new AnalysisOptions(Map.of(
+                "time-limit", 3600, "max-cs-elements", 100,
+                "max-heap-fraction", 1.0)), selector);
+        monitor.start();
+        csManager.getCSObj(selector.getEmptyContext(), o1);
+        monitor.check(csManager);
+        Assert.assertTrue(monitor.getDegradations().isEmpty());
+        Assert.assertNotSame(selector.getEmptyContext(), selectContext());
+    }
+
+    @Test
+    public void testCSElements() {
+        BudgetMonitor monitor = new BudgetMonitor(new AnalysisOptions(Map.of(
+                "max-cs-elements", 1)), selector);
+        monitor.start();
+        csManager.getCSObj(selector.getEmptyContext(), o1);
+        monitor.check(csManager);
+        Assert.assertTrue(monitor.getDegradations().isEmpty());
+        csManager.getCSObj(selector.getEmptyContext(), o2);
+        monitor.check(csManager);
+        monitor.check(csManager);
+        List<BudgetMonitor.Degradation> degradations = monitor.getDegradations();
+        // each budget triggers at most once
+        Assert.assertEquals(1, degradations.size());
+        Assert.assertEquals(BudgetMonitor.Kind.CS_ELEMENTS, degradations.get(0).kind());
+        Assert.assertEquals(2, degradations.get(0).csElements());
+        Assert.assertSame(selector.getEmptyContext(), selectContext());
+    }
+
+    @Test
+    public void testHeap() {
+        BudgetMonitor monitor = new BudgetMonitor(new AnalysisOptions(Map.of(
+                "max-heap-fraction", 0.0)), selector);
+        monitor.start();
+        System.gc();
+        double fraction = BudgetMonitor.getHeapFraction();
+        Assert.assertTrue(fraction > 0 && fraction < 1);
+        monitor.check(csManager);
+        List<BudgetMonitor.Degradation> degradations = monitor.getDegradations();
+        Assert.assertEquals(1, degradations.size());
+        Assert.assertEquals(BudgetMonitor.Kind.HEAP, degradations.get(0).kind());
+        // heap degradation also merges the objects allocated afterwards
+        Assert.assertSame(selector.getEmptyContext(),
+                selector.selectHeapContext(null, o1));
+    }
+
+    @Test
+    public void testTimeByPolls() throws InterruptedException {
+        BudgetMonitor monitor = new BudgetMonitor(new AnalysisOptions(Map.of(
+                "time-limit", 0)), selector);
+        monitor.start();
+        Thread.sleep(1100);
+        // the budgets are checked while the solver polls the work-list
+        for (int i = 0; i < 1024; ++i) {
+            monitor.poll(csManager);
+        }
+        List<BudgetMonitor.Degradation> degradations = monitor.getDegradations();
+        Assert.assertEquals(1, degradations.size());
+        Assert.assertEquals(BudgetMonitor.Kind.TIME, degradations.get(0).kind());
+        Assert.assertSame(selector.getEmptyContext(), selectContext());
+    }
+
+    @Test
+    public void testTimeFromStart() throws InterruptedException {
+        BudgetMonitor monitor = new BudgetMonitor(new AnalysisOptions(Map.of(
+                "time-limit", 1)), selector);
+        // the time spent before solving is not counted
+        Thread.sleep(1100);
+        monitor.start();
+        monitor.check(csManager);
+        Assert.assertTrue(monitor.getDegradations().isEmpty());
+    }
+
+    /**
+     * @return the context selected for receiver object o1, which is
+     * non-empty unless the method contexts are degraded.
+     */
+    private Context selectContext() {
+        CSObj recv = csManager.getCSObj(selector.getEmptyContext(), o1);
+        return selector.selectContext(null, recv, null);
+    }
+}
@@ -0,0 +1,261 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.cs;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.Main;
+import pascal.taie.World;
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.graph.callgraph.CallGraphs;
+import pascal.taie.analysis.graph.callgraph.DefaultCallGraph;
+import pascal.taie.analysis.graph.callgraph.Edge;
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.context.ContextFactory;
+import pascal.taie.analysis.pta.core.cs.context.TrieContext;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.MapBasedCSManager;
+import pascal.taie.analysis.pta.core.heap.AllocationSiteBasedModel;
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.ir.exp.InvokeInstanceExp;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.ClassType;
+import pascal.taie.language.type.Type;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compares the points-to sets computed by {@link DemandPointerAnalysis}
+ * with the expected results of CS pointer analysis.
+ */
+public class DemandPointerAnalysisTest {
+
+    private static final String DIR = "src/test/resources/pta/cspta";
+
+    /**
+     * Pattern of the lines of variables in expected files,
+     * i.e., "context:<method>/var -> [objects]".
+     */
+    private static final Pattern VAR_LINE =
+            Pattern.compile("^(\\[.*?]):(<.+>)/(\\S+) -> \\[(.*)]$");
+
+    private static final Pattern OBJ = Pattern.compile("NewObj\\{.*?}");
+
+    @Test
+    public void testAssign() {
+        test("Assign", 0);
+    }
+
+    @Test
+    public void testStoreLoad() {
+        test("StoreLoad", 0);
+    }
+
+    @Test
+    public void testCall() {
+        test("Call", 0);
+    }
+
+    @Test
+    public void testInstanceField() {
+        test("InstanceField", 0);
+    }
+
+    @Test
+    public void testStaticField() {
+        test("StaticField", 0);
+    }
+
+    @Test
+    public void testArray() {
+        test("Array", 0);
+    }
+
+    @Test
+    public void testOneCall() {
+        test("OneCall", 1);
+    }
+
+    @Test
+    public void testBudget() {
+        Main.buildWorld("-pp", "-cp", DIR, "-m", "InstanceField");
+        DemandPointerAnalysis pta = newAnalysis(buildCHACallGraph(),
+                new TrieContext.Factory<>(), 0, 1);
+        Var x = getVar("<A: void longAP()>", "x");
+        Assert.assertNull(pta.pointsTo(x));
+    }
+
+    /**
+     * Queries each variable in the expected file of given test case
+     * in its context, and compares the objects pointed by it.
+     *
+     * @param k limit of call-site contexts, which should be the one
+     *          used to produce the expected file.
+     */
+    private static void test(String main, int k) {
+        Main.buildWorld("-pp", "-cp", DIR, "-m", main);
+        CallGraph<Invoke, JMethod> callGraph = buildCHACallGraph();
+        ContextFactory<Invoke> factory = new TrieContext.Factory<>();
+        DemandPointerAnalysis pta = newAnalysis(
+                callGraph, factory, k, Integer.MAX_VALUE);
+        // the contexts in the expected files consist of at most one call site
+        Map<String, Context> contexts = Maps.newMap();
+        Context empty = factory.getEmptyContext();
+        contexts.put(empty.toString(), empty);
+        callGraph.reachableMethods()
+                .flatMap(callGraph::callSitesIn)
+                .forEach(callSite -> {
+                    Context context = factory.make(List.of(callSite));
+                    contexts.put(context.toString(), context);
+                });
+        List<String> mismatches = new ArrayList<>();
+        for (String line : readExpectedVars(main)) {
+            Matcher m = VAR_LINE.matcher(line);
+            Assert.assertTrue(line, m.matches());
+            Context context = contexts.get(m.group(1));
+            Assert.assertNotNull("Unknown context: " + m.group(1), context);
+            Set<CSObj> pts = pta.pointsTo(getVar(m.group(2), m.group(3)), context);
+            Assert.assertNotNull(pts);
+            Set<String> actual = new TreeSet<>();
+            pts.forEach(o -> actual.add(o.getObject().toString()));
+            Set<String> expected = new TreeSet<>();
+            Matcher objs = OBJ.matcher(m.group(4));
+            while (objs.find()) {
+                expected.add(objs.group());
+            }
+            if (!actual.equals(expected)) {
+                mismatches.add(line + "\n  but got " + actual);
+            }
+        }
+        Assert.assertTrue(String.join("\n", mismatches), mismatches.isEmpty());
+    }
+
+    private static DemandPointerAnalysis newAnalysis(
+            CallGraph<Invoke, JMethod> callGraph,
+            ContextFactory<Invoke> factory, int k, int budget) {
+        AnalysisOptions options = new AnalysisOptions(Map.of(
+                "merge-string-constants", false,
+                "merge-string-objects", false,
+                "merge-string-builders", false,
+                "merge-exception-objects", false));
+        return new DemandPointerAnalysis(callGraph,
+                new AllocationSiteBasedModel(options), new MapBasedCSManager(),
+                factory, k, budget);
+    }
+
+    /**
+     * Builds the call graph by class hierarchy analysis. As the expected
+     * results are produced with option only-app:true, only the call sites
+     * in application methods are resolved.
+     */
+    private static CallGraph<Invoke, JMethod> buildCHACallGraph() {
+        DefaultCallGraph callGraph = new DefaultCallGraph();
+        JMethod main = World.get().getMainMethod();
+        callGraph.addEntryMethod(main);
+        Deque<JMethod> workList = new ArrayDeque<>();
+        workList.add(main);
+        while (!workList.isEmpty()) {
+            JMethod method = workList.poll();
+            if (!callGraph.addReachableMethod(method) ||
+                    !method.getDeclaringClass().isApplication()) {
+                continue;
+            }
+            for (Stmt stmt : method.getIR()) {
+                if (stmt instanceof Invoke callSite) {
+                    for (JMethod callee : resolveCallees(callSite)) {
+                        callGraph.addEdge(new Edge<>(
+                                CallGraphs.getCallKind(callSite), callSite, callee));
+                        workList.add(callee);
+                    }
+                }
+            }
+        }
+        return callGraph;
+    }
+
+    private static Set<JMethod> resolveCallees(Invoke callSite) {
+        Set<JMethod> callees = Sets.newSet();
+        if (callSite.isVirtual() || callSite.isInterface()) {
+            Type type = ((InvokeInstanceExp) callSite.getInvokeExp())
+                    .getBase().getType();
+            if (type instanceof ClassType classType) {
+                for (JClass c : World.get().getClassHierarchy()
+                        .getAllSubclassesOf(classType.getJClass(), true)) {
+                    if (!c.isAbstract()) {
+                        addCallee(callees, CallGraphs.resolveCallee(c.getType(), callSite));
+                    }
+                }
+            } else { // array types
+                addCallee(callees, CallGraphs.resolveCallee(type, callSite));
+            }
+        } else if (!callSite.isDynamic()) {
+            addCallee(callees, CallGraphs.resolveCallee(null, callSite));
+        }
+        return callees;
+    }
+
+    private static void addCallee(Set<JMethod> callees, JMethod callee) {
+        if (callee != null) {
+            callees.add(callee);
+        }
+    }
+
+    private static List<String> readExpectedVars(String main) {
+        Path file = Path.of(DIR, main + "-cspta-expected.txt");
+        try {
+            return Files.readAllLines(file)
+                    .stream()
+                    .skip(1) // header of points-to sets of variables
+                    .takeWhile(line -> !line.isBlank())
+                    .toList();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read " + file, e);
+        }
+    }
+
+    private static Var getVar(String methodSig, String name) {
+        JMethod method = World.get().getClassHierarchy().getMethod(methodSig);
+        return method.getIR().getVars()
+                .stream()
+                .filter(v -> v.getName().equals(name))
+                .findFirst()
+                .orElseThrow();
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.cs;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.Main;
+import pascal.taie.World;
+import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+public class IncrementalSolvingTest {
+
+    private static final String DIR = "src/test/resources/pta/incremental/";
+
+    @Test
+    public void testSameAsFreshRun() throws IOException {
+        for (String cs : List.of("ci", "2-obj", "2-call", "2-type")) {
+            Path dir = Files.createTempDirectory("incremental");
+            try {
+                PointerAnalysisResult v1 = analyze("v1", cs, dir);
+                // no snapshot of previous run, v1 is solved from scratch
+                Assert.assertNull(v1.getResult(IncrementalSolving.class.getName()));
+                PointerAnalysisResult v2 = analyze("v2", cs, dir);
+                IncrementalSolving.Stats stats =
+                        v2.getResult(IncrementalSolving.class.getName());
+                Assert.assertNotNull(cs + ": snapshot is not restored", stats);
+                // only make() changed, so main() and the others survive
+                Assert.assertTrue(cs + ": " + stats, stats.deletedMethods() > 0
+                        && stats.deletedMethods() < stats.reachableMethods());
+                Assert.assertEquals(cs, toFacts(analyze("v2", cs, null)), toFacts(v2));
+                // v2 is restored again without any deletion
+                stats = analyze("v2", cs, dir).getResult(IncrementalSolving.class.getName());
+                Assert.assertNotNull(stats);
+                Assert.assertEquals(0, stats.deletedMethods());
+                Assert.assertEquals(0, stats.affectedPointers());
+            } finally {
+                try (Stream<Path> files = Files.walk(dir)) {
+                    for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                        Files.delete(file);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the points-to sets, call edges and reachable methods of
+     * given result in string representations.
+     */
+    private static Set<String> toFacts(PointerAnalysisResult result) {
+        Set<String> facts = new HashSet<>();
+        List<Collection<? extends Pointer>> pointers = List.of(
+                result.getCSVars(), result.getStaticFields(),
+                result.getInstanceFields(), result.getArrayIndexes());
+        pointers.forEach(ptrs -> ptrs.forEach(p -> {
+            if (!p.getPointsToSet().isEmpty()) {
+                facts.add(p + " -> " + p.getPointsToSet()
+                        .objects()
+                        .map(Object::toString)
+                        .sorted()
+                        .toList());
+            }
+        }));
+        result.getCSCallGraph().edges().forEach(e -> facts.add(e.toString()));
+        result.getCSCallGraph().reachableMethods().forEach(m -> facts.add(m.toString()));
+        return facts;
+    }
+
+    /**
+     * Runs context-sensitive pointer analysis on given version of the
+     * program, incrementally if the snapshot directory is given.
+     */
+    private static PointerAnalysisResult analyze(String version, String cs, Path dir) {
+        String incremental = dir == null ? "" :
+                ";incremental:true;detect-changed-methods:" + dir;
+        Main.main(new String[]{"-pp", "-cp", DIR + version, "-m", "Incremental",
+                "-a", CSPTA.ID + "=implicit-entries:false;only-app:true;cs:" + cs
+                + incremental});
+        return World.get().getResult(CSPTA.ID);
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.cs;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.Main;
+import pascal.taie.World;
+import pascal.taie.language.classes.JClass;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+
+public class MethodFingerprintsTest {
+
+    private static final String DIR = "src/test/resources/pta/fingerprints/";
+
+    @Test
+    public void testDiff() {
+        MethodFingerprints v1 = compute("v1");
+        MethodFingerprints v2 = compute("v2");
+        // unchanged() is moved by the comment, but not changed
+        Assert.assertEquals(Set.of("<Changes: int changed()>"), v2.diff(v1));
+        Assert.assertEquals(Set.of(), compute("v1").diff(v1));
+    }
+
+    @Test
+    public void testReadWrite() throws IOException {
+        Path dir = Files.createTempDirectory("fingerprints");
+        Path file = dir.resolve("fingerprints.txt");
+        try {
+            Assert.assertNull(MethodFingerprints.read(file));
+            MethodFingerprints v1 = compute("v1");
+            v1.write(file);
+            MethodFingerprints read = MethodFingerprints.read(file);
+            Assert.assertNotNull(read);
+            Assert.assertEquals(Set.of(), v1.diff(read));
+            Assert.assertEquals(Set.of("<Changes: int changed()>"),
+                    compute("v2").diff(read));
+        } finally {
+            Files.deleteIfExists(file);
+            Files.delete(dir);
+        }
+    }
+
+    private static MethodFingerprints compute(String version) {
+        Main.buildWorld("-pp", "-cp", DIR + version, "-m", "Changes");
+        JClass c = World.get().getClassHierarchy().getClass("Changes");
+        return MethodFingerprints.compute(c.getDeclaredMethods());
+    }
+}
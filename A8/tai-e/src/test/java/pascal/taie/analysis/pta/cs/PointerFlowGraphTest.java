@@ -0,0 +1,86 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.cs;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.analysis.pta.core.cs.context.ListContext;
+import pascal.taie.analysis.pta.core.cs.element.CSManager;
+import pascal.taie.analysis.pta.core.cs.element.MapBasedCSManager;
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.core.heap.MockObj;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+public class PointerFlowGraphTest {
+
+    private final CSManager csManager = new MapBasedCSManager();
+
+    /**
+     * @return n distinct pointers, i.e., the array indexes of n mock objects.
+     */
+    private List<Pointer> makePointers(int n) {
+        List<Pointer> pointers = new ArrayList<>();
+        for (int i = 0; i < n; ++i) {
+            MockObj obj = new MockObj("o", "o" + i, null);
+            pointers.add(csManager.getArrayIndex(
+                    csManager.getCSObj(ListContext.make(), obj)));
+        }
+        return pointers;
+    }
+
+    @Test
+    public void testAddEdge() {
+        PointerFlowGraph pfg = new PointerFlowGraph();
+        List<Pointer> p = makePointers(3);
+        Assert.assertTrue(pfg.addEdge(p.get(0), p.get(1)));
+        Assert.assertTrue(pfg.addEdge(p.get(0), p.get(2)));
+        Assert.assertFalse(pfg.addEdge(p.get(0), p.get(1)));
+        Assert.assertEquals(Set.of(p.get(1), p.get(2)), pfg.getSuccsOf(p.get(0)));
+        Assert.assertTrue(pfg.getSuccsOf(p.get(1)).isEmpty());
+        Assert.assertEquals(2, pfg.getNumberOfEdges());
+    }
+
+    @Test
+    public void testManyEdges() {
+        // enough edges to grow the successor arrays and the edge table
+        PointerFlowGraph pfg = new PointerFlowGraph();
+        List<Pointer> p = makePointers(40);
+        for (Pointer source : p) {
+            for (Pointer target : p) {
+                pfg.addEdge(source, target);
+            }
+        }
+        for (Pointer source : p) {
+            Assert.assertFalse(pfg.addEdge(source, p.get(0)));
+            Assert.assertEquals(p.size(), pfg.getSuccsOf(source).size());
+            Assert.assertTrue(pfg.getSuccsOf(source).containsAll(p));
+        }
+        PointerFlowGraph.Stats stats = pfg.getStats();
+        Assert.assertEquals(40, stats.nodes());
+        Assert.assertEquals(1600, stats.edges());
+        Assert.assertTrue(stats.memoryFootprint() > 8 * 1600);
+    }
+}
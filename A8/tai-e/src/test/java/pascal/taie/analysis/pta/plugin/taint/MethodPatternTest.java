@@ -0,0 +1,107 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.plugin.taint;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import pascal.taie.Main;
+import pascal.taie.World;
+import pascal.taie.config.ConfigException;
+import pascal.taie.language.classes.JMethod;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public class MethodPatternTest {
+
+    @BeforeClass
+    public static void buildWorld() {
+        Main.buildWorld("-pp", "-cp", "src/test/resources/pta/taint",
+                "-m", "SimpleTaint");
+    }
+
+    @Test
+    public void testIsPattern() {
+        Assert.assertFalse(MethodPattern.isPattern(
+                "<SourceSink: void sink(java.lang.String)>"));
+        Assert.assertTrue(MethodPattern.isPattern("<SourceSink: void sink*(java.lang.String)>"));
+        Assert.assertTrue(MethodPattern.isPattern("<SourceSink+: void sink(java.lang.String)>"));
+        Assert.assertTrue(MethodPattern.isPattern("<SourceSink: void sink(..)>"));
+    }
+
+    @Test
+    public void testGlobs() {
+        Assert.assertEquals(Set.of("<SourceSink: void sink(java.lang.String)>"),
+                match("<SourceSink: * sink(*)>"));
+        Assert.assertEquals(Set.of("<SourceSink: java.lang.String source()>"),
+                match("<SourceSink: java.lang.String source*()>"));
+        Assert.assertEquals(Set.of(
+                        "<SourceSink: void sink(java.lang.String,int)>",
+                        "<SourceSink: void sink(java.lang.String,java.lang.String)>"),
+                match("<Source*: void sink(java.lang.String,*)>"));
+        Assert.assertEquals(Set.of(), match("<SourceSink: int sink*(..)>"));
+    }
+
+    @Test
+    public void testAnyParams() {
+        Assert.assertEquals(Set.of(
+                        "<SourceSink: void sink(java.lang.String)>",
+                        "<SourceSink: void sink(java.lang.String,int)>",
+                        "<SourceSink: void sink(java.lang.String,java.lang.String)>"),
+                match("<SourceSink: void sink(..)>"));
+        Assert.assertEquals(Set.of(
+                        "<SourceSink: void sink(java.lang.String)>",
+                        "<SourceSink: void sink(java.lang.String,java.lang.String)>"),
+                match("<SourceSink: void sink(..,java.lang.String)>"));
+        Assert.assertEquals(Set.of(
+                        "<SourceSink: void sink(java.lang.String,java.lang.String)>",
+                        "<SourceSink: java.lang.String sourceAndSink(java.lang.String,java.lang.String)>"),
+                match("<SourceSink: * *(java.lang.String,..,java.lang.String)>"));
+    }
+
+    @Test
+    public void testSubclasses() {
+        Set<String> matched = match("<java.lang.CharSequence+: java.lang.String toString()>");
+        Assert.assertTrue(matched.contains("<java.lang.String: java.lang.String toString()>"));
+        Assert.assertTrue(matched.contains("<java.lang.StringBuilder: java.lang.String toString()>"));
+        Assert.assertFalse(matched.contains("<java.lang.Object: java.lang.String toString()>"));
+        // without '+', only the methods declared in the class are matched
+        Assert.assertFalse(match("<java.lang.CharSequence: java.lang.String toString()>")
+                .contains("<java.lang.String: java.lang.String toString()>"));
+    }
+
+    @Test(expected = ConfigException.class)
+    public void testInvalid() {
+        MethodPattern.parse("<SourceSink: sink*(..)>");
+    }
+
+    private static Set<String> match(String pattern) {
+        List<JMethod> methods = MethodPattern.parse(pattern)
+                .match(World.get().getClassHierarchy());
+        return methods.stream()
+                .map(JMethod::getSignature)
+                .collect(Collectors.toSet());
+    }
+}
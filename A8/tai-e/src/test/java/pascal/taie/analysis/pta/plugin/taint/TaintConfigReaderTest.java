@@ -0,0 +1,155 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.plugin.taint;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import pascal.taie.Main;
+import pascal.taie.World;
+import pascal.taie.config.ConfigException;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.Type;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+public class TaintConfigReaderTest {
+
+    private static final String DIR = "src/test/resources/pta/taint/";
+
+    @BeforeClass
+    public static void buildWorld() {
+        Main.buildWorld("-pp", "-cp", "src/test/resources/pta/taint",
+                "-m", "SimpleTaint");
+    }
+
+    @Test
+    public void testRead() {
+        TaintConfig config = read("taint-config.yml", null);
+        Assert.assertEquals(2, config.getSources().size());
+        Assert.assertEquals(4, config.getSinks().size());
+        Assert.assertEquals(10, config.getTransfers().size());
+        Assert.assertTrue(config.getSanitizers().isEmpty());
+        // overloaded methods of the same class are resolved separately
+        Assert.assertTrue(config.getSinks().contains(new Sink(getMethod(
+                "<SourceSink: void sink(java.lang.String,java.lang.String)>"), 1)));
+        Assert.assertTrue(config.getSinks().contains(new Sink(getMethod(
+                "<SourceSink: void sink(java.lang.String,int)>"), 0)));
+        Type string = World.get().getTypeSystem().getType("java.lang.String");
+        Assert.assertTrue(config.getTransfers().contains(new TaintTransfer(
+                getMethod("<java.lang.String: java.lang.String concat(java.lang.String)>"),
+                TaintTransfer.BASE, TaintTransfer.RESULT, string)));
+    }
+
+    @Test
+    public void testPatterns() {
+        TaintConfig config = read("taint-config-patterns.yml", null);
+        Assert.assertEquals(2, config.getSources().size());
+        Assert.assertEquals(3, config.getSinks().size());
+        for (Sink sink : config.getSinks()) {
+            Assert.assertEquals("sink", sink.method().getName());
+            Assert.assertEquals(0, sink.index());
+        }
+        // expanded to the overriders in the implementors of CharSequence
+        Assert.assertTrue(config.getTransfers().stream()
+                .anyMatch(t -> t.method().equals(getMethod(
+                        "<java.lang.String: java.lang.String toString()>"))));
+    }
+
+    @Test
+    public void testSanitizers() {
+        TaintConfig config = read("taint-config-sanitizers.yml", null);
+        Assert.assertEquals(Set.of(
+                new Sanitizer(getMethod("<java.lang.String: java.lang.String trim()>"),
+                        TaintTransfer.RESULT),
+                new Sanitizer(getMethod("<java.lang.String: java.lang.String concat(java.lang.String)>"),
+                        0),
+                new Sanitizer(getMethod("<java.lang.StringBuilder: java.lang.StringBuilder append(java.lang.String)>"),
+                        TaintTransfer.BASE)), config.getSanitizers());
+    }
+
+    @Test(expected = ConfigException.class)
+    public void testMissingIndex() {
+        read("taint-config-missing-index.yml", null);
+    }
+
+    @Test(expected = ConfigException.class)
+    public void testMissingType() {
+        read("taint-config-missing-type.yml", null);
+    }
+
+    @Test
+    public void testCache() throws IOException {
+        Path cacheDir = Files.createTempDirectory("taint-config-cache");
+        try {
+            TaintConfig parsed = read("taint-config.yml", cacheDir.toString());
+            List<Path> files = list(cacheDir);
+            Assert.assertEquals(1, files.size());
+            Path cacheFile = files.get(0);
+            // the cache file is loaded instead of being stored again
+            FileTime stored = FileTime.fromMillis(0);
+            Files.setLastModifiedTime(cacheFile, stored);
+            assertSameConfig(parsed, read("taint-config.yml", cacheDir.toString()));
+            Assert.assertEquals(stored, Files.getLastModifiedTime(cacheFile));
+            // a broken cache file is ignored and replaced
+            Files.write(cacheFile, new byte[]{1, 2, 3});
+            assertSameConfig(parsed, read("taint-config.yml", cacheDir.toString()));
+            Assert.assertEquals(List.of(cacheFile), list(cacheDir));
+            Assert.assertTrue(Files.size(cacheFile) > 3);
+        } finally {
+            for (Path file : list(cacheDir)) {
+                Files.delete(file);
+            }
+            Files.delete(cacheDir);
+        }
+    }
+
+    private static TaintConfig read(String file, @Nullable String cacheDir) {
+        return TaintConfig.readConfig(DIR + file, World.get().getClassHierarchy(),
+                World.get().getTypeSystem(), cacheDir);
+    }
+
+    private static JMethod getMethod(String signature) {
+        return World.get().getClassHierarchy().getMethod(signature);
+    }
+
+    private static List<Path> list(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.toList();
+        }
+    }
+
+    private static void assertSameConfig(TaintConfig expected, TaintConfig actual) {
+        Assert.assertEquals(expected.getSources(), actual.getSources());
+        Assert.assertEquals(expected.getSinks(), actual.getSinks());
+        Assert.assertEquals(expected.getTransfers(), actual.getTransfers());
+        Assert.assertEquals(expected.getSanitizers(), actual.getSanitizers());
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.plugin.taint;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import pascal.taie.Main;
+import pascal.taie.World;
+import pascal.taie.ir.stmt.Invoke;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+public class TaintFlowReporterTest {
+
+    private static List<TaintFlow> flows;
+
+    @BeforeClass
+    public static void buildWorld() {
+        Main.buildWorld("-pp", "-cp", "src/test/resources/pta/taint/propagator",
+                "-m", "TaintCalls");
+        List<Invoke> calls = World.get().getMainMethod().getIR().stmts()
+                .filter(s -> s instanceof Invoke)
+                .map(s -> (Invoke) s)
+                .toList();
+        // flows between all pairs of calls, which need not be real
+        // sources and sinks for the reporter
+        flows = new ArrayList<>();
+        for (Invoke source : calls) {
+            for (Invoke sink : calls) {
+                flows.add(new TaintFlow(source, sink, 0));
+                flows.add(new TaintFlow(source, sink, 1));
+            }
+        }
+    }
+
+    @Test
+    public void testDeduplicate() throws IOException {
+        Path file = Files.createTempFile("taint-flows", ".jsonl");
+        try {
+            TaintFlowReporter reporter = new TaintFlowReporter(2,
+                    List.of(TaintFlowWriter.jsonLines(file.toString(),
+                            List.of("first", "second"))),
+                    0, () -> Assert.fail("no limit is given"));
+            List<TaintFlow> listened = new ArrayList<>();
+            reporter.addListener(listened::add);
+            for (int i = 0; i < 3; ++i) {
+                flows.forEach(flow -> reporter.report(flow, 0));
+            }
+            reporter.report(flows.get(0), 1);
+            reporter.close();
+            // each flow is written once per configuration,
+            // and passed to the listeners once
+            Assert.assertEquals(flows.size() + 1, Files.readAllLines(file).size());
+            Assert.assertEquals(flows, listened);
+            Assert.assertEquals(flows.size(), reporter.getNumberOfFlows());
+            // the flows are kept as the result even if they are written
+            Assert.assertEquals(Set.copyOf(flows), reporter.getFlows());
+            Assert.assertEquals(Set.copyOf(flows), reporter.getFlows(0));
+            Assert.assertEquals(Set.of(flows.get(0)), reporter.getFlows(1));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testLimit() {
+        int[] limits = {0};
+        TaintFlowReporter reporter = new TaintFlowReporter(2, List.of(),
+                3, () -> ++limits[0]);
+        for (int i = 0; i < 2; ++i) {
+            reporter.report(flows.get(i), 0);
+            // the same flow of another configuration is not counted again
+            reporter.report(flows.get(i), 1);
+        }
+        Assert.assertFalse(reporter.isLimitReached());
+        flows.forEach(flow -> reporter.report(flow, 0));
+        Assert.assertTrue(reporter.isLimitReached());
+        Assert.assertEquals(1, limits[0]);
+        Assert.assertEquals(3, reporter.getNumberOfFlows());
+        Assert.assertEquals(Set.copyOf(flows.subList(0, 3)), reporter.getFlows());
+    }
+}
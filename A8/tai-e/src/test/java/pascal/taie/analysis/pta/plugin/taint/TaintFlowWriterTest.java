@@ -0,0 +1,132 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.plugin.taint;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import pascal.taie.Main;
+import pascal.taie.World;
+import pascal.taie.ir.stmt.Invoke;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+public class TaintFlowWriterTest {
+
+    private static final List<String> CONFIGS = List.of("first", "second");
+
+    private static TaintFlow flow;
+
+    private static TaintFlow otherFlow;
+
+    @BeforeClass
+    public static void buildWorld() {
+        Main.buildWorld("-pp", "-cp", "src/test/resources/pta/taint/propagator",
+                "-m", "TaintCalls");
+        List<Invoke> calls = World.get().getMainMethod().getIR().stmts()
+                .filter(s -> s instanceof Invoke)
+                .map(s -> (Invoke) s)
+                .toList();
+        Invoke source = calls.get(0);
+        List<Invoke> sinks = calls.stream()
+                .filter(call -> call.getMethodRef().getName().equals("sink"))
+                .toList();
+        flow = new TaintFlow(source, sinks.get(0), 0);
+        otherFlow = new TaintFlow(source, sinks.get(1), 0);
+    }
+
+    @Test
+    public void testJsonLines() throws IOException {
+        Path file = Files.createTempFile("taint-flows", ".jsonl");
+        try {
+            TaintFlowWriter writer = TaintFlowWriter.jsonLines(file.toString(), CONFIGS);
+            writer.write(flow, 0);
+            writer.write(otherFlow, 1);
+            // flushed flows are visible before the writer is closed
+            writer.flush();
+            Assert.assertEquals(2, Files.readAllLines(file).size());
+            writer.close();
+            List<String> lines = Files.readAllLines(file);
+            Assert.assertEquals(2, lines.size());
+            ObjectMapper mapper = new ObjectMapper();
+            JsonNode first = mapper.readTree(lines.get(0));
+            Assert.assertEquals("first", first.get("config").asText());
+            Assert.assertEquals(flow.sourceCall().getLineNumber(),
+                    first.get("sourceLine").asInt());
+            Assert.assertEquals(flow.sinkCall().getLineNumber(),
+                    first.get("sinkLine").asInt());
+            Assert.assertEquals(0, first.get("index").asInt());
+            JsonNode second = mapper.readTree(lines.get(1));
+            Assert.assertEquals("second", second.get("config").asText());
+            Assert.assertEquals(otherFlow.sinkCall().getLineNumber(),
+                    second.get("sinkLine").asInt());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testSarif() throws IOException {
+        Path file = Files.createTempFile("taint-flows", ".sarif");
+        try {
+            TaintFlowWriter writer = TaintFlowWriter.sarif(file.toString(), CONFIGS);
+            writer.write(flow, 0);
+            writer.write(otherFlow, 1);
+            writer.close();
+            JsonNode sarif = new ObjectMapper().readTree(file.toFile());
+            Assert.assertEquals("2.1.0", sarif.get("version").asText());
+            JsonNode run = sarif.get("runs").get(0);
+            JsonNode rules = run.get("tool").get("driver").get("rules");
+            Assert.assertEquals(2, rules.size());
+            Assert.assertEquals("second", rules.get(1).get("id").asText());
+            JsonNode results = run.get("results");
+            Assert.assertEquals(2, results.size());
+            Assert.assertEquals("first", results.get(0).get("ruleId").asText());
+            Assert.assertEquals("second", results.get(1).get("ruleId").asText());
+            Assert.assertEquals("TaintCalls.java", results.get(0)
+                    .get("locations").get(0)
+                    .get("physicalLocation").get("artifactLocation")
+                    .get("uri").asText());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testEmptySarif() throws IOException {
+        Path file = Files.createTempFile("taint-flows", ".sarif");
+        try {
+            TaintFlowWriter.sarif(file.toString(), CONFIGS).close();
+            JsonNode sarif = new ObjectMapper().readTree(file.toFile());
+            Assert.assertEquals(0, sarif.get("runs").get(0)
+                    .get("results").size());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.plugin.taint;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import pascal.taie.Main;
+import pascal.taie.World;
+import pascal.taie.analysis.pta.core.heap.MockObj;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.type.Type;
+import pascal.taie.util.AnalysisException;
+
+import java.util.BitSet;
+
+public class TaintManagerTest {
+
+    private static Invoke source;
+
+    private static Type data;
+
+    private static Type object;
+
+    @BeforeClass
+    public static void buildWorld() {
+        Main.buildWorld("-pp", "-cp", "src/test/resources/pta/taint/propagator",
+                "-m", "TaintCalls");
+        source = World.get().getMainMethod().getIR().stmts()
+                .filter(s -> s instanceof Invoke)
+                .map(s -> (Invoke) s)
+                .findFirst()
+                .orElseThrow();
+        data = World.get().getTypeSystem().getType("Data");
+        object = World.get().getTypeSystem().getType("java.lang.Object");
+    }
+
+    @Test
+    public void testIds() {
+        TaintManager manager = new TaintManager(2);
+        Obj t0 = manager.makeTaint(0, source, data);
+        Obj t1 = manager.makeTaint(0, source, object);
+        Obj t2 = manager.makeTaint(1, source, data);
+        // taint objects are unique for each configuration, source and type
+        Assert.assertSame(t0, manager.makeTaint(0, source, data));
+        Assert.assertNotEquals(t0, t2);
+        Assert.assertEquals(3, manager.getNumberOfTaints());
+        // ids are dense and given in the order of creation
+        Assert.assertEquals(0, manager.getId(t0));
+        Assert.assertEquals(1, manager.getId(t1));
+        Assert.assertEquals(2, manager.getId(t2));
+        for (Obj taint : new Obj[]{t0, t1, t2}) {
+            int id = manager.getId(taint);
+            Assert.assertSame(taint, manager.getTaint(id));
+            Assert.assertEquals(manager.getConfig(taint), manager.getConfig(id));
+            Assert.assertSame(source, manager.getSourceCall(id));
+            Assert.assertSame(source, manager.getSourceCall(taint));
+        }
+        Assert.assertEquals(1, manager.getConfig(t2));
+        Assert.assertEquals(object, t1.getType());
+    }
+
+    @Test
+    public void testBitmaps() {
+        TaintManager manager = new TaintManager(2);
+        manager.makeTaint(0, source, data);
+        manager.makeTaint(1, source, data);
+        BitSet first = manager.getTaintsOf(0);
+        Assert.assertEquals(BitSet.valueOf(new long[]{0b01}), first);
+        Assert.assertEquals(BitSet.valueOf(new long[]{0b10}), manager.getTaintsOf(1));
+        // the bitmap of a configuration grows with its taint objects
+        manager.makeTaint(0, source, object);
+        Assert.assertEquals(BitSet.valueOf(new long[]{0b101}), first);
+        Assert.assertFalse(first.intersects(manager.getTaintsOf(1)));
+    }
+
+    @Test
+    public void testNonTaint() {
+        TaintManager manager = new TaintManager(1);
+        Obj obj = new MockObj("NonTaint", source, data);
+        Assert.assertFalse(manager.isTaint(obj));
+        Assert.assertTrue(manager.isTaint(manager.makeTaint(0, source, data)));
+        Assert.assertThrows(AnalysisException.class, () -> manager.getId(obj));
+    }
+}
@@ -0,0 +1,289 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.plugin.taint;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import pascal.taie.Main;
+import pascal.taie.World;
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.element.CSManager;
+import pascal.taie.analysis.pta.core.cs.element.CSVar;
+import pascal.taie.analysis.pta.core.cs.element.MapBasedCSManager;
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.core.cs.selector.CISelector;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.cs.PointerFlowGraph;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.Type;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+public class TaintPropagatorTest {
+
+    @BeforeClass
+    public static void buildWorld() {
+        Main.buildWorld("-pp", "-cp", "src/test/resources/pta/taint/propagator",
+                "-m", "TaintCalls");
+    }
+
+    @Test
+    public void testCallsOnTaints() {
+        JMethod main = World.get().getMainMethod();
+        JMethod leak = getMethod("Data", "leak");
+        Invoke source = getCall(main, "source");
+        Invoke self = getCall(main, "self");
+        Invoke sink = getCall(main, "sink");
+        Invoke sinkInLeak = getCall(leak, "sink");
+        Propagation p = new Propagation(1);
+        p.propagator.addSink(p.getCSVar(sink.getInvokeExp().getArg(0)), sink, 0, 0);
+        p.propagator.addSink(p.getCSVar(sinkInLeak.getInvokeExp().getArg(0)),
+                sinkInLeak, 0, 0);
+        p.propagator.addTaints(p.getCSVar(source.getLValue()),
+                Set.of(p.manager.makeTaint(0, source, self.getLValue().getType())));
+        // the solver adds no edges for the calls on taint objects,
+        // so both flows pass the edges added by the propagator:
+        // d -> this of self() -> e, and d -> this of leak()
+        Assert.assertEquals(List.of(getMethod("Data", "self"), leak), p.callees);
+        Assert.assertEquals(Set.of(new TaintFlow(source, sink, 0),
+                        new TaintFlow(source, sinkInLeak, 0)),
+                Set.copyOf(p.flows));
+    }
+
+    @Test
+    public void testConfigSeparation() {
+        JMethod main = World.get().getMainMethod();
+        Invoke source = getCall(main, "source");
+        Invoke self = getCall(main, "self");
+        Invoke sink = getCall(main, "sink");
+        Var d = source.getLValue();
+        Var e = self.getLValue();
+        Propagation p = new Propagation(2);
+        // the sink belongs to the second configuration only
+        p.propagator.addSink(p.getCSVar(e), sink, 0, 1);
+        p.addEdge(d, e);
+        Type type = e.getType();
+        p.propagator.addTaints(p.getCSVar(d), Set.of(
+                p.manager.makeTaint(0, source, type),
+                p.manager.makeTaint(1, source, type)));
+        Assert.assertEquals(List.of(new TaintFlow(source, sink, 0)), p.flows);
+        Assert.assertEquals(List.of(1), p.flowConfigs);
+        // both taint objects reach the sink, but only the one of
+        // the second configuration is reported
+        Assert.assertEquals(2, p.propagator.getTaints(p.getCSVar(e)).size());
+    }
+
+    @Test
+    public void testWitnessPath() {
+        JMethod main = World.get().getMainMethod();
+        Invoke source = getCall(main, "source");
+        Invoke self = getCall(main, "self");
+        Var d = source.getLValue();
+        Var e = self.getLValue();
+        Var thisVar = getMethod("Data", "self").getIR().getThis();
+        Propagation p = new Propagation(1, new TaintProvenance(100));
+        // d -> this of self() -> e, as the solver adds for the call
+        p.addEdge(d, thisVar);
+        p.addEdge(thisVar, e);
+        Obj taint = p.manager.makeTaint(0, source, e.getType());
+        p.propagator.addTaints(p.getCSVar(d), Set.of(taint));
+        List<Pointer> path = List.of(
+                p.getCSVar(d), p.getCSVar(thisVar), p.getCSVar(e));
+        Assert.assertEquals(path, p.propagator.getPath(p.getCSVar(e), taint));
+        Assert.assertEquals(List.of(p.getCSVar(d)),
+                p.propagator.getPath(p.getCSVar(d), taint));
+        // a route found later does not change the recorded arrival
+        p.addEdge(d, e);
+        Assert.assertEquals(path, p.propagator.getPath(p.getCSVar(e), taint));
+    }
+
+    @Test
+    public void testWitnessPathLimit() {
+        JMethod main = World.get().getMainMethod();
+        Invoke source = getCall(main, "source");
+        Invoke self = getCall(main, "self");
+        Var d = source.getLValue();
+        Var e = self.getLValue();
+        Propagation p = new Propagation(1, new TaintProvenance(1));
+        p.addEdge(d, e);
+        Obj taint = p.manager.makeTaint(0, source, e.getType());
+        p.propagator.addTaints(p.getCSVar(d), Set.of(taint));
+        // only the arrival at the result of the source call is recorded
+        Assert.assertEquals(List.of(p.getCSVar(d)),
+                p.propagator.getPath(p.getCSVar(d), taint));
+        Assert.assertEquals(List.of(), p.propagator.getPath(p.getCSVar(e), taint));
+        // paths are not recorded without provenance
+        Propagation q = new Propagation(1);
+        taint = q.manager.makeTaint(0, source, e.getType());
+        q.propagator.addTaints(q.getCSVar(d), Set.of(taint));
+        Assert.assertEquals(List.of(), q.propagator.getPath(q.getCSVar(d), taint));
+    }
+
+    @Test
+    public void testSanitizers() {
+        JMethod main = World.get().getMainMethod();
+        JMethod clean = getMethod("TaintCalls", "clean");
+        Invoke source = getCall(main, "source");
+        Invoke cleanCall = getCall(main, "clean");
+        Invoke sink = getCalls(main, "sink").get(1);
+        Var d = source.getLValue();
+        Var o = clean.getIR().getParam(0);
+        Var c = cleanCall.getLValue();
+        // clean() sanitizes its argument for the first configuration
+        List<TaintConfig> configs = List.of(
+                new TaintConfig(Set.of(), Set.of(), Set.of(),
+                        Set.of(new Sanitizer(clean, 0))),
+                new TaintConfig(Set.of(), Set.of(), Set.of(), Set.of()));
+        // the sanitizer cuts the edge d -> o whether it is added
+        // before or after the taint objects arrive at d
+        for (boolean edgesFirst : new boolean[]{true, false}) {
+            Propagation p = new Propagation(configs, null);
+            p.propagator.addSanitizers(p.context, cleanCall,
+                    p.csManager.getCSMethod(p.context, clean), p.rules.get(clean));
+            p.propagator.addSink(p.getCSVar(c), sink, 0, 0);
+            p.propagator.addSink(p.getCSVar(c), sink, 0, 1);
+            if (edgesFirst) {
+                p.addEdge(d, o);
+                p.addEdge(o, c);
+            }
+            Type type = d.getType();
+            p.propagator.addTaints(p.getCSVar(d), Set.of(
+                    p.manager.makeTaint(0, source, type),
+                    p.manager.makeTaint(1, source, type)));
+            if (!edgesFirst) {
+                p.addEdge(d, o);
+                p.addEdge(o, c);
+            }
+            Assert.assertEquals(List.of(1), p.flowConfigs);
+            Assert.assertEquals(1, p.propagator.getCutPropagations());
+            Assert.assertEquals(1, p.propagator.getTaints(p.getCSVar(o)).size());
+        }
+    }
+
+    private static JMethod getMethod(String className, String methodName) {
+        return World.get().getClassHierarchy()
+                .getClass(className)
+                .getDeclaredMethod(methodName);
+    }
+
+    private static Invoke getCall(JMethod container, String calleeName) {
+        return getCalls(container, calleeName).get(0);
+    }
+
+    private static List<Invoke> getCalls(JMethod container, String calleeName) {
+        return container.getIR().stmts()
+                .filter(s -> s instanceof Invoke)
+                .map(s -> (Invoke) s)
+                .filter(i -> i.getMethodRef().getName().equals(calleeName))
+                .toList();
+    }
+
+    /**
+     * Taint propagation over a hand-built PFG, where all pointers
+     * and callees are in the empty context.
+     */
+    private static class Propagation {
+
+        private final CSManager csManager = new MapBasedCSManager();
+
+        private final Context context = new CISelector().getEmptyContext();
+
+        private final TaintManager manager;
+
+        private final TaintRules rules;
+
+        private final HandBuiltPFG pfg = new HandBuiltPFG();
+
+        private final TaintPropagator propagator;
+
+        private final List<JMethod> callees = new ArrayList<>();
+
+        private final List<TaintFlow> flows = new ArrayList<>();
+
+        private final List<Integer> flowConfigs = new ArrayList<>();
+
+        private Propagation(int numberOfConfigs) {
+            this(numberOfConfigs, null);
+        }
+
+        private Propagation(int numberOfConfigs,
+                            @Nullable TaintProvenance provenance) {
+            this(emptyConfigs(numberOfConfigs), provenance);
+        }
+
+        private Propagation(List<TaintConfig> configs,
+                            @Nullable TaintProvenance provenance) {
+            manager = new TaintManager(configs.size());
+            rules = new TaintRules(configs);
+            propagator = new TaintPropagator(pfg, csManager, manager,
+                    rules, (flow, config) -> {
+                        flows.add(flow);
+                        flowConfigs.add(config);
+                    },
+                    provenance, (callSite, recv, callee) -> {
+                        callees.add(callee);
+                        return csManager.getCSMethod(context, callee);
+                    });
+        }
+
+        private static List<TaintConfig> emptyConfigs(int numberOfConfigs) {
+            List<TaintConfig> configs = new ArrayList<>();
+            for (int i = 0; i < numberOfConfigs; ++i) {
+                configs.add(new TaintConfig(Set.of(), Set.of(), Set.of(), Set.of()));
+            }
+            return configs;
+        }
+
+        private CSVar getCSVar(Var var) {
+            return csManager.getCSVar(context, var);
+        }
+
+        /**
+         * Adds a PFG edge and notifies the propagator as the solver does.
+         */
+        private void addEdge(Var source, Var target) {
+            CSVar s = getCSVar(source), t = getCSVar(target);
+            if (pfg.edges.put(s, t)) {
+                propagator.onNewPFGEdge(s, t);
+            }
+        }
+    }
+
+    private static class HandBuiltPFG extends PointerFlowGraph {
+
+        private final MultiMap<Pointer, Pointer> edges = Maps.newMultiMap();
+
+        @Override
+        public Set<Pointer> getSuccsOf(Pointer pointer) {
+            return edges.get(pointer);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.plugin.taint;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import pascal.taie.Main;
+import pascal.taie.World;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.Type;
+
+import java.util.List;
+
+public class TaintRulesTest {
+
+    private static final String CONFIG = "src/test/resources/pta/taint/taint-config.yml";
+
+    @BeforeClass
+    public static void buildWorld() {
+        Main.buildWorld("-pp", "-cp", "src/test/resources/pta/taint",
+                "-m", "SimpleTaint");
+    }
+
+    @Test
+    public void testIndexing() {
+        TaintRules rules = new TaintRules(List.of(readConfig(CONFIG)));
+        Type string = World.get().getTypeSystem().getType("java.lang.String");
+
+        TaintRules.MethodRules source = rules.get(
+                getMethod("<SourceSink: java.lang.String source()>"));
+        Assert.assertTrue(source.isSource());
+        Assert.assertFalse(source.isSink());
+        Assert.assertArrayEquals(new Type[]{string}, source.sourceTypes());
+
+        // rules of different kinds on the same method are merged
+        TaintRules.MethodRules sourceAndSink = rules.get(getMethod(
+                "<SourceSink: java.lang.String sourceAndSink(java.lang.String,java.lang.String)>"));
+        Assert.assertTrue(sourceAndSink.isSource());
+        Assert.assertArrayEquals(new int[]{0}, sourceAndSink.sinkIndexes());
+
+        TaintRules.MethodRules sink = rules.get(getMethod(
+                "<SourceSink: void sink(java.lang.String,java.lang.String)>"));
+        Assert.assertArrayEquals(new int[]{1}, sink.sinkIndexes());
+        Assert.assertFalse(sink.hasTransfers());
+
+        // rules of the same kind on the same method are appended
+        TaintRules.MethodRules concat = rules.get(getMethod(
+                "<java.lang.String: java.lang.String concat(java.lang.String)>"));
+        Assert.assertEquals(2, concat.transfers().length);
+        Assert.assertFalse(concat.isSource() || concat.isSink());
+
+        Assert.assertNull(rules.get(World.get().getMainMethod()));
+    }
+
+    @Test
+    public void testConfigLabels() {
+        TaintRules rules = new TaintRules(List.of(readConfig(CONFIG),
+                readConfig("src/test/resources/pta/taint/taint-config-second.yml")));
+        TaintRules.MethodRules source = rules.get(
+                getMethod("<SourceSink: java.lang.String source()>"));
+        Assert.assertArrayEquals(new int[]{0, 1}, source.sourceConfigs());
+        TaintRules.MethodRules sink = rules.get(
+                getMethod("<SourceSink: void sink(java.lang.String,int)>"));
+        Assert.assertArrayEquals(new int[]{0, 0}, sink.sinkIndexes());
+        Assert.assertArrayEquals(new int[]{0, 1}, sink.sinkConfigs());
+        TaintRules.MethodRules sourceAndSink = rules.get(getMethod(
+                "<SourceSink: java.lang.String sourceAndSink(java.lang.String,java.lang.String)>"));
+        Assert.assertArrayEquals(new int[]{0}, sourceAndSink.sourceConfigs());
+        Assert.assertArrayEquals(new int[]{0}, sourceAndSink.sinkConfigs());
+    }
+
+    private static TaintConfig readConfig(String path) {
+        return TaintConfig.readConfig(path,
+                World.get().getClassHierarchy(), World.get().getTypeSystem());
+    }
+
+    private static JMethod getMethod(String signature) {
+        return World.get().getClassHierarchy().getMethod(signature);
+    }
+}
@@ -0,0 +1,21 @@
+class Changes {
+
+    public static void main(String[] args) {
+        unchanged();
+        changed();
+    }
+
+    static int unchanged() {
+        int x = 1;
+        try {
+            x = x + 1;
+        } catch (RuntimeException e) {
+            x = 0;
+        }
+        return x;
+    }
+
+    static int changed() {
+        return 1;
+    }
+}
@@ -0,0 +1,25 @@
+/**
+ * Same as v1/Changes.java except this comment,
+ * which shifts the line numbers, and method changed().
+ */
+class Changes {
+
+    public static void main(String[] args) {
+        unchanged();
+        changed();
+    }
+
+    static int unchanged() {
+        int x = 1;
+        try {
+            x = x + 1;
+        } catch (RuntimeException e) {
+            x = 0;
+        }
+        return x;
+    }
+
+    static int changed() {
+        return 2;
+    }
+}
@@ -0,0 +1,20 @@
+class MergeSites {
+
+    public static void main(String[] args) {
+        A a = new A();
+        B b1 = new B();
+        B b2 = new B();
+        B b3 = new B();
+        C c1 = new C();
+        C c2 = new C();
+    }
+}
+
+class A {
+}
+
+class B {
+}
+
+class C {
+}
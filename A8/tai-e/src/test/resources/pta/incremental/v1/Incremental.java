@@ -0,0 +1,75 @@
+class Incremental {
+
+    static Object field;
+
+    public static void main(String[] args) {
+        Box b1 = new Box();
+        Box b2 = new Box();
+        b1.set(new A());
+        b2.set(Util.make());
+        Object x = b1.get();
+        Object y = b2.get();
+        field = y;
+        Shape s = Util.shape();
+        s.draw(field);
+        Util.id(x);
+    }
+}
+
+class Util {
+
+    static Object make() {
+        Object r = new B();
+        return id(r);
+    }
+
+    static Shape shape() {
+        return new Circle();
+    }
+
+    static Object id(Object o) {
+        return o == null ? o : id(o);
+    }
+}
+
+class Box {
+
+    Object f;
+
+    void set(Object o) {
+        this.f = o;
+    }
+
+    Object get() {
+        return this.f;
+    }
+}
+
+interface Shape {
+
+    Object draw(Object o);
+}
+
+class Circle implements Shape {
+
+    public Object draw(Object o) {
+        Object t = new A();
+        return o;
+    }
+}
+
+class Square implements Shape {
+
+    public Object draw(Object o) {
+        return new B();
+    }
+}
+
+class A {
+}
+
+class B {
+}
+
+class C {
+}
@@ -0,0 +1,33 @@
+class TaintCalls {
+
+    public static void main(String[] args) {
+        Data d = source();
+        Data e = d.self();
+        sink(e);
+        d.leak();
+        Object c = clean(d);
+        sink(c);
+    }
+
+    static Data source() {
+        return new Data();
+    }
+
+    static void sink(Object o) {
+    }
+
+    static Object clean(Object o) {
+        return o;
+    }
+}
+
+class Data {
+
+    Data self() {
+        return this;
+    }
+
+    void leak() {
+        TaintCalls.sink(this);
+    }
+}